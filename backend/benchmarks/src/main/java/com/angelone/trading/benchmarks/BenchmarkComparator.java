@@ -0,0 +1,117 @@
+package com.angelone.trading.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files ({@code -rf json}) and exits non-zero when
+ * any benchmark regressed by more than the threshold percentage. A change only
+ * counts when it also exceeds the two runs' combined error margins.
+ *
+ * Usage: {@code BenchmarkComparator <baseline.json> <current.json> [threshold%, default 10]}
+ *
+ * The stored baseline is {@code backend/benchmarks/baseline/baseline.json}; numbers
+ * only compare on the same hardware, so it is recorded on the machine that runs
+ * the comparison (see {@code baseline/README.md}).
+ */
+public final class BenchmarkComparator {
+    
+    private BenchmarkComparator() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparator <baseline.json> <current.json> [threshold%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        if (!new File(args[0]).isFile()) {
+            System.err.println("No baseline at " + args[0] + "; record one first (see baseline/README.md)");
+            System.exit(2);
+        }
+        
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+        
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %9s  new%n", entry.getKey(), "-", now.score, "");
+                continue;
+            }
+            
+            // Positive change is always "worse", whichever direction the mode measures
+            double change = (now.score - before.score) / before.score * 100;
+            if (now.higherIsBetter) {
+                change = -change;
+            }
+            boolean significant = Math.abs(now.score - before.score) > now.error + before.error;
+            boolean regressed = change > threshold && significant;
+            if (regressed) {
+                regressions++;
+            }
+            
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.score, now.score, change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-80s missing from current run%n", missing);
+            }
+        }
+        
+        System.out.printf("%n%d regression(s) beyond %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+    
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText()
+                    .replace("com.angelone.trading.benchmarks.", ""));
+            
+            Map<String, String> params = new LinkedHashMap<>();
+            if (run.has("params")) {
+                Iterator<Map.Entry<String, JsonNode>> fields = run.get("params").fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    params.put(field.getKey(), field.getValue().asText());
+                }
+            }
+            if (!params.isEmpty()) {
+                key.append(params);
+            }
+            
+            JsonNode metric = run.get("primaryMetric");
+            double error = metric.get("scoreError").asDouble();
+            results.put(key + " (" + metric.get("scoreUnit").asText() + ")", new Result(
+                    metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    "thrpt".equals(run.get("mode").asText())));
+        }
+        return results;
+    }
+    
+    private static final class Result {
+        private final double score;
+        private final double error;
+        private final boolean higherIsBetter;
+        
+        private Result(double score, double error, boolean higherIsBetter) {
+            this.score = score;
+            this.error = error;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.entity.MarketData;
+import com.angelone.trading.entity.Strategy;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic inputs shared by the benchmarks.
+ */
+final class Fixtures {
+    
+    private Fixtures() {
+    }
+    
+    /**
+     * Newest-first bars, as the repositories return them. Prices zig-zag up
+     * (+2, -1) so RSI settles near 67 and the fast EMA stays above the slow
+     * one: strategies evaluate fully but never signal.
+     */
+    static List<MarketData> history(int size) {
+        List<MarketData> bars = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 15);
+        double price = 20_000;
+        for (int i = 0; i < size; i++) {
+            price += i % 2 == 0 ? 2 : -1;
+            MarketData bar = new MarketData();
+            bar.setSymbol("NIFTY");
+            bar.setOpen(BigDecimal.valueOf(price - 1));
+            bar.setHigh(BigDecimal.valueOf(price + 2));
+            bar.setLow(BigDecimal.valueOf(price - 2));
+            bar.setClose(BigDecimal.valueOf(price));
+            bar.setVolume(1_000L + i);
+            bar.setTimestamp(start.plusMinutes(i));
+            bars.add(0, bar);
+        }
+        return bars;
+    }
+    
+    static List<Strategy> strategies(int count) {
+        List<Strategy> strategies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Strategy strategy = new Strategy();
+            strategy.setId((long) i);
+            strategy.setName("strategy-" + i);
+            strategy.setType(i % 2 == 0 ? Strategy.StrategyType.EMA_CROSSOVER : Strategy.StrategyType.RSI);
+            strategy.setTimeFrame("1m");
+            strategy.setIsActive(true);
+            strategies.add(strategy);
+        }
+        return strategies;
+    }
+    
+    /**
+     * A strategy universe of {@code size} symbols: NIFTY, then SYM1, SYM2, ...
+     */
+    static String universe(int size) {
+        StringBuilder symbols = new StringBuilder("NIFTY");
+        for (int i = 1; i < size; i++) {
+            symbols.append(",SYM").append(i);
+        }
+        return symbols.toString();
+    }
+    
+    /**
+     * A repository proxy answering the named query methods with fixed results.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Object> results) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (results.containsKey(method.getName())) {
+                return results.get(method.getName());
+            }
+            switch (method.getName()) {
+                case "equals": return proxy == args[0];
+                case "hashCode": return System.identityHashCode(proxy);
+                case "toString": return type.getSimpleName();
+                default: break;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    /**
+     * Sets an {@code @Value} field on a bean constructed outside Spring.
+     */
+    static void set(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getSimpleName() + " has no field " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,59 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.entity.User;
+import com.angelone.trading.security.JwtTokenHelper;
+import com.angelone.trading.security.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authentication cost: a full token parse on a principal cache
+ * miss, and the cache lookup on a hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    
+    private final JwtTokenHelper jwtTokenHelper = new JwtTokenHelper();
+    private final PrincipalCache principalCache = new PrincipalCache();
+    private User user;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        Fixtures.set(jwtTokenHelper, "jwtSecret", "benchmarkSecretKey123456789012345678901234567890");
+        Fixtures.set(jwtTokenHelper, "jwtExpiration", 3_600_000L);
+        jwtTokenHelper.init();
+        
+        Fixtures.set(principalCache, "maxSize", 10_000);
+        Fixtures.set(principalCache, "ttlMillis", 3_600_000L);
+        
+        user = new User();
+        user.setId(1L);
+        user.setEmail("bench@example.com");
+        token = jwtTokenHelper.generateToken(user);
+        principalCache.put(token, user, jwtTokenHelper.getExpirationDateFromToken(token));
+    }
+    
+    @Benchmark
+    public Claims parseToken() {
+        return jwtTokenHelper.parseToken(token);
+    }
+    
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtTokenHelper.validateToken(token, user);
+    }
+    
+    @Benchmark
+    public UserDetails principalCacheHit() {
+        return principalCache.get(token);
+    }
+}
@@ -0,0 +1,111 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.service.OrderSubmissionScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent order throughput on platform versus virtual threads. A burst of
+ * orders arrives as requests, each handled on its own request thread that
+ * submits to the real {@link OrderSubmissionScheduler} and waits for the
+ * broker's answer, as the order endpoint does. The broker call only sleeps,
+ * standing in for the HTTP round trip.
+ *
+ * "platform" is the default configuration: Tomcat's 200 request threads and
+ * the scheduler's fixed submission pool. "virtual" is
+ * {@code spring.threads.virtual.enabled}: a virtual thread per request and per
+ * broker call. The broker rate limit is set out of the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderThroughputBenchmark {
+    
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int ORDERS = 1000;
+    
+    @Param({"platform", "virtual"})
+    public String threads;
+    
+    @Param({"8"})
+    public int submissionThreads;
+    
+    @Param({"20"})
+    public long brokerLatencyMillis;
+    
+    private OrderSubmissionScheduler scheduler;
+    private ExecutorService requestExecutor;
+    private List<Trade> trades;
+    private final AtomicLong orderIds = new AtomicLong();
+    
+    @Setup
+    public void setUp() {
+        TaskExecutors taskExecutors = new TaskExecutors("virtual".equals(threads));
+        scheduler = new OrderSubmissionScheduler(taskExecutors);
+        Fixtures.set(scheduler, "defaultClientId", "BENCH");
+        Fixtures.set(scheduler, "placeOrderRate", 1e9);
+        Fixtures.set(scheduler, "submissionThreads", submissionThreads);
+        scheduler.start();
+        
+        requestExecutor = taskExecutors.newExecutor("request-", TOMCAT_MAX_THREADS);
+        
+        trades = new ArrayList<>();
+        for (long userId = 1; userId <= 50; userId++) {
+            User user = new User();
+            user.setId(userId);
+            Trade trade = new Trade();
+            trade.setUser(user);
+            trades.add(trade);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        requestExecutor.shutdownNow();
+        scheduler.stop();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long placeOrders() {
+        List<CompletableFuture<Boolean>> requests = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Trade trade = trades.get(i % trades.size());
+            String dedupeKey = "order-" + orderIds.incrementAndGet();
+            requests.add(CompletableFuture.supplyAsync(
+                    () -> scheduler.submit(OrderSubmissionScheduler.OrderPriority.ENTRY, dedupeKey, trade,
+                            this::brokerCall).join(),
+                    requestExecutor));
+        }
+        
+        long placed = 0;
+        for (CompletableFuture<Boolean> request : requests) {
+            if (request.join()) {
+                placed++;
+            }
+        }
+        return placed;
+    }
+    
+    private Boolean brokerCall() {
+        try {
+            Thread.sleep(brokerLatencyMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
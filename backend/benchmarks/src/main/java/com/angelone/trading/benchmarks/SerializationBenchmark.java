@@ -0,0 +1,48 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.entity.MarketData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of market data as done for every STOMP broadcast and REST response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    
+    // Configured like Spring Boot's default mapper
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    
+    private MarketData tick;
+    private List<MarketData> window;
+    
+    @Setup
+    public void setUp() {
+        window = Fixtures.history(100);
+        tick = window.get(0);
+    }
+    
+    @Benchmark
+    public byte[] serializeTick() throws Exception {
+        return objectMapper.writeValueAsBytes(tick);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] serializeHistoryWindow() throws Exception {
+        return objectMapper.writeValueAsBytes(window);
+    }
+}
@@ -0,0 +1,82 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.Strategy;
+import com.angelone.trading.repository.MarketDataRepository;
+import com.angelone.trading.repository.StrategyRepository;
+import com.angelone.trading.service.AngelOneApiService;
+import com.angelone.trading.service.StrategyExecutionService;
+import com.angelone.trading.service.SymbolUniverseService;
+import com.angelone.trading.service.TechnicalAnalysisService;
+import com.angelone.trading.service.TradingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One scheduler pass over all active strategies, each scanning a universe of
+ * {@code symbolCount} symbols, with repositories answering from memory so only
+ * evaluation is measured. The price history never produces a signal, so no
+ * orders or notifications are involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StrategyExecutionBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    public int strategyCount;
+    
+    @Param({"1", "200"})
+    public int symbolCount;
+    
+    @Param({"500"})
+    public int historySize;
+    
+    private StrategyExecutionService strategyExecutionService;
+    
+    @Setup
+    public void setUp() {
+        List<Strategy> strategies = Fixtures.strategies(strategyCount);
+        String universe = Fixtures.universe(symbolCount);
+        strategies.forEach(strategy -> strategy.setSymbols(universe));
+        StrategyRepository strategyRepository = Fixtures.repository(StrategyRepository.class,
+                Map.of("findByIsActiveTrue", strategies));
+        MarketDataRepository marketDataRepository = Fixtures.repository(MarketDataRepository.class,
+                Map.of("findRecentBars", Fixtures.history(historySize)));
+        
+        // The synthetic symbols have no broker token; count them tradable so the whole universe is scanned
+        AngelOneApiService angelOneApiService = new AngelOneApiService(null, null, new TaskExecutors(false)) {
+            @Override
+            public boolean hasSymbolToken(String symbol) {
+                return true;
+            }
+        };
+        
+        strategyExecutionService = new StrategyExecutionService(strategyRepository, marketDataRepository,
+                new TechnicalAnalysisService(), null, null, null, new TradingMetrics(new SimpleMeterRegistry(), 64),
+                new SymbolUniverseService(new StandardEnvironment()), new TaskExecutors(false), angelOneApiService, null);
+        Fixtures.set(strategyExecutionService, "strategyBars", historySize);
+        Fixtures.set(strategyExecutionService, "lookbackDays", 7);
+        Fixtures.set(strategyExecutionService, "executionInterval", 10_000L);
+        Fixtures.set(strategyExecutionService, "scanThreads", Runtime.getRuntime().availableProcessors());
+        strategyExecutionService.init();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        strategyExecutionService.shutdown();
+    }
+    
+    @Benchmark
+    public void executeActiveStrategies() {
+        strategyExecutionService.executeActiveStrategies();
+    }
+}
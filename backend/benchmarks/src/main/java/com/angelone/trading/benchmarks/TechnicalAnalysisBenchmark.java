@@ -0,0 +1,44 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.entity.MarketData;
+import com.angelone.trading.service.TechnicalAnalysisService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TechnicalAnalysisBenchmark {
+    
+    @Param({"100", "1000", "10000"})
+    public int historySize;
+    
+    private final TechnicalAnalysisService technicalAnalysisService = new TechnicalAnalysisService();
+    private List<MarketData> history;
+    
+    @Setup
+    public void setUp() {
+        history = Fixtures.history(historySize);
+    }
+    
+    @Benchmark
+    public BigDecimal calculateEMA() {
+        return technicalAnalysisService.calculateEMA(history, 50);
+    }
+    
+    @Benchmark
+    public BigDecimal calculateRSI() {
+        return technicalAnalysisService.calculateRSI(history, 14);
+    }
+    
+    @Benchmark
+    public boolean isEMACrossover() {
+        return technicalAnalysisService.isEMACrossover(history, 20, 50);
+    }
+}
@@ -0,0 +1,63 @@
+package com.angelone.trading.benchmarks;
+
+import com.angelone.trading.service.TickDecoder;
+import com.angelone.trading.service.TickEvent;
+import com.angelone.trading.service.TickRingBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed frame decoding (what the socket threads do per frame) and the ring
+ * buffer hand-off to the consumers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickPipelineBenchmark {
+    
+    private static final String JSON_TICK =
+            "{\"tk\":\"26000\",\"lp\":\"21845.35\",\"o\":\"21800.00\",\"h\":\"21870.10\",\"l\":\"21790.55\",\"v\":123456,\"ft\":1704771000000}";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TickEvent event = new TickEvent();
+    private final ByteBuffer binaryTick = ByteBuffer.allocate(TickDecoder.QUOTE_PACKET_SIZE);
+    private TickRingBuffer ringBuffer;
+    
+    @Setup
+    public void setUp() {
+        TickDecoder.encodeQuote(binaryTick, "26000".getBytes(StandardCharsets.US_ASCII), 1, 1_704_771_000_000L,
+                2_184_535, 123_456, 2_180_000, 2_187_010, 2_179_055, 2_180_000);
+        
+        ringBuffer = new TickRingBuffer(65_536, TickRingBuffer.WaitStrategy.BUSY_SPIN);
+        ringBuffer.addConsumer("noop", (tick, sequence, endOfBatch) -> {
+        });
+        ringBuffer.start();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        ringBuffer.stop();
+    }
+    
+    @Benchmark
+    public boolean decodeBinary() {
+        return TickDecoder.decodeBinary(binaryTick, event);
+    }
+    
+    @Benchmark
+    public boolean decodeJson() throws Exception {
+        return TickDecoder.decodeJson(objectMapper.readTree(JSON_TICK), event);
+    }
+    
+    @Benchmark
+    public boolean publishBinary() {
+        return ringBuffer.publish(slot -> TickDecoder.decodeBinary(binaryTick, slot));
+    }
+}
@@ -0,0 +1,70 @@
+package com.angelone.trading.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (8 per power of two, so
+ * percentiles are within 12.5%), recording microseconds. Same layout as the
+ * backend's {@code LatencyHistogram}, which this module does not depend on.
+ */
+final class Histogram {
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexFor(value));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    long getCount() {
+        return count.get();
+    }
+    
+    long getMaxMicros() {
+        return max.get();
+    }
+    
+    long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rank = (long) Math.ceil(total * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + mantissa;
+    }
+    
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        int mantissa = index & (SUB_BUCKETS - 1);
+        return ((long) (SUB_BUCKETS + mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,94 @@
+package com.angelone.trading.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for capacity planning: drives a running backend with virtual
+ * users whose number follows a {@link RampProfile}, and reports throughput,
+ * latency percentiles and error rates per operation, plus WebSocket delivery
+ * lag for market data and trade updates. See {@link LoadTestOptions} for options.
+ */
+public final class LoadTest {
+    
+    private static final long CONTROL_INTERVAL_MILLIS = 100;
+    
+    private final LoadTestOptions options;
+    private final Stats stats = new Stats();
+    
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestOptions.parse(args)).run();
+    }
+    
+    private void run() throws Exception {
+        RampProfile profile = RampProfile.from(options);
+        System.out.printf("Load test against %s: %s (%ds), think time %d ms, mix %s%n",
+                options.baseUrl, profile, profile.getTotalMillis() / 1000, options.thinkTimeMillis, options.mix);
+        
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ExecutorService ioExecutor = Executors.newFixedThreadPool(threads, daemon("loadtest-io-"));
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, threads / 4), daemon("loadtest-scheduler-"));
+        HttpClient http = HttpClient.newBuilder()
+                .executor(ioExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TradingApiClient api = new TradingApiClient(http, options.baseUrl, objectMapper, stats);
+        
+        List<VirtualUser> users = new ArrayList<>();
+        int nextIndex = 0;
+        long startedAt = System.nanoTime();
+        long nextReport = options.reportIntervalMillis;
+        
+        try (Reporter reporter = new Reporter(stats, options.csv)) {
+            long elapsed;
+            while ((elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)) < profile.getTotalMillis()) {
+                int target = profile.targetAt(elapsed);
+                while (users.size() < target) {
+                    VirtualUser user = new VirtualUser(nextIndex++, options, api, http, objectMapper, scheduler, stats);
+                    users.add(user);
+                    user.start();
+                }
+                while (users.size() > target) {
+                    users.remove(users.size() - 1).stop();
+                }
+                
+                if (elapsed >= nextReport) {
+                    reporter.interval(elapsed);
+                    nextReport += options.reportIntervalMillis;
+                }
+                Thread.sleep(CONTROL_INTERVAL_MILLIS);
+            }
+            
+            users.forEach(VirtualUser::stop);
+            reporter.summary(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } finally {
+            scheduler.shutdownNow();
+            ioExecutor.shutdownNow();
+        }
+    }
+    
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
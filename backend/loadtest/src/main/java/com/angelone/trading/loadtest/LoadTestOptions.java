@@ -0,0 +1,136 @@
+package com.angelone.trading.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}:
+ *
+ * <pre>
+ * --base-url=http://localhost:8080/api   backend under test
+ * --users=100                            peak concurrent users
+ * --profile=steady                       steady, ramp, step or spike (see {@link RampProfile})
+ * --stages=30s:100,5m:100,30s:0          explicit ramp stages, overrides --profile
+ * --duration=5m                          length of the profile's main phase
+ * --think-time=2s                        mean pause between a user's actions (exponential)
+ * --mix=place:40,close:30,open:20,toggle:10   relative weights of user actions
+ * --symbols=NIFTY,BANKNIFTY,RELIANCE,TCS,INFY
+ * --symbols-per-user=2                   market-data topics each user subscribes to
+ * --report-interval=10s
+ * --csv=report.csv                       per-interval results, for capacity plots
+ * --user-prefix=loadtest                 users are loadtest-0@loadtest.local, ...
+ * --password=loadtest123
+ * </pre>
+ */
+final class LoadTestOptions {
+    
+    String baseUrl = "http://localhost:8080/api";
+    int users = 100;
+    String profile = "steady";
+    String stages;
+    long durationMillis = 300_000;
+    long thinkTimeMillis = 2_000;
+    Map<String, Integer> mix = parseMix("place:40,close:30,open:20,toggle:10");
+    List<String> symbols = List.of("NIFTY", "BANKNIFTY", "RELIANCE", "TCS", "INFY");
+    int symbolsPerUser = 2;
+    long reportIntervalMillis = 10_000;
+    String csv;
+    String userPrefix = "loadtest";
+    String password = "loadtest123";
+    
+    private LoadTestOptions() {
+    }
+    
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            
+            switch (name) {
+                case "base-url":
+                    options.baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "users":
+                    options.users = Integer.parseInt(value);
+                    break;
+                case "profile":
+                    options.profile = value;
+                    break;
+                case "stages":
+                    options.stages = value;
+                    break;
+                case "duration":
+                    options.durationMillis = parseMillis(value);
+                    break;
+                case "think-time":
+                    options.thinkTimeMillis = parseMillis(value);
+                    break;
+                case "mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "symbols":
+                    options.symbols = new ArrayList<>(Arrays.asList(value.split(",")));
+                    break;
+                case "symbols-per-user":
+                    options.symbolsPerUser = Integer.parseInt(value);
+                    break;
+                case "report-interval":
+                    options.reportIntervalMillis = parseMillis(value);
+                    break;
+                case "csv":
+                    options.csv = value;
+                    break;
+                case "user-prefix":
+                    options.userPrefix = value;
+                    break;
+                case "password":
+                    options.password = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return options;
+    }
+    
+    /**
+     * Parses {@code 500ms}, {@code 30s}, {@code 5m} or {@code 1h}; a bare number is seconds.
+     */
+    static long parseMillis(String value) {
+        String text = value.trim();
+        if (text.endsWith("ms")) {
+            return Long.parseLong(text.substring(0, text.length() - 2));
+        }
+        char unit = text.charAt(text.length() - 1);
+        if (Character.isDigit(unit)) {
+            return Long.parseLong(text) * 1000;
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        switch (unit) {
+            case 's':
+                return amount * 1000;
+            case 'm':
+                return amount * 60_000;
+            case 'h':
+                return amount * 3_600_000;
+            default:
+                throw new IllegalArgumentException("Unknown duration unit in " + value);
+        }
+    }
+    
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+}
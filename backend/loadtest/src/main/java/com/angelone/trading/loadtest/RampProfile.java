@@ -0,0 +1,124 @@
+package com.angelone.trading.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Target number of concurrent users over time, as a list of stages. Each stage
+ * moves linearly from the previous stage's target to its own over its
+ * duration, so {@code 1m:500} ramps to 500 users in a minute and a following
+ * {@code 5m:500} holds them for five.
+ *
+ * Presets for {@code users} N and {@code duration} D:
+ * <ul>
+ * <li>steady: 30s up to N, hold for D, 10s down</li>
+ * <li>ramp: 0 to N linearly over D, for finding the knee of the latency curve</li>
+ * <li>step: five equal steps up to N, each reached in 5s and held for D/5</li>
+ * <li>spike: hold N/10, jump to N in 10s, hold for D, drop back, hold again</li>
+ * </ul>
+ */
+final class RampProfile {
+    
+    private final List<Stage> stages;
+    private final long totalMillis;
+    
+    private RampProfile(List<Stage> stages) {
+        this.stages = stages;
+        long total = 0;
+        for (Stage stage : stages) {
+            total += stage.durationMillis;
+        }
+        this.totalMillis = total;
+    }
+    
+    static RampProfile from(LoadTestOptions options) {
+        if (options.stages != null) {
+            return parse(options.stages);
+        }
+        
+        int users = options.users;
+        long duration = options.durationMillis;
+        List<Stage> stages = new ArrayList<>();
+        switch (options.profile) {
+            case "steady":
+                stages.add(new Stage(30_000, users));
+                stages.add(new Stage(duration, users));
+                stages.add(new Stage(10_000, 0));
+                break;
+            case "ramp":
+                stages.add(new Stage(duration, users));
+                break;
+            case "step":
+                for (int step = 1; step <= 5; step++) {
+                    int target = users * step / 5;
+                    stages.add(new Stage(5_000, target));
+                    stages.add(new Stage(duration / 5, target));
+                }
+                break;
+            case "spike":
+                int base = Math.max(1, users / 10);
+                stages.add(new Stage(10_000, base));
+                stages.add(new Stage(30_000, base));
+                stages.add(new Stage(10_000, users));
+                stages.add(new Stage(duration, users));
+                stages.add(new Stage(10_000, base));
+                stages.add(new Stage(30_000, base));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile " + options.profile);
+        }
+        return new RampProfile(stages);
+    }
+    
+    /**
+     * Parses {@code duration:users} pairs, e.g. {@code 30s:100,5m:100,30s:0}.
+     */
+    static RampProfile parse(String spec) {
+        List<Stage> stages = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split(":");
+            stages.add(new Stage(LoadTestOptions.parseMillis(parts[0]), Integer.parseInt(parts[1].trim())));
+        }
+        return new RampProfile(stages);
+    }
+    
+    long getTotalMillis() {
+        return totalMillis;
+    }
+    
+    int targetAt(long elapsedMillis) {
+        int previous = 0;
+        long stageStart = 0;
+        for (Stage stage : stages) {
+            if (elapsedMillis < stageStart + stage.durationMillis) {
+                double progress = (elapsedMillis - stageStart) / (double) stage.durationMillis;
+                return (int) Math.round(previous + (stage.users - previous) * progress);
+            }
+            previous = stage.users;
+            stageStart += stage.durationMillis;
+        }
+        return previous;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Stage stage : stages) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(stage.durationMillis / 1000).append("s->").append(stage.users);
+        }
+        return text.toString();
+    }
+    
+    private static final class Stage {
+        private final long durationMillis;
+        private final int users;
+        
+        private Stage(long durationMillis, int users) {
+            this.durationMillis = durationMillis;
+            this.users = users;
+        }
+    }
+}
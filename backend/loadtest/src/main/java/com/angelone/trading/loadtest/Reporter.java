@@ -0,0 +1,84 @@
+package com.angelone.trading.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prints a line per series every report interval and a summary at the end.
+ * With {@code --csv} the interval rows are also written to a file, one row per
+ * series per interval alongside the user count, for plotting latency and
+ * errors against load.
+ */
+final class Reporter implements AutoCloseable {
+    
+    private static final String ROW = "  %-20s %9.1f/s  p50 %8.1f ms  p90 %8.1f ms  p99 %8.1f ms  max %8.1f ms  errors %6d (%.2f%%)%n";
+    
+    private final Stats stats;
+    private final PrintWriter csv;
+    private long lastReportAt;
+    private long lastWsMessages;
+    
+    Reporter(Stats stats, String csvPath) throws IOException {
+        this.stats = stats;
+        if (csvPath != null) {
+            csv = new PrintWriter(Files.newBufferedWriter(Paths.get(csvPath)));
+            csv.println("elapsedSeconds,users,sockets,series,perSecond,p50Ms,p90Ms,p99Ms,maxMs,errors,errorRate");
+        } else {
+            csv = null;
+        }
+    }
+    
+    void interval(long elapsedMillis) {
+        double seconds = Math.max(1, elapsedMillis - lastReportAt) / 1000d;
+        lastReportAt = elapsedMillis;
+        long wsMessages = stats.wsMessages.get();
+        double wsRate = (wsMessages - lastWsMessages) / seconds;
+        lastWsMessages = wsMessages;
+        
+        System.out.printf(Locale.ROOT, "[%5ds] users %d, sockets %d, ws messages %.0f/s, ws errors %d%n",
+                elapsedMillis / 1000, stats.activeUsers.get(), stats.openSockets.get(), wsRate, stats.wsErrors.get());
+        for (Stats.Snapshot snapshot : stats.interval()) {
+            print(snapshot, seconds);
+            if (csv != null) {
+                csv.printf(Locale.ROOT, "%d,%d,%d,%s,%.2f,%.3f,%.3f,%.3f,%.3f,%d,%.5f%n",
+                        elapsedMillis / 1000, stats.activeUsers.get(), stats.openSockets.get(), snapshot.name,
+                        snapshot.count / seconds, millis(snapshot.p50Micros), millis(snapshot.p90Micros),
+                        millis(snapshot.p99Micros), millis(snapshot.maxMicros), snapshot.errors, snapshot.errorRate());
+            }
+        }
+        if (csv != null) {
+            csv.flush();
+        }
+    }
+    
+    void summary(long elapsedMillis) {
+        double seconds = Math.max(1, elapsedMillis) / 1000d;
+        List<Stats.Snapshot> totals = stats.total();
+        System.out.printf(Locale.ROOT, "%nSummary over %ds, ws messages %d, ws errors %d%n",
+                elapsedMillis / 1000, stats.wsMessages.get(), stats.wsErrors.get());
+        for (Stats.Snapshot snapshot : totals) {
+            print(snapshot, seconds);
+        }
+    }
+    
+    private static void print(Stats.Snapshot snapshot, double seconds) {
+        System.out.printf(Locale.ROOT, ROW, snapshot.name, snapshot.count / seconds, millis(snapshot.p50Micros),
+                millis(snapshot.p90Micros), millis(snapshot.p99Micros), millis(snapshot.maxMicros),
+                snapshot.errors, snapshot.errorRate() * 100);
+    }
+    
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+    
+    @Override
+    public void close() {
+        if (csv != null) {
+            csv.close();
+        }
+    }
+}
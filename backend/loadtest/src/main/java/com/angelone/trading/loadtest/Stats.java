@@ -0,0 +1,100 @@
+package com.angelone.trading.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Results shared by all virtual users. Every series (an HTTP operation or a
+ * WebSocket delivery lag) keeps a histogram for the current report interval,
+ * swapped out at each report, and one for the whole run.
+ */
+final class Stats {
+    
+    static final String MARKET_DATA_LAG = "ws market-data lag";
+    static final String TRADE_PUSH_LAG = "ws trade push";
+    static final String CLOSE_PUSH_LAG = "ws close push";
+    
+    private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+    
+    final AtomicInteger activeUsers = new AtomicInteger();
+    final AtomicInteger openSockets = new AtomicInteger();
+    final AtomicLong wsMessages = new AtomicLong();
+    final AtomicLong wsErrors = new AtomicLong();
+    
+    void success(String name, long micros) {
+        series(name).record(micros);
+    }
+    
+    void error(String name) {
+        series(name).error();
+    }
+    
+    /**
+     * Snapshots of the interval since the last call, resetting it.
+     */
+    List<Snapshot> interval() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        series.forEach((name, s) -> snapshots.add(s.drainInterval(name)));
+        return snapshots;
+    }
+    
+    List<Snapshot> total() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        series.forEach((name, s) -> snapshots.add(new Snapshot(name, s.total, s.totalErrors.get())));
+        return snapshots;
+    }
+    
+    private Series series(String name) {
+        return series.computeIfAbsent(name, key -> new Series());
+    }
+    
+    private static final class Series {
+        private final AtomicReference<Histogram> interval = new AtomicReference<>(new Histogram());
+        private final AtomicLong intervalErrors = new AtomicLong();
+        private final Histogram total = new Histogram();
+        private final AtomicLong totalErrors = new AtomicLong();
+        
+        private void record(long micros) {
+            interval.get().recordMicros(micros);
+            total.recordMicros(micros);
+        }
+        
+        private void error() {
+            intervalErrors.incrementAndGet();
+            totalErrors.incrementAndGet();
+        }
+        
+        private Snapshot drainInterval(String name) {
+            return new Snapshot(name, interval.getAndSet(new Histogram()), intervalErrors.getAndSet(0));
+        }
+    }
+    
+    static final class Snapshot {
+        final String name;
+        final long count;
+        final long errors;
+        final long p50Micros;
+        final long p90Micros;
+        final long p99Micros;
+        final long maxMicros;
+        
+        private Snapshot(String name, Histogram histogram, long errors) {
+            this.name = name;
+            this.count = histogram.getCount();
+            this.errors = errors;
+            this.p50Micros = histogram.percentileMicros(50);
+            this.p90Micros = histogram.percentileMicros(90);
+            this.p99Micros = histogram.percentileMicros(99);
+            this.maxMicros = histogram.getMaxMicros();
+        }
+        
+        double errorRate() {
+            return count + errors == 0 ? 0 : errors / (double) (count + errors);
+        }
+    }
+}
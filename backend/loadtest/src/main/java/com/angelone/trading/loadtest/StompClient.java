@@ -0,0 +1,163 @@
+package com.angelone.trading.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal STOMP 1.2 client over the JDK WebSocket, connected to the raw
+ * WebSocket transport of the backend's SockJS endpoint ({@code /ws/websocket}).
+ * The JWT goes on the upgrade request, so the session's principal is the user
+ * and {@code /user/queue/*} subscriptions receive that user's messages.
+ * Heart-beating is off.
+ */
+final class StompClient implements WebSocket.Listener {
+    
+    interface MessageHandler {
+        void onMessage(String destination, String body);
+    }
+    
+    private final Stats stats;
+    private final MessageHandler handler;
+    private final CompletableFuture<StompClient> connected = new CompletableFuture<>();
+    private final AtomicInteger subscriptionIds = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final StringBuilder partial = new StringBuilder();
+    private volatile WebSocket webSocket;
+    // The JDK WebSocket allows one outstanding send at a time
+    private CompletableFuture<WebSocket> sends = CompletableFuture.completedFuture(null);
+    
+    private StompClient(Stats stats, MessageHandler handler) {
+        this.stats = stats;
+        this.handler = handler;
+    }
+    
+    static CompletableFuture<StompClient> connect(HttpClient http, String baseUrl, String token, Stats stats,
+                                                  MessageHandler handler) {
+        StompClient client = new StompClient(stats, handler);
+        URI uri = URI.create(baseUrl.replaceFirst("^http", "ws") + "/ws/websocket");
+        return http.newWebSocketBuilder()
+                .header("Authorization", "Bearer " + token)
+                .buildAsync(uri, client)
+                .thenCompose(webSocket -> {
+                    client.webSocket = webSocket;
+                    client.send("CONNECT\naccept-version:1.2\nhost:" + uri.getHost() + "\nheart-beat:0,0\n\n\0");
+                    return client.connected;
+                });
+    }
+    
+    void subscribe(String destination) {
+        send("SUBSCRIBE\nid:sub-" + subscriptionIds.incrementAndGet() + "\ndestination:" + destination + "\n\n\0");
+    }
+    
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (connected.isDone() && !connected.isCompletedExceptionally()) {
+            stats.openSockets.decrementAndGet();
+        }
+        if (webSocket != null && !webSocket.isOutputClosed()) {
+            send("DISCONNECT\n\n\0");
+            synchronized (this) {
+                sends = sends.thenCompose(ws -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+            }
+        }
+    }
+    
+    private synchronized void send(String frame) {
+        sends = sends.thenCompose(ws -> webSocket.sendText(frame, true))
+                .exceptionally(e -> {
+                    stats.wsErrors.incrementAndGet();
+                    return webSocket;
+                });
+    }
+    
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        webSocket.request(1);
+    }
+    
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String message = partial.toString();
+            partial.setLength(0);
+            int start = 0;
+            int end;
+            while ((end = message.indexOf('\0', start)) >= 0) {
+                onFrame(message.substring(start, end));
+                start = end + 1;
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+    
+    private void onFrame(String frame) {
+        // Leading newlines are heart-beats or padding after the previous frame
+        int start = 0;
+        while (start < frame.length() && (frame.charAt(start) == '\n' || frame.charAt(start) == '\r')) {
+            start++;
+        }
+        int headersEnd = frame.indexOf("\n\n", start);
+        if (headersEnd < 0) {
+            return;
+        }
+        
+        String[] headerLines = frame.substring(start, headersEnd).split("\n");
+        String command = headerLines[0];
+        String body = frame.substring(headersEnd + 2);
+        
+        switch (command) {
+            case "CONNECTED":
+                stats.openSockets.incrementAndGet();
+                connected.complete(this);
+                break;
+            case "MESSAGE":
+                stats.wsMessages.incrementAndGet();
+                handler.onMessage(header(headerLines, "destination"), body);
+                break;
+            case "ERROR":
+                stats.wsErrors.incrementAndGet();
+                connected.completeExceptionally(new IllegalStateException("STOMP error: " + header(headerLines, "message")));
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private static String header(String[] headerLines, String name) {
+        String prefix = name + ":";
+        for (int i = 1; i < headerLines.length; i++) {
+            if (headerLines[i].startsWith(prefix)) {
+                return headerLines[i].substring(prefix.length());
+            }
+        }
+        return "";
+    }
+    
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (!closed.get()) {
+            // Closed by the server
+            stats.wsErrors.incrementAndGet();
+            close();
+        }
+        connected.completeExceptionally(new IllegalStateException("WebSocket closed: " + statusCode + " " + reason));
+        return null;
+    }
+    
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        stats.wsErrors.incrementAndGet();
+        connected.completeExceptionally(error);
+        close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.angelone.trading.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Asynchronous JSON calls to the backend's REST API. Each call is timed under
+ * its operation name; responses outside the expected statuses, timeouts and
+ * connection failures count as errors and complete the future exceptionally.
+ */
+final class TradingApiClient {
+    
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final IntPredicate OK = status -> status >= 200 && status < 300;
+    
+    private final HttpClient http;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final Stats stats;
+    
+    TradingApiClient(HttpClient http, String baseUrl, ObjectMapper objectMapper, Stats stats) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.stats = stats;
+    }
+    
+    CompletableFuture<JsonNode> get(String operation, String path, String token) {
+        return exchange(operation, request(path, token).GET().build(), OK);
+    }
+    
+    CompletableFuture<JsonNode> post(String operation, String path, Object body, String token) {
+        return post(operation, path, body, token, OK);
+    }
+    
+    CompletableFuture<JsonNode> post(String operation, String path, Object body, String token, IntPredicate expected) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return exchange(operation, request(path, token).POST(publisher).build(), expected);
+    }
+    
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+    
+    private CompletableFuture<JsonNode> exchange(String operation, HttpRequest request, IntPredicate expected) {
+        long startedAt = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+                    if (error != null) {
+                        stats.error(operation);
+                        throw new CompletionException(error);
+                    }
+                    if (!expected.test(response.statusCode())) {
+                        stats.error(operation);
+                        throw new CompletionException(new IllegalStateException(
+                                operation + " returned HTTP " + response.statusCode()));
+                    }
+                    
+                    stats.success(operation, micros);
+                    try {
+                        return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+                    } catch (JsonProcessingException e) {
+                        // Statuses accepted without a JSON body, e.g. a 400 for an existing user
+                        return null;
+                    }
+                });
+    }
+}
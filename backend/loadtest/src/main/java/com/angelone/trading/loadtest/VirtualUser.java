@@ -0,0 +1,313 @@
+package com.angelone.trading.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.http.HttpClient;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated trader. Registers (or reuses an account from an earlier run),
+ * logs in, subscribes to a few market-data topics and its user queues, creates
+ * a strategy, then loops over weighted actions separated by exponentially
+ * distributed think times. Everything is asynchronous, so thousands of users
+ * need no thread each.
+ *
+ * Orders carry a client order id; the trade update pushed on
+ * {@code /user/queue/trades} is matched to it to measure push latency. Closes
+ * are matched to their CLOSED push by trade id.
+ */
+final class VirtualUser {
+    
+    private static final String PLACE = "place";
+    private static final String CLOSE = "close";
+    private static final String OPEN = "open";
+    private static final String TOGGLE = "toggle";
+    private static final BigDecimal DEFAULT_PRICE = BigDecimal.valueOf(100);
+    
+    private final int index;
+    private final LoadTestOptions options;
+    private final TradingApiClient api;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private final Stats stats;
+    
+    private final List<String> symbols;
+    private final Map<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+    private final Map<String, Long> pendingOrders = new ConcurrentHashMap<>();
+    private final Map<Long, Long> pendingCloses = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<Long> openTrades = new ConcurrentLinkedDeque<>();
+    private volatile String token;
+    private volatile Long strategyId;
+    private volatile StompClient stomp;
+    private volatile boolean running;
+    private long orderSequence;
+    
+    VirtualUser(int index, LoadTestOptions options, TradingApiClient api, HttpClient http,
+                ObjectMapper objectMapper, ScheduledExecutorService scheduler, Stats stats) {
+        this.index = index;
+        this.options = options;
+        this.api = api;
+        this.http = http;
+        this.objectMapper = objectMapper;
+        this.scheduler = scheduler;
+        this.stats = stats;
+        
+        List<String> shuffled = new ArrayList<>(options.symbols);
+        Collections.shuffle(shuffled);
+        this.symbols = shuffled.subList(0, Math.min(options.symbolsPerUser, shuffled.size()));
+    }
+    
+    void start() {
+        running = true;
+        stats.activeUsers.incrementAndGet();
+        
+        String email = options.userPrefix + "-" + index + "@loadtest.local";
+        Map<String, Object> registration = new LinkedHashMap<>();
+        registration.put("email", email);
+        registration.put("name", "Load Test " + index);
+        registration.put("password", options.password);
+        
+        Map<String, Object> credentials = new LinkedHashMap<>();
+        credentials.put("email", email);
+        credentials.put("password", options.password);
+        
+        // 400 means the account exists from an earlier run
+        api.post("register", "/auth/register", registration, null, status -> status == 200 || status == 400)
+                .thenCompose(ignored -> api.post("login", "/auth/login", credentials, null))
+                .thenCompose(login -> {
+                    token = login.get("token").asText();
+                    return connectWebSocket();
+                })
+                .thenCompose(ignored -> createStrategy())
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        // Failed setups are counted by their operation; retry after a pause
+                        if (running) {
+                            scheduler.schedule(this::restart, thinkTime(), TimeUnit.MILLISECONDS);
+                        }
+                        return;
+                    }
+                    scheduleNext();
+                });
+    }
+    
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        stats.activeUsers.decrementAndGet();
+        if (stomp != null) {
+            stomp.close();
+        }
+    }
+    
+    private void restart() {
+        if (running) {
+            stop();
+            start();
+        }
+    }
+    
+    private CompletableFuture<Void> connectWebSocket() {
+        long startedAt = System.nanoTime();
+        return StompClient.connect(http, options.baseUrl, token, stats, this::onMessage)
+                .handle((client, error) -> {
+                    if (error != null) {
+                        stats.error("ws connect");
+                        throw new IllegalStateException(error);
+                    }
+                    stats.success("ws connect", TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+                    stomp = client;
+                    for (String symbol : symbols) {
+                        client.subscribe("/topic/market-data/" + symbol);
+                    }
+                    client.subscribe("/user/queue/trades");
+                    client.subscribe("/user/queue/notifications");
+                    if (!running) {
+                        client.close();
+                    }
+                    return null;
+                });
+    }
+    
+    private CompletableFuture<Void> createStrategy() {
+        Map<String, Object> strategy = new LinkedHashMap<>();
+        strategy.put("name", "Load test " + index);
+        strategy.put("type", "EMA_CROSSOVER");
+        strategy.put("timeFrame", "15m");
+        strategy.put("stopLossPercentage", 2);
+        strategy.put("takeProfitPercentage", 4);
+        strategy.put("maxCapitalPercentage", 1);
+        
+        return api.post("strategy create", "/strategies", strategy, token)
+                .thenAccept(created -> strategyId = created.get("id").asLong());
+    }
+    
+    private void scheduleNext() {
+        if (running) {
+            scheduler.schedule(this::act, thinkTime(), TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private long thinkTime() {
+        // Exponential think times give Poisson arrivals per user
+        return (long) (-options.thinkTimeMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+    }
+    
+    private void act() {
+        if (!running) {
+            return;
+        }
+        
+        CompletableFuture<?> action;
+        switch (pickAction()) {
+            case CLOSE:
+                Long tradeId = openTrades.pollFirst();
+                action = tradeId != null ? closeTrade(tradeId) : placeTrade();
+                break;
+            case OPEN:
+                action = api.get("trades open", "/trades/open", token);
+                break;
+            case TOGGLE:
+                action = strategyId != null
+                        ? api.post("strategy toggle", "/strategies/" + strategyId + "/toggle", null, token)
+                        : placeTrade();
+                break;
+            default:
+                action = placeTrade();
+        }
+        action.whenComplete((ignored, error) -> scheduleNext());
+    }
+    
+    private String pickAction() {
+        int total = 0;
+        for (int weight : options.mix.values()) {
+            total += weight;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(Math.max(1, total));
+        for (Map.Entry<String, Integer> entry : options.mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        return PLACE;
+    }
+    
+    private CompletableFuture<Void> placeTrade() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String symbol = symbols.get(random.nextInt(symbols.size()));
+        BigDecimal price = lastPrices.getOrDefault(symbol, DEFAULT_PRICE);
+        boolean buy = random.nextBoolean();
+        String clientOrderId = "L" + index + "-" + (++orderSequence);
+        
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("symbol", symbol);
+        order.put("type", buy ? "BUY" : "SELL");
+        order.put("quantity", 1);
+        order.put("price", price);
+        order.put("stopLoss", percentOf(price, buy ? 99 : 101));
+        order.put("takeProfit", percentOf(price, buy ? 101 : 99));
+        order.put("clientOrderId", clientOrderId);
+        
+        pendingOrders.put(clientOrderId, System.nanoTime());
+        return api.post("trade place", "/trades", order, token)
+                .handle((trade, error) -> {
+                    if (error != null) {
+                        pendingOrders.remove(clientOrderId);
+                        return null;
+                    }
+                    if ("OPEN".equals(trade.path("status").asText())) {
+                        openTrades.add(trade.get("id").asLong());
+                    }
+                    // The push precedes the response; orders that failed inside the backend get none
+                    scheduler.schedule(() -> pendingOrders.remove(clientOrderId), 30, TimeUnit.SECONDS);
+                    return null;
+                });
+    }
+    
+    private CompletableFuture<Void> closeTrade(Long tradeId) {
+        pendingCloses.put(tradeId, System.nanoTime());
+        return api.post("trade close", "/trades/" + tradeId + "/close", null, token)
+                .handle((trade, error) -> {
+                    // A rejected exit leaves the position open; try again later
+                    if (error == null && !"CLOSED".equals(trade.path("status").asText())) {
+                        pendingCloses.remove(tradeId);
+                        openTrades.add(tradeId);
+                    } else {
+                        scheduler.schedule(() -> pendingCloses.remove(tradeId), 30, TimeUnit.SECONDS);
+                    }
+                    return null;
+                });
+    }
+    
+    private void onMessage(String destination, String body) {
+        try {
+            if (destination.startsWith("/topic/market-data/")) {
+                JsonNode tick = objectMapper.readTree(body);
+                if (tick.hasNonNull("close")) {
+                    lastPrices.put(tick.get("symbol").asText(), tick.get("close").decimalValue());
+                }
+                if (tick.hasNonNull("timestamp")) {
+                    long sentAt = epochMillis(tick.get("timestamp"));
+                    stats.success(Stats.MARKET_DATA_LAG, (System.currentTimeMillis() - sentAt) * 1000);
+                }
+            } else if (destination.endsWith("/queue/trades")) {
+                JsonNode trade = objectMapper.readTree(body);
+                Long sentAt = pendingOrders.remove(trade.path("clientOrderId").asText());
+                if (sentAt != null) {
+                    stats.success(Stats.TRADE_PUSH_LAG, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt));
+                }
+                // Positions closed by a stop-loss or take-profit are no longer ours to close
+                if ("CLOSED".equals(trade.path("status").asText())) {
+                    long tradeId = trade.path("id").asLong();
+                    openTrades.remove(tradeId);
+                    Long closeSentAt = pendingCloses.remove(tradeId);
+                    if (closeSentAt != null) {
+                        stats.success(Stats.CLOSE_PUSH_LAG,
+                                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - closeSentAt));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            stats.wsErrors.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Tick timestamps are local date-times, as ISO text or as a field array
+     * depending on the broker channel's Jackson settings.
+     */
+    private static long epochMillis(JsonNode timestamp) {
+        LocalDateTime time;
+        if (timestamp.isArray()) {
+            time = LocalDateTime.of(timestamp.get(0).asInt(), timestamp.get(1).asInt(), timestamp.get(2).asInt(),
+                    timestamp.get(3).asInt(), timestamp.get(4).asInt(), timestamp.path(5).asInt(),
+                    timestamp.path(6).asInt());
+        } else {
+            time = LocalDateTime.parse(timestamp.asText());
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    private static BigDecimal percentOf(BigDecimal price, int percent) {
+        return price.multiply(BigDecimal.valueOf(percent)).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,151 @@
+package com.angelone.trading.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-tier caching: a Caffeine near cache per instance backed by Redis. Each
+ * cache is configured by {@code trading.cache.specs.<name>} as
+ * {@code max-size=..,local-ttl=..,remote-ttl=..}; {@code remote-ttl=0} keeps a
+ * cache in-process, which is used for JPA entities with lazy associations.
+ */
+@Configuration
+@Slf4j
+public class CacheConfig implements CachingConfigurer {
+    
+    public static final String LATEST_QUOTES = "latestQuotes";
+    public static final String HISTORICAL_BARS = "historicalBars";
+    public static final String STRATEGIES = "strategies";
+    public static final String USERS = "users";
+    public static final String SYMBOLS = "symbols";
+    public static final String ANALYTICS = "analytics";
+    
+    private static final Map<String, String> DEFAULT_SPECS = Map.of(
+            LATEST_QUOTES, "max-size=10000,local-ttl=1s,remote-ttl=5s",
+            HISTORICAL_BARS, "max-size=1000,local-ttl=5s,remote-ttl=30s",
+            STRATEGIES, "max-size=10000,local-ttl=5m,remote-ttl=30m",
+            USERS, "max-size=10000,local-ttl=5m,remote-ttl=0",
+            SYMBOLS, "max-size=100,local-ttl=10m,remote-ttl=1h",
+            ANALYTICS, "max-size=10000,local-ttl=1m,remote-ttl=10m"
+    );
+    
+    @Value("${trading.cache.redis.enabled:true}")
+    private boolean redisEnabled;
+    
+    @Value("${trading.cache.redis.retry-interval:30s}")
+    private Duration redisRetryInterval;
+    
+    @Bean
+    public TwoTierCacheManager cacheManager(Environment environment,
+                                            ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                            ObjectMapper objectMapper) {
+        List<TwoTierCacheManager.CacheSpec> specs = new ArrayList<>();
+        DEFAULT_SPECS.forEach((name, defaultSpec) ->
+                specs.add(parseSpec(name, environment.getProperty("trading.cache.specs." + name, defaultSpec))));
+        
+        RedisConnectionFactory factory = redisEnabled ? connectionFactory.getIfAvailable() : null;
+        if (factory == null) {
+            log.info("Redis cache tier disabled, caching in-process only");
+            return new TwoTierCacheManager(specs, (RedisCacheManager) null, null, redisRetryInterval);
+        }
+        
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues()
+                .prefixCacheNameWith("trading:")
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new GenericJackson2JsonRedisSerializer(typedMapper(objectMapper))));
+        
+        Map<String, RedisCacheConfiguration> remoteConfigs = new HashMap<>();
+        for (TwoTierCacheManager.CacheSpec spec : specs) {
+            if (!spec.getRemoteTtl().isZero()) {
+                remoteConfigs.put(spec.getName(), defaults.entryTtl(spec.getRemoteTtl()));
+            }
+        }
+        
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(factory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(remoteConfigs)
+                .build();
+        redisCacheManager.initializeCaches();
+        
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(factory);
+        return new TwoTierCacheManager(specs, redisCacheManager, redisTemplate, redisRetryInterval);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "trading.cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+    
+    /**
+     * Cache failures are logged and treated as misses instead of failing the request.
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+    
+    private static ObjectMapper typedMapper(ObjectMapper objectMapper) {
+        // Values are read back without a target type, so the JSON carries the class name
+        return objectMapper.copy().activateDefaultTyping(
+                BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.angelone.trading.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.math.")
+                        .allowIfSubType("java.time.")
+                        .build(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+    }
+    
+    private static TwoTierCacheManager.CacheSpec parseSpec(String name, String spec) {
+        long maxSize = 1000;
+        Duration localTtl = Duration.ofMinutes(1);
+        Duration remoteTtl = Duration.ZERO;
+        
+        for (String option : spec.split(",")) {
+            String[] pair = option.trim().split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid cache spec for " + name + ": " + spec);
+            }
+            switch (pair[0].trim()) {
+                case "max-size": maxSize = Long.parseLong(pair[1].trim()); break;
+                case "local-ttl": localTtl = DurationStyle.detectAndParse(pair[1].trim()); break;
+                case "remote-ttl": remoteTtl = DurationStyle.detectAndParse(pair[1].trim()); break;
+                default: throw new IllegalArgumentException("Unknown cache option for " + name + ": " + pair[0]);
+            }
+        }
+        return new TwoTierCacheManager.CacheSpec(name, maxSize, localTtl, remoteTtl);
+    }
+}
@@ -0,0 +1,46 @@
+package com.angelone.trading.config;
+
+import com.angelone.trading.jfr.FlightRecorderService;
+import com.angelone.trading.jfr.PinnedThreadMonitor;
+import com.angelone.trading.service.AngelOneWebSocketService;
+import com.angelone.trading.service.QuoteSnapshotStore;
+import com.angelone.trading.service.TradeTriggerService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Set;
+
+/**
+ * Beans that must start with the application even when
+ * {@code spring.main.lazy-initialization} is on (the fast-start profile):
+ * anything with {@code @Scheduled} methods, which would otherwise never be
+ * scheduled, and the tick pipeline that the first tick runs through. The rest,
+ * controllers and the services behind them, are created on first use.
+ */
+@Configuration
+public class LazyInitializationConfig {
+    
+    private static final Set<Class<?>> EAGER_TYPES = Set.of(
+            AngelOneWebSocketService.class,
+            QuoteSnapshotStore.class,
+            TradeTriggerService.class,
+            FlightRecorderService.class,
+            PinnedThreadMonitor.class
+    );
+    
+    @Bean
+    static LazyInitializationExcludeFilter eagerTradingBeans() {
+        return (beanName, beanDefinition, beanType) ->
+                beanType != null && (EAGER_TYPES.contains(beanType) || hasScheduledMethods(beanType));
+    }
+    
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
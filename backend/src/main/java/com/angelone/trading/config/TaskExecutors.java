@@ -0,0 +1,49 @@
+package com.angelone.trading.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking work off the request path: broker HTTP calls, order
+ * submission, session logins and triggered exits. With
+ * {@code spring.threads.virtual.enabled} every task gets its own virtual
+ * thread, so concurrency is bounded by the broker rate limits rather than a
+ * pool size; otherwise each executor is a fixed pool of daemon platform
+ * threads of the configured size.
+ *
+ * The same switch moves Tomcat request handling, {@code @Scheduled} and
+ * {@code @Async} tasks onto virtual threads (Spring Boot 3.2+).
+ */
+@Component
+public class TaskExecutors {
+    
+    private final boolean virtualThreads;
+    
+    public TaskExecutors(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+    
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /**
+     * @param platformThreads pool size when running on platform threads; ignored on virtual threads
+     */
+    public ExecutorService newExecutor(String namePrefix, int platformThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 1).factory());
+        }
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package com.angelone.trading.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Caffeine near cache in front of an optional shared Redis cache. Reads try
+ * the local tier, then Redis, then the loader; writes go to both tiers.
+ * Evictions are also broadcast so other instances drop their near copies.
+ *
+ * Local keys are the key's string form, which is also what Redis and the
+ * invalidation messages use, so all three agree on identity.
+ */
+public class TwoTierCache implements org.springframework.cache.Cache {
+    
+    private final String name;
+    private final Cache<String, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final TwoTierCacheManager manager;
+    
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong remoteMisses = new AtomicLong();
+    
+    TwoTierCache(String name, Cache<String, Object> local, org.springframework.cache.Cache remote,
+                 TwoTierCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+    
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookup(key.toString());
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(key.toString());
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = key.toString();
+        // Caffeine runs the loader once per key, so concurrent misses share one database read
+        return (T) local.get(localKey, k -> {
+            Object value = remoteGet(k);
+            if (value != null) {
+                return value;
+            }
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (value != null) {
+                remotePut(k, value);
+            }
+            return value;
+        });
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = key.toString();
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        local.put(localKey, value);
+        remotePut(localKey, value);
+    }
+    
+    @Override
+    public void evict(Object key) {
+        String localKey = key.toString();
+        local.invalidate(localKey);
+        if (remote != null && manager.isRemoteAvailable()) {
+            try {
+                remote.evict(localKey);
+            } catch (RuntimeException e) {
+                manager.remoteFailed(e);
+            }
+        }
+        manager.publishInvalidation(name, localKey);
+    }
+    
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (remote != null && manager.isRemoteAvailable()) {
+            try {
+                remote.clear();
+            } catch (RuntimeException e) {
+                manager.remoteFailed(e);
+            }
+        }
+        manager.publishInvalidation(name, null);
+    }
+    
+    /**
+     * Applies an invalidation received from another instance to the near cache only.
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+    
+    private Object lookup(String key) {
+        Object value = local.getIfPresent(key);
+        if (value == null) {
+            value = remoteGet(key);
+            if (value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+    
+    private Object remoteGet(String key) {
+        if (remote == null || !manager.isRemoteAvailable()) {
+            return null;
+        }
+        try {
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                remoteHits.incrementAndGet();
+                return wrapper.get();
+            }
+            remoteMisses.incrementAndGet();
+        } catch (RuntimeException e) {
+            manager.remoteFailed(e);
+        }
+        return null;
+    }
+    
+    private void remotePut(String key, Object value) {
+        if (remote == null || !manager.isRemoteAvailable()) {
+            return;
+        }
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            manager.remoteFailed(e);
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        CacheStats local = this.local.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", this.local.estimatedSize());
+        stats.put("localHits", local.hitCount());
+        stats.put("localMisses", local.missCount());
+        stats.put("localHitRatio", local.hitRate());
+        stats.put("evictions", local.evictionCount());
+        stats.put("loads", local.loadCount());
+        stats.put("averageLoadMillis", local.averageLoadPenalty() / 1_000_000d);
+        stats.put("remote", remote != null);
+        if (remote != null) {
+            long hits = remoteHits.get();
+            long total = hits + remoteMisses.get();
+            stats.put("remoteHits", hits);
+            stats.put("remoteMisses", remoteMisses.get());
+            stats.put("remoteHitRatio", total > 0 ? (double) hits / total : 1.0);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,169 @@
+package com.angelone.trading.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Builds one {@link TwoTierCache} per configured cache. The Redis tier is
+ * optional per cache and globally; while Redis is unreachable the caches keep
+ * working from the near tier and retry Redis after {@code retryInterval}.
+ * Eviction messages from other instances arrive through {@link #onMessage}.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+    
+    public static final String INVALIDATION_CHANNEL = "trading:cache-invalidation";
+    
+    private static final char SEPARATOR = '\n';
+    
+    private final Map<String, TwoTierCache> caches = new LinkedHashMap<>();
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final long retryIntervalNanos;
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    private volatile long remoteRetryAt;
+    private final AtomicLong remoteErrors = new AtomicLong();
+    private final AtomicLong invalidationsSent = new AtomicLong();
+    private final AtomicLong invalidationsReceived = new AtomicLong();
+    
+    /**
+     * @param redisCacheManager source of the Redis tier, or null to run near-cache only
+     * @param redisTemplate     used to broadcast evictions, or null
+     */
+    TwoTierCacheManager(List<CacheSpec> specs, RedisCacheManager redisCacheManager,
+                        StringRedisTemplate redisTemplate, Duration retryInterval) {
+        this(specs, remoteCaches(redisCacheManager), publisher(redisTemplate), retryInterval);
+    }
+    
+    /**
+     * @param remoteCaches          source of the shared tier by cache name, or null to run near-cache only
+     * @param invalidationPublisher sends an invalidation message on a channel, or null
+     */
+    TwoTierCacheManager(List<CacheSpec> specs, Function<String, Cache> remoteCaches,
+                        BiConsumer<String, String> invalidationPublisher, Duration retryInterval) {
+        this.invalidationPublisher = invalidationPublisher;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        
+        for (CacheSpec spec : specs) {
+            Cache remote = remoteCaches != null && !spec.remoteTtl.isZero()
+                    ? remoteCaches.apply(spec.name)
+                    : null;
+            caches.put(spec.name, new TwoTierCache(spec.name, Caffeine.newBuilder()
+                    .maximumSize(spec.maxSize)
+                    .expireAfterWrite(spec.localTtl)
+                    .recordStats()
+                    .build(), remote, this));
+        }
+    }
+    
+    private static Function<String, Cache> remoteCaches(RedisCacheManager redisCacheManager) {
+        return redisCacheManager != null ? redisCacheManager::getCache : null;
+    }
+    
+    private static BiConsumer<String, String> publisher(StringRedisTemplate redisTemplate) {
+        return redisTemplate != null ? redisTemplate::convertAndSend : null;
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+    
+    boolean isRemoteAvailable() {
+        return System.nanoTime() - remoteRetryAt >= 0;
+    }
+    
+    void remoteFailed(RuntimeException e) {
+        remoteErrors.incrementAndGet();
+        if (isRemoteAvailable()) {
+            remoteRetryAt = System.nanoTime() + retryIntervalNanos;
+            log.warn("Redis cache tier unavailable, serving from near cache for {} ms: {}",
+                    TimeUnit.NANOSECONDS.toMillis(retryIntervalNanos), e.getMessage());
+        }
+    }
+    
+    void publishInvalidation(String cacheName, String key) {
+        if (invalidationPublisher == null || !isRemoteAvailable()) {
+            return;
+        }
+        try {
+            String message = instanceId + SEPARATOR + cacheName + (key != null ? SEPARATOR + key : "");
+            invalidationPublisher.accept(INVALIDATION_CHANNEL, message);
+            invalidationsSent.incrementAndGet();
+        } catch (RuntimeException e) {
+            remoteFailed(e);
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), 3);
+        if (parts.length < 2 || parts[0].equals(instanceId)) {
+            return;
+        }
+        
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+            invalidationsReceived.incrementAndGet();
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("remoteEnabled", invalidationPublisher != null);
+        stats.put("remoteAvailable", invalidationPublisher != null && isRemoteAvailable());
+        stats.put("remoteErrors", remoteErrors.get());
+        stats.put("invalidationsSent", invalidationsSent.get());
+        stats.put("invalidationsReceived", invalidationsReceived.get());
+        
+        Map<String, Object> perCache = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> perCache.put(name, cache.getStats()));
+        stats.put("caches", perCache);
+        return stats;
+    }
+    
+    /**
+     * Sizing and lifetimes of one cache; a zero {@code remoteTtl} keeps it in-process only.
+     */
+    static final class CacheSpec {
+        private final String name;
+        private final long maxSize;
+        private final Duration localTtl;
+        private final Duration remoteTtl;
+        
+        CacheSpec(String name, long maxSize, Duration localTtl, Duration remoteTtl) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.localTtl = localTtl;
+            this.remoteTtl = remoteTtl;
+        }
+        
+        String getName() {
+            return name;
+        }
+        
+        Duration getRemoteTtl() {
+            return remoteTtl;
+        }
+    }
+}
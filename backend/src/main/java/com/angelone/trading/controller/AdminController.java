@@ -0,0 +1,178 @@
+package com.angelone.trading.controller;
+
+import com.angelone.trading.config.TwoTierCacheManager;
+import com.angelone.trading.jfr.FlightRecorderService;
+import com.angelone.trading.jfr.PinnedThreadMonitor;
+import com.angelone.trading.security.PrincipalCache;
+import com.angelone.trading.service.AngelOneWebSocketService;
+import com.angelone.trading.service.FeedRecorder;
+import com.angelone.trading.service.FeedReplayer;
+import com.angelone.trading.service.MarketDataPartitionManager;
+import com.angelone.trading.service.MarketSimulator;
+import com.angelone.trading.service.NotificationService;
+import com.angelone.trading.service.OrderSubmissionScheduler;
+import com.angelone.trading.service.StartupWarmup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdminController {
+    
+    private final OrderSubmissionScheduler orderSubmissionScheduler;
+    private final AngelOneWebSocketService angelOneWebSocketService;
+    private final FeedRecorder feedRecorder;
+    private final FeedReplayer feedReplayer;
+    private final MarketSimulator marketSimulator;
+    private final NotificationService notificationService;
+    private final PrincipalCache principalCache;
+    private final TwoTierCacheManager cacheManager;
+    private final FlightRecorderService flightRecorderService;
+    private final PinnedThreadMonitor pinnedThreadMonitor;
+    private final StartupWarmup startupWarmup;
+    private final MarketDataPartitionManager marketDataPartitionManager;
+    
+    @GetMapping("/order-queue")
+    public ResponseEntity<Map<String, Object>> getOrderQueueStats() {
+        return ResponseEntity.ok(orderSubmissionScheduler.getStats());
+    }
+    
+    @GetMapping("/notifications")
+    public ResponseEntity<Map<String, Object>> getNotificationStats() {
+        return ResponseEntity.ok(notificationService.getStats());
+    }
+    
+    @GetMapping("/principal-cache")
+    public ResponseEntity<Map<String, Object>> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalCache.getStats());
+    }
+    
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(cacheManager.getStats());
+    }
+    
+    @GetMapping("/jfr")
+    public ResponseEntity<Map<String, Object>> getFlightRecordingStats() {
+        return ResponseEntity.ok(flightRecorderService.getStats());
+    }
+    
+    /**
+     * Dumps the continuous flight recording (bounded by its max age and size) to a file on the server.
+     */
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<Map<String, Object>> dumpFlightRecording() {
+        try {
+            Path file = flightRecorderService.dump();
+            return ResponseEntity.ok(Map.of("file", file.toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(flightRecorderService.getStats());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    @GetMapping("/market-data/partitions")
+    public ResponseEntity<Map<String, Object>> getMarketDataPartitionStats() {
+        return ResponseEntity.ok(marketDataPartitionManager.getStats());
+    }
+    
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> getStartupStats() {
+        return ResponseEntity.ok(startupWarmup.getStats());
+    }
+    
+    @GetMapping("/virtual-threads")
+    public ResponseEntity<Map<String, Object>> getVirtualThreadStats() {
+        return ResponseEntity.ok(pinnedThreadMonitor.getStats());
+    }
+    
+    @GetMapping("/feed")
+    public ResponseEntity<Map<String, Object>> getFeedStats() {
+        return ResponseEntity.ok(angelOneWebSocketService.getFeedStats());
+    }
+    
+    @GetMapping("/feed/recordings")
+    public ResponseEntity<List<String>> getRecordings() {
+        return ResponseEntity.ok(feedRecorder.listRecordings());
+    }
+    
+    @GetMapping("/feed/recording")
+    public ResponseEntity<Map<String, Object>> getRecordingStats() {
+        return ResponseEntity.ok(feedRecorder.getStats());
+    }
+    
+    @PostMapping("/feed/recording/start")
+    public ResponseEntity<Map<String, Object>> startRecording() {
+        feedRecorder.start();
+        return ResponseEntity.ok(feedRecorder.getStats());
+    }
+    
+    @PostMapping("/feed/recording/stop")
+    public ResponseEntity<Map<String, Object>> stopRecording() {
+        feedRecorder.stop();
+        return ResponseEntity.ok(feedRecorder.getStats());
+    }
+    
+    @GetMapping("/feed/replay")
+    public ResponseEntity<Map<String, Object>> getReplayStats() {
+        return ResponseEntity.ok(feedReplayer.getStats());
+    }
+    
+    /**
+     * Replays a recording; {@code speed} 1 is recorded pace, 0 is as fast as possible.
+     */
+    @PostMapping("/feed/replay")
+    public ResponseEntity<Map<String, Object>> startReplay(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "1") double speed) {
+        
+        try {
+            feedReplayer.start(file, speed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(feedReplayer.getStats());
+        }
+        return ResponseEntity.ok(feedReplayer.getStats());
+    }
+    
+    @PostMapping("/feed/replay/stop")
+    public ResponseEntity<Map<String, Object>> stopReplay() {
+        feedReplayer.stop();
+        return ResponseEntity.ok(feedReplayer.getStats());
+    }
+    
+    @GetMapping("/simulator")
+    public ResponseEntity<Map<String, Object>> getSimulatorStats() {
+        return ResponseEntity.ok(marketSimulator.getStats());
+    }
+    
+    @PostMapping("/simulator/start")
+    public ResponseEntity<Map<String, Object>> startSimulator(
+            @RequestParam(defaultValue = "1000") double ticksPerSecond,
+            @RequestParam(defaultValue = "0") int syntheticInstruments) {
+        
+        if (ticksPerSecond <= 0 || ticksPerSecond > 100_000 || syntheticInstruments < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        marketSimulator.start(ticksPerSecond, syntheticInstruments);
+        return ResponseEntity.ok(marketSimulator.getStats());
+    }
+    
+    @PostMapping("/simulator/stop")
+    public ResponseEntity<Map<String, Object>> stopSimulator() {
+        marketSimulator.stop();
+        return ResponseEntity.ok(marketSimulator.getStats());
+    }
+}
@@ -0,0 +1,23 @@
+package com.angelone.trading.controller;
+
+import com.angelone.trading.dto.AnalyticsSummary;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+    
+    private final AnalyticsService analyticsService;
+    
+    @GetMapping("/summary")
+    public ResponseEntity<AnalyticsSummary> getSummary(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(analyticsService.getSummary(user.getId()));
+    }
+}
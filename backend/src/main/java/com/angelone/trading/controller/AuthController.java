@@ -7,6 +7,7 @@ import com.angelone.trading.entity.User;
 import com.angelone.trading.repository.UserRepository;
 import com.angelone.trading.security.JwtTokenHelper;
 import com.angelone.trading.service.AngelOneApiService;
+import com.angelone.trading.service.MarketDataService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -48,7 +49,8 @@ public class AuthController {
         
         // Initialize WebSocket connection for real-time data
         if (user.getAngelOneToken() != null) {
-            marketDataService.initializeAngelOneWebSocket(user.getAngelOneToken(), user.getAngelOneClientId());
+            marketDataService.initializeAngelOneWebSocket(user.getAngelOneToken(),
+                    user.getAngelOneFeedToken(), user.getAngelOneClientId());
         }
         
         LoginResponse response = new LoginResponse();
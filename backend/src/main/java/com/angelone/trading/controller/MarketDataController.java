@@ -2,6 +2,8 @@ package com.angelone.trading.controller;
 
 import com.angelone.trading.entity.MarketData;
 import com.angelone.trading.service.MarketDataService;
+import com.angelone.trading.service.QuoteSnapshot;
+import com.angelone.trading.service.QuoteSnapshotStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +17,7 @@ import java.util.List;
 public class MarketDataController {
     
     private final MarketDataService marketDataService;
+    private final QuoteSnapshotStore quoteSnapshotStore;
     
     @GetMapping("/historical/{symbol}")
     public ResponseEntity<List<MarketData>> getHistoricalData(
@@ -26,15 +29,26 @@ public class MarketDataController {
         return ResponseEntity.ok(data);
     }
     
+    /**
+     * Latest quotes from memory, for the given symbols or all known instruments.
+     */
+    @GetMapping("/latest")
+    public ResponseEntity<List<QuoteSnapshot>> getLatestQuotes(@RequestParam(required = false) List<String> symbols) {
+        List<QuoteSnapshot> quotes = symbols != null ? quoteSnapshotStore.getAll(symbols) : quoteSnapshotStore.getAll();
+        return ResponseEntity.ok(quotes);
+    }
+    
     @GetMapping("/latest/{symbol}")
     public ResponseEntity<MarketData> getLatestData(@PathVariable String symbol) {
-        MarketData data = marketDataService.getLatestData(symbol);
+        QuoteSnapshot quote = quoteSnapshotStore.get(symbol);
+        // Before the first tick after a restart, fall back to the last stored bar
+        MarketData data = quote != null ? quote.toMarketData() : marketDataService.getLatestData(symbol);
         return data != null ? ResponseEntity.ok(data) : ResponseEntity.notFound().build();
     }
     
     @GetMapping("/public/symbols")
     public ResponseEntity<List<String>> getAvailableSymbols() {
-        List<String> symbols = List.of("NIFTY", "BANKNIFTY", "SENSEX", "RELIANCE", "TCS", "INFY");
+        List<String> symbols = marketDataService.getAvailableSymbols();
         return ResponseEntity.ok(symbols);
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/notifications")
@@ -19,17 +20,30 @@ public class NotificationController {
     private final NotificationService notificationService;
     
     @GetMapping
-    public ResponseEntity<List<Notification>> getUserNotifications(@AuthenticationPrincipal User user) {
-        List<Notification> notifications = notificationService.getUserNotifications(user);
+    public ResponseEntity<List<Notification>> getUserNotifications(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        
+        List<Notification> notifications = notificationService.getUserNotifications(user, before, limit);
         return ResponseEntity.ok(notifications);
     }
     
     @GetMapping("/unread")
-    public ResponseEntity<List<Notification>> getUnreadNotifications(@AuthenticationPrincipal User user) {
-        List<Notification> notifications = notificationService.getUnreadNotifications(user);
+    public ResponseEntity<List<Notification>> getUnreadNotifications(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        
+        List<Notification> notifications = notificationService.getUnreadNotifications(user, before, limit);
         return ResponseEntity.ok(notifications);
     }
     
+    @GetMapping("/unread/count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(Map.of("count", notificationService.getUnreadCount(user)));
+    }
+    
     @PostMapping("/{notificationId}/read")
     public ResponseEntity<Void> markAsRead(
             @PathVariable Long notificationId,
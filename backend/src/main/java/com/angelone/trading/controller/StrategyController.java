@@ -1,10 +1,15 @@
 package com.angelone.trading.controller;
 
 import com.angelone.trading.dto.StrategyRequest;
+import com.angelone.trading.dto.StrategyResponse;
 import com.angelone.trading.entity.Strategy;
 import com.angelone.trading.entity.User;
 import com.angelone.trading.repository.StrategyRepository;
+import com.angelone.trading.service.AnalyticsService;
+import com.angelone.trading.service.CacheInvalidationService;
+import com.angelone.trading.service.StrategyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -19,17 +24,27 @@ import java.util.List;
 public class StrategyController {
     
     private final StrategyRepository strategyRepository;
+    private final StrategyService strategyService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final AnalyticsService analyticsService;
     
     @PostMapping
-    public ResponseEntity<Strategy> createStrategy(
+    public ResponseEntity<StrategyResponse> createStrategy(
             @Valid @RequestBody StrategyRequest strategyRequest,
             @AuthenticationPrincipal User user) {
         
+        try {
+            strategyService.validateUniverse(strategyRequest.getSymbols());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
         Strategy strategy = new Strategy();
         strategy.setUser(user);
         strategy.setName(strategyRequest.getName());
         strategy.setType(strategyRequest.getType());
         strategy.setTimeFrame(strategyRequest.getTimeFrame());
+        strategy.setSymbols(strategyRequest.getSymbols());
         strategy.setEmaFast(strategyRequest.getEmaFast());
         strategy.setEmaSlow(strategyRequest.getEmaSlow());
         strategy.setRsiPeriod(strategyRequest.getRsiPeriod());
@@ -38,17 +53,18 @@ public class StrategyController {
         strategy.setMaxCapitalPercentage(strategyRequest.getMaxCapitalPercentage());
         
         Strategy savedStrategy = strategyRepository.save(strategy);
-        return ResponseEntity.ok(savedStrategy);
+        cacheInvalidationService.strategiesChanged(user.getId());
+        return ResponseEntity.ok(StrategyResponse.from(savedStrategy));
     }
     
     @GetMapping
-    public ResponseEntity<List<Strategy>> getUserStrategies(@AuthenticationPrincipal User user) {
-        List<Strategy> strategies = strategyRepository.findByUserOrderByCreatedAtDesc(user);
+    public ResponseEntity<List<StrategyResponse>> getUserStrategies(@AuthenticationPrincipal User user) {
+        List<StrategyResponse> strategies = strategyService.getUserStrategies(user);
         return ResponseEntity.ok(strategies);
     }
     
     @PutMapping("/{strategyId}")
-    public ResponseEntity<Strategy> updateStrategy(
+    public ResponseEntity<StrategyResponse> updateStrategy(
             @PathVariable Long strategyId,
             @Valid @RequestBody StrategyRequest strategyRequest,
             @AuthenticationPrincipal User user) {
@@ -57,12 +73,19 @@ public class StrategyController {
                 .orElseThrow(() -> new RuntimeException("Strategy not found"));
         
         if (!strategy.getUser().getId().equals(user.getId())) {
-            return ResponseEntity.forbidden().build();
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        try {
+            strategyService.validateUniverse(strategyRequest.getSymbols());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
         
         strategy.setName(strategyRequest.getName());
         strategy.setType(strategyRequest.getType());
         strategy.setTimeFrame(strategyRequest.getTimeFrame());
+        strategy.setSymbols(strategyRequest.getSymbols());
         strategy.setEmaFast(strategyRequest.getEmaFast());
         strategy.setEmaSlow(strategyRequest.getEmaSlow());
         strategy.setRsiPeriod(strategyRequest.getRsiPeriod());
@@ -71,11 +94,12 @@ public class StrategyController {
         strategy.setMaxCapitalPercentage(strategyRequest.getMaxCapitalPercentage());
         
         Strategy updatedStrategy = strategyRepository.save(strategy);
-        return ResponseEntity.ok(updatedStrategy);
+        cacheInvalidationService.strategiesChanged(user.getId());
+        return ResponseEntity.ok(StrategyResponse.from(updatedStrategy));
     }
     
     @PostMapping("/{strategyId}/toggle")
-    public ResponseEntity<Strategy> toggleStrategy(
+    public ResponseEntity<StrategyResponse> toggleStrategy(
             @PathVariable Long strategyId,
             @AuthenticationPrincipal User user) {
         
@@ -83,12 +107,13 @@ public class StrategyController {
                 .orElseThrow(() -> new RuntimeException("Strategy not found"));
         
         if (!strategy.getUser().getId().equals(user.getId())) {
-            return ResponseEntity.forbidden().build();
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
         strategy.setIsActive(!strategy.getIsActive());
         Strategy updatedStrategy = strategyRepository.save(strategy);
-        return ResponseEntity.ok(updatedStrategy);
+        cacheInvalidationService.strategiesChanged(user.getId());
+        return ResponseEntity.ok(StrategyResponse.from(updatedStrategy));
     }
     
     @DeleteMapping("/{strategyId}")
@@ -100,10 +125,12 @@ public class StrategyController {
                 .orElseThrow(() -> new RuntimeException("Strategy not found"));
         
         if (!strategy.getUser().getId().equals(user.getId())) {
-            return ResponseEntity.forbidden().build();
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
         strategyRepository.delete(strategy);
+        analyticsService.strategyDeleted(user.getId(), strategyId);
+        cacheInvalidationService.strategiesChanged(user.getId());
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.angelone.trading.controller;
 
 import com.angelone.trading.dto.TradeRequest;
+import com.angelone.trading.dto.TradeResponse;
 import com.angelone.trading.entity.Trade;
 import com.angelone.trading.entity.User;
 import com.angelone.trading.service.TradeService;
@@ -21,7 +22,7 @@ public class TradeController {
     private final TradeService tradeService;
     
     @PostMapping
-    public ResponseEntity<Trade> executeTrade(
+    public ResponseEntity<TradeResponse> executeTrade(
             @Valid @RequestBody TradeRequest tradeRequest,
             @AuthenticationPrincipal User user) {
         
@@ -33,29 +34,39 @@ public class TradeController {
         trade.setPrice(tradeRequest.getPrice());
         trade.setStopLoss(tradeRequest.getStopLoss());
         trade.setTakeProfit(tradeRequest.getTakeProfit());
+        trade.setTrailingStop(tradeRequest.getTrailingStop());
+        trade.setClientOrderId(tradeRequest.getClientOrderId());
         
         Trade executedTrade = tradeService.executeTrade(trade);
-        return ResponseEntity.ok(executedTrade);
+        return ResponseEntity.ok(TradeResponse.from(executedTrade));
     }
     
+    /**
+     * Newest trades first. For the next page pass the last trade's id as
+     * {@code before}; an empty page means there are no older trades. The limit
+     * is capped at {@code trading.trades.max-page-size}.
+     */
     @GetMapping
-    public ResponseEntity<List<Trade>> getUserTrades(@AuthenticationPrincipal User user) {
-        List<Trade> trades = tradeService.getUserTrades(user);
+    public ResponseEntity<List<TradeResponse>> getUserTrades(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "${trading.trades.page-size:200}") int limit,
+            @AuthenticationPrincipal User user) {
+        List<TradeResponse> trades = tradeService.getUserTrades(user, before, limit);
         return ResponseEntity.ok(trades);
     }
     
     @GetMapping("/open")
-    public ResponseEntity<List<Trade>> getOpenTrades(@AuthenticationPrincipal User user) {
-        List<Trade> trades = tradeService.getUserOpenTrades(user);
+    public ResponseEntity<List<TradeResponse>> getOpenTrades(@AuthenticationPrincipal User user) {
+        List<TradeResponse> trades = tradeService.getUserOpenTrades(user);
         return ResponseEntity.ok(trades);
     }
     
     @PostMapping("/{tradeId}/close")
-    public ResponseEntity<Trade> closeTrade(
+    public ResponseEntity<TradeResponse> closeTrade(
             @PathVariable Long tradeId,
             @AuthenticationPrincipal User user) {
         
         Trade closedTrade = tradeService.closeTrade(tradeId, user);
-        return ResponseEntity.ok(closedTrade);
+        return ResponseEntity.ok(TradeResponse.from(closedTrade));
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.angelone.trading.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Portfolio statistics for one user, read from the analytics rollups. Its size
+ * depends on the user's strategies, open symbols and the daily window, never
+ * on how many trades the user has.
+ */
+@Data
+public class AnalyticsSummary {
+    private Totals totals = new Totals();
+    private List<StrategyTotals> strategies = new ArrayList<>();
+    private List<Exposure> exposure = new ArrayList<>();
+    private List<DailyPnl> dailyPnl = new ArrayList<>();
+    
+    @Data
+    public static class Totals {
+        private Integer tradeCount = 0;
+        private Integer winningTrades = 0;
+        private BigDecimal winRate = BigDecimal.ZERO;
+        private BigDecimal realizedPnl = BigDecimal.ZERO;
+        private BigDecimal maxDrawdown = BigDecimal.ZERO;
+    }
+    
+    @Data
+    public static class StrategyTotals {
+        private Long strategyId;
+        private Totals totals = new Totals();
+    }
+    
+    @Data
+    public static class Exposure {
+        private String symbol;
+        private Integer openTrades;
+        private Integer netQuantity;
+        private BigDecimal openNotional;
+    }
+    
+    @Data
+    public static class DailyPnl {
+        private LocalDate day;
+        private Integer tradeCount;
+        private BigDecimal realizedPnl;
+    }
+}
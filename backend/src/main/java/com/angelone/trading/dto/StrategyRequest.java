@@ -5,6 +5,7 @@ import lombok.Data;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 
@@ -19,6 +20,11 @@ public class StrategyRequest {
     @NotBlank
     private String timeFrame;
     
+    // Comma-separated symbols and index:<name> universes
+    @NotBlank
+    @Size(max = 2000)
+    private String symbols = "NIFTY";
+    
     private Integer emaFast = 20;
     private Integer emaSlow = 50;
     private Integer rsiPeriod = 14;
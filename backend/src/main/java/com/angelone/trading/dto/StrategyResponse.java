@@ -0,0 +1,90 @@
+package com.angelone.trading.dto;
+
+import com.angelone.trading.entity.Strategy;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Strategy as returned by the API: the entity's own columns without the lazy
+ * user and trade associations, so it can be cached and serialized anywhere.
+ * Listings build it directly in JPQL (see {@code StrategyRepository}).
+ */
+@Data
+@NoArgsConstructor
+public class StrategyResponse {
+    private Long id;
+    private String name;
+    private Strategy.StrategyType type;
+    private Boolean isActive;
+    private String timeFrame;
+    private String symbols;
+    private Integer emaFast;
+    private Integer emaSlow;
+    private Integer rsiPeriod;
+    private Integer rsiOversold;
+    private Integer rsiOverbought;
+    private BigDecimal stopLossPercentage;
+    private BigDecimal takeProfitPercentage;
+    private BigDecimal maxCapitalPercentage;
+    private Integer totalTrades;
+    private Integer winningTrades;
+    private BigDecimal averagePnL;
+    private BigDecimal winRate;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public StrategyResponse(Long id, String name, Strategy.StrategyType type, Boolean isActive, String timeFrame,
+                            String symbols, Integer emaFast, Integer emaSlow, Integer rsiPeriod, Integer rsiOversold,
+                            Integer rsiOverbought, BigDecimal stopLossPercentage, BigDecimal takeProfitPercentage,
+                            BigDecimal maxCapitalPercentage, Integer totalTrades, Integer winningTrades,
+                            BigDecimal averagePnL, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.isActive = isActive;
+        this.timeFrame = timeFrame;
+        this.symbols = symbols;
+        this.emaFast = emaFast;
+        this.emaSlow = emaSlow;
+        this.rsiPeriod = rsiPeriod;
+        this.rsiOversold = rsiOversold;
+        this.rsiOverbought = rsiOverbought;
+        this.stopLossPercentage = stopLossPercentage;
+        this.takeProfitPercentage = takeProfitPercentage;
+        this.maxCapitalPercentage = maxCapitalPercentage;
+        this.totalTrades = totalTrades;
+        this.winningTrades = winningTrades;
+        this.averagePnL = averagePnL;
+        this.winRate = Strategy.winRate(totalTrades, winningTrades);
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+    
+    public static StrategyResponse from(Strategy strategy) {
+        StrategyResponse response = new StrategyResponse();
+        response.setId(strategy.getId());
+        response.setName(strategy.getName());
+        response.setType(strategy.getType());
+        response.setIsActive(strategy.getIsActive());
+        response.setTimeFrame(strategy.getTimeFrame());
+        response.setSymbols(strategy.getSymbols());
+        response.setEmaFast(strategy.getEmaFast());
+        response.setEmaSlow(strategy.getEmaSlow());
+        response.setRsiPeriod(strategy.getRsiPeriod());
+        response.setRsiOversold(strategy.getRsiOversold());
+        response.setRsiOverbought(strategy.getRsiOverbought());
+        response.setStopLossPercentage(strategy.getStopLossPercentage());
+        response.setTakeProfitPercentage(strategy.getTakeProfitPercentage());
+        response.setMaxCapitalPercentage(strategy.getMaxCapitalPercentage());
+        response.setTotalTrades(strategy.getTotalTrades());
+        response.setWinningTrades(strategy.getWinningTrades());
+        response.setAveragePnL(strategy.getAveragePnL());
+        response.setWinRate(strategy.getWinRate());
+        response.setCreatedAt(strategy.getCreatedAt());
+        response.setUpdatedAt(strategy.getUpdatedAt());
+        return response;
+    }
+}
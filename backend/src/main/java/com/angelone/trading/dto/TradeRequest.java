@@ -5,6 +5,7 @@ import lombok.Data;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 
@@ -26,4 +27,11 @@ public class TradeRequest {
     
     private BigDecimal stopLoss;
     private BigDecimal takeProfit;
+    
+    @Positive
+    private BigDecimal trailingStop;
+    
+    // Client-generated idempotency key, also sent to the broker as the order tag
+    @Size(max = 20)
+    private String clientOrderId;
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.angelone.trading.dto;
+
+import com.angelone.trading.entity.Strategy;
+import com.angelone.trading.entity.Trade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Trade as returned by the API and pushed to {@code /queue/trades}: the
+ * trade's own columns plus its strategy's id and name, never the user.
+ * Listings build it directly in JPQL (see {@code TradeRepository}), so the
+ * all-arguments constructor's parameter order is the projection's select order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeResponse {
+    private Long id;
+    private String symbol;
+    private Trade.TradeType type;
+    private Integer quantity;
+    private BigDecimal price;
+    private BigDecimal currentPrice;
+    private Trade.TradeStatus status;
+    private BigDecimal pnl;
+    private BigDecimal stopLoss;
+    private BigDecimal takeProfit;
+    private BigDecimal trailingStop;
+    private String angelOneOrderId;
+    private String clientOrderId;
+    private Long strategyId;
+    private String strategyName;
+    private LocalDateTime executedAt;
+    private LocalDateTime closedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static TradeResponse from(Trade trade) {
+        TradeResponse response = new TradeResponse();
+        response.setId(trade.getId());
+        response.setSymbol(trade.getSymbol());
+        response.setType(trade.getType());
+        response.setQuantity(trade.getQuantity());
+        response.setPrice(trade.getPrice());
+        response.setCurrentPrice(trade.getCurrentPrice());
+        response.setStatus(trade.getStatus());
+        response.setPnl(trade.getPnl());
+        response.setStopLoss(trade.getStopLoss());
+        response.setTakeProfit(trade.getTakeProfit());
+        response.setTrailingStop(trade.getTrailingStop());
+        response.setAngelOneOrderId(trade.getAngelOneOrderId());
+        response.setClientOrderId(trade.getClientOrderId());
+        
+        // A lazy proxy knows its id; the name is only read if it is already loaded
+        Strategy strategy = trade.getStrategy();
+        if (strategy != null) {
+            response.setStrategyId(strategy.getId());
+            if (Hibernate.isInitialized(strategy)) {
+                response.setStrategyName(strategy.getName());
+            }
+        }
+        
+        response.setExecutedAt(trade.getExecutedAt());
+        response.setClosedAt(trade.getClosedAt());
+        response.setCreatedAt(trade.getCreatedAt());
+        response.setUpdatedAt(trade.getUpdatedAt());
+        return response;
+    }
+}
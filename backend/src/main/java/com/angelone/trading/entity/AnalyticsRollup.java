@@ -0,0 +1,71 @@
+package com.angelone.trading.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a user's closed trades, or of one strategy's, updated as
+ * each trade closes. The scope is {@code user:<id>} or {@code strategy:<id>}.
+ */
+@Entity
+@Table(name = "analytics_rollups", indexes = {
+        @Index(name = "idx_analytics_rollups_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+public class AnalyticsRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true, length = 32)
+    private String scope;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "strategy_id")
+    private Long strategyId;
+    
+    @Column(name = "trade_count", nullable = false)
+    private Integer tradeCount = 0;
+    
+    @Column(name = "winning_trades", nullable = false)
+    private Integer winningTrades = 0;
+    
+    @Column(name = "realized_pnl", nullable = false, precision = 15, scale = 2)
+    private BigDecimal realizedPnl = BigDecimal.ZERO;
+    
+    // Highest cumulative realized P&L so far; drawdowns are measured from it
+    @Column(name = "peak_pnl", nullable = false, precision = 15, scale = 2)
+    private BigDecimal peakPnl = BigDecimal.ZERO;
+    
+    @Column(name = "max_drawdown", nullable = false, precision = 15, scale = 2)
+    private BigDecimal maxDrawdown = BigDecimal.ZERO;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    public static String userScope(Long userId) {
+        return "user:" + userId;
+    }
+    
+    public static String strategyScope(Long strategyId) {
+        return "strategy:" + strategyId;
+    }
+    
+    public void addClosedTrade(BigDecimal pnl) {
+        tradeCount++;
+        if (pnl.signum() > 0) {
+            winningTrades++;
+        }
+        realizedPnl = realizedPnl.add(pnl);
+        peakPnl = peakPnl.max(realizedPnl);
+        maxDrawdown = maxDrawdown.max(peakPnl.subtract(realizedPnl));
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,41 @@
+package com.angelone.trading.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A user's realized P&L for one day, by the day the trades closed.
+ */
+@Entity
+@Table(name = "analytics_daily_pnl", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_analytics_daily_pnl_user_day", columnNames = {"user_id", "trade_date"})
+})
+@Data
+@NoArgsConstructor
+public class DailyPnl {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    // Not "day", a reserved word in some databases
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate day;
+    
+    @Column(name = "trade_count", nullable = false)
+    private Integer tradeCount = 0;
+    
+    @Column(name = "realized_pnl", nullable = false, precision = 15, scale = 2)
+    private BigDecimal realizedPnl = BigDecimal.ZERO;
+    
+    public DailyPnl(Long userId, LocalDate day) {
+        this.userId = userId;
+        this.day = day;
+    }
+}
@@ -8,7 +8,10 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_notifications_user_read_id", columnList = "user_id, is_read, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
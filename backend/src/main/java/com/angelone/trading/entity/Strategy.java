@@ -36,6 +36,10 @@ public class Strategy {
     @Column(name = "time_frame")
     private String timeFrame = "15m";
     
+    // Symbols and index:<name> universes the strategy scans, comma-separated (see SymbolUniverseService)
+    @Column(length = 2000)
+    private String symbols = "NIFTY";
+    
     // EMA Parameters
     @Column(name = "ema_fast")
     private Integer emaFast = 20;
@@ -87,7 +91,11 @@ public class Strategy {
     }
     
     public BigDecimal getWinRate() {
-        if (totalTrades == 0) return BigDecimal.ZERO;
+        return winRate(totalTrades, winningTrades);
+    }
+    
+    public static BigDecimal winRate(Integer totalTrades, Integer winningTrades) {
+        if (totalTrades == null || totalTrades == 0) return BigDecimal.ZERO;
         return BigDecimal.valueOf(winningTrades)
                 .divide(BigDecimal.valueOf(totalTrades), 2, BigDecimal.ROUND_HALF_UP)
                 .multiply(BigDecimal.valueOf(100));
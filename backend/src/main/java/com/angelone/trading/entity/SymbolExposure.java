@@ -0,0 +1,43 @@
+package com.angelone.trading.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A user's open positions in one symbol: buys count as positive quantity,
+ * sells as negative, and the notional is the entry value of all of them.
+ */
+@Entity
+@Table(name = "analytics_exposure", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_analytics_exposure_user_symbol", columnNames = {"user_id", "symbol"})
+})
+@Data
+@NoArgsConstructor
+public class SymbolExposure {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String symbol;
+    
+    @Column(name = "open_trades", nullable = false)
+    private Integer openTrades = 0;
+    
+    @Column(name = "net_quantity", nullable = false)
+    private Integer netQuantity = 0;
+    
+    @Column(name = "open_notional", nullable = false, precision = 17, scale = 2)
+    private BigDecimal openNotional = BigDecimal.ZERO;
+    
+    public SymbolExposure(Long userId, String symbol) {
+        this.userId = userId;
+        this.symbol = symbol;
+    }
+}
@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "trades")
+@Table(name = "trades", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_trades_user_client_order_id", columnNames = {"user_id", "client_order_id"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,9 +53,17 @@ public class Trade {
     @Column(name = "take_profit", precision = 10, scale = 2)
     private BigDecimal takeProfit;
     
+    // Trailing distance in price units; the stop ratchets behind the best price seen
+    @Column(name = "trailing_stop", precision = 10, scale = 2)
+    private BigDecimal trailingStop;
+    
     @Column(name = "angel_one_order_id")
     private String angelOneOrderId;
     
+    // Unique per user, see OrderIdempotencyService
+    @Column(name = "client_order_id", length = 20)
+    private String clientOrderId;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "strategy_id")
     private Strategy strategy;
@@ -1,5 +1,6 @@
 package com.angelone.trading.entity;
 
+import com.angelone.trading.security.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +17,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,6 +60,12 @@ public class User implements UserDetails {
     @Column(name = "angel_one_refresh_token")
     private String angelOneRefreshToken;
     
+    @Column(name = "angel_one_feed_token")
+    private String angelOneFeedToken;
+    
+    @Column(name = "angel_one_token_expires_at")
+    private LocalDateTime angelOneTokenExpiresAt;
+    
     @Column(name = "is_active")
     private Boolean isActive = true;
     
@@ -0,0 +1,30 @@
+package com.angelone.trading.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One HTTP exchange with the broker's REST API. The endpoint is the request
+ * path only; query strings and headers carry credentials and are not recorded.
+ */
+@Name(BrokerHttpEvent.NAME)
+@Label("Broker HTTP Call")
+@Category({"Trading", "Broker"})
+@Description("HTTP request to the Angel One API")
+@StackTrace(false)
+public class BrokerHttpEvent extends Event {
+    
+    public static final String NAME = "com.angelone.trading.BrokerHttp";
+    
+    @Label("Method")
+    public String method;
+    
+    @Label("Endpoint")
+    public String endpoint;
+    
+    @Label("Status")
+    @Description("HTTP status, or -1 when the exchange failed")
+    public int status;
+    
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,38 @@
+package com.angelone.trading.jfr;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Emits a {@link BrokerHttpEvent} around every request of the RestTemplate it is added to.
+ */
+public class BrokerHttpEventInterceptor implements ClientHttpRequestInterceptor {
+    
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        BrokerHttpEvent event = new BrokerHttpEvent();
+        if (!event.isEnabled()) {
+            return execution.execute(request, body);
+        }
+        
+        event.begin();
+        event.method = request.getMethod().name();
+        event.endpoint = request.getURI().getPath();
+        event.status = -1;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            event.status = response.getStatusCode().value();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            event.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.angelone.trading.jfr;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a continuous Flight Recorder recording running with the JDK's low
+ * overhead "default" settings plus the trading events, so GC, I/O and lock
+ * events can be read next to ticks, strategy runs, orders and broker calls in
+ * JMC. The recording is a bounded ring on disk (max age and size); a dump
+ * writes its current contents to a file.
+ */
+@Service
+@Slf4j
+public class FlightRecorderService {
+    
+    private static final String RECORDING_NAME = "trading-continuous";
+    private static final String FILE_SUFFIX = ".jfr";
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    @Value("${trading.jfr.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${trading.jfr.settings:default}")
+    private String settings;
+    
+    @Value("${trading.jfr.max-age:1800000}")
+    private long maxAgeMillis;
+    
+    @Value("${trading.jfr.max-size:268435456}")
+    private long maxSizeBytes;
+    
+    @Value("${trading.jfr.tick-threshold-micros:200}")
+    private long tickThresholdMicros;
+    
+    @Value("${trading.jfr.dump-directory:recordings/jfr}")
+    private String dumpDirectory;
+    
+    @Value("${trading.jfr.max-dumps:10}")
+    private int maxDumps;
+    
+    private Recording recording;
+    private volatile Path lastDump;
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Flight Recorder is not available in this JVM, trading events will not be recorded");
+            return;
+        }
+        
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMillis(maxAgeMillis));
+            recording.setMaxSize(maxSizeBytes);
+            
+            recording.enable(TickDecodedEvent.NAME).withThreshold(Duration.ofNanos(tickThresholdMicros * 1000));
+            recording.enable(StrategyEvaluatedEvent.NAME);
+            recording.enable(OrderSubmittedEvent.NAME);
+            recording.enable(OrderAckedEvent.NAME);
+            recording.enable(BrokerHttpEvent.NAME);
+            // Virtual threads blocking while pinned to their carrier (JDK 21+)
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            recording.start();
+            
+            log.info("Started continuous flight recording ({} settings, max age {} ms, max size {} bytes)",
+                    settings, maxAgeMillis, maxSizeBytes);
+        } catch (Exception e) {
+            log.error("Could not start continuous flight recording", e);
+            recording = null;
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+    
+    public boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+    
+    /**
+     * Writes what the continuous recording currently holds, at most its max age
+     * and size, to a new file in the dump directory. Older dumps beyond
+     * {@code max-dumps} are deleted.
+     */
+    public Path dump() throws IOException {
+        if (!isRecording()) {
+            throw new IllegalStateException("No flight recording is running");
+        }
+        
+        synchronized (this) {
+            Path dir = Paths.get(dumpDirectory);
+            Files.createDirectories(dir);
+            Path file = dir.resolve("trading-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + FILE_SUFFIX);
+            recording.dump(file);
+            lastDump = file;
+            log.info("Dumped flight recording to {} ({} bytes)", file, Files.size(file));
+            
+            pruneDumps(dir);
+            return file;
+        }
+    }
+    
+    private void pruneDumps(Path dir) throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dir)) {
+            dumps = files.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .collect(Collectors.toList());
+        }
+        for (Path old : dumps.subList(Math.min(maxDumps, dumps.size()), dumps.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recording", isRecording());
+        stats.put("settings", settings);
+        stats.put("maxAgeMillis", maxAgeMillis);
+        stats.put("maxSizeBytes", maxSizeBytes);
+        stats.put("tickThresholdMicros", tickThresholdMicros);
+        if (recording != null) {
+            stats.put("bytesOnDisk", recording.getSize());
+        }
+        stats.put("lastDump", lastDump != null ? lastDump.toString() : null);
+        return stats;
+    }
+}
@@ -0,0 +1,32 @@
+package com.angelone.trading.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Wait for the broker's answer to an order, from submission until the
+ * scheduler completed it: queueing, rate limiting and the broker call.
+ */
+@Name(OrderAckedEvent.NAME)
+@Label("Order Acknowledged")
+@Category({"Trading", "Order"})
+@Description("Order submitted until the broker answered")
+@StackTrace(false)
+public class OrderAckedEvent extends Event {
+    
+    public static final String NAME = "com.angelone.trading.OrderAcked";
+    
+    @Label("Client Order Id")
+    public String clientOrderId;
+    
+    @Label("Broker Order Id")
+    public String brokerOrderId;
+    
+    @Label("Symbol")
+    public String symbol;
+    
+    @Label("Priority")
+    public String priority;
+    
+    @Label("Accepted")
+    public boolean accepted;
+}
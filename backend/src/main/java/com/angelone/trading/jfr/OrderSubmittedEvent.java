@@ -0,0 +1,32 @@
+package com.angelone.trading.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * An order handed to the submission scheduler, before it waits for its rate
+ * limit slot. Paired with {@link OrderAckedEvent} by client order id.
+ */
+@Name(OrderSubmittedEvent.NAME)
+@Label("Order Submitted")
+@Category({"Trading", "Order"})
+@Description("Order queued for the broker")
+@StackTrace(false)
+public class OrderSubmittedEvent extends Event {
+    
+    public static final String NAME = "com.angelone.trading.OrderSubmitted";
+    
+    @Label("Client Order Id")
+    public String clientOrderId;
+    
+    @Label("Symbol")
+    public String symbol;
+    
+    @Label("Side")
+    public String side;
+    
+    @Label("Quantity")
+    public int quantity;
+    
+    @Label("Priority")
+    public String priority;
+}
@@ -0,0 +1,148 @@
+package com.angelone.trading.jfr;
+
+import com.angelone.trading.config.TaskExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches for virtual threads pinned to their carrier, i.e. blocking inside a
+ * {@code synchronized} block or a native frame, when virtual threads are
+ * enabled. Pinned blocking holds a carrier thread the way a platform thread
+ * would, so enough of it caps throughput at the carrier count. Each pin longer
+ * than the threshold is counted under {@code trading.virtual-threads.pinned}
+ * and the first one per blocking frame is logged with its stack.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PinnedThreadMonitor {
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_LOGGED_FRAMES = 1000;
+    
+    private final TaskExecutors taskExecutors;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${trading.jfr.pinned-threshold-micros:20000}")
+    private long thresholdMicros;
+    
+    private final Map<String, AtomicLong> pinsByFrame = new ConcurrentHashMap<>();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private Counter pinned;
+    private RecordingStream stream;
+    
+    @PostConstruct
+    public void start() {
+        if (!taskExecutors.isVirtualThreads()) {
+            return;
+        }
+        
+        pinned = Counter.builder("trading.virtual-threads.pinned")
+                .description("Virtual threads blocked while pinned to their carrier")
+                .register(meterRegistry);
+        try {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(Duration.ofNanos(thresholdMicros * 1000)).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            log.info("Watching for virtual threads pinned longer than {} us", thresholdMicros);
+        } catch (Exception e) {
+            log.warn("Could not start pinned virtual thread monitoring: {}", e.getMessage());
+            stream = null;
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        pinnedNanos.addAndGet(event.getDuration().toNanos());
+        
+        String frame = blockingFrame(event.getStackTrace());
+        AtomicLong count = pinsByFrame.get(frame);
+        if (count == null) {
+            if (pinsByFrame.size() >= MAX_LOGGED_FRAMES) {
+                return;
+            }
+            AtomicLong created = new AtomicLong();
+            count = pinsByFrame.putIfAbsent(frame, created);
+            if (count == null) {
+                count = created;
+                log.warn("Virtual thread {} pinned for {} us at {}:\n{}", event.getThread().getJavaName(),
+                        TimeUnit.NANOSECONDS.toMicros(event.getDuration().toNanos()), frame,
+                        format(event.getStackTrace()));
+            }
+        }
+        count.incrementAndGet();
+    }
+    
+    /**
+     * The innermost application frame, skipping JDK frames such as the park
+     * itself, so pins from one call site are grouped together.
+     */
+    private static String blockingFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame first = stackTrace.getFrames().get(0);
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return describe(frame);
+            }
+        }
+        return describe(first);
+    }
+    
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+    
+    private static String format(RecordedStackTrace stackTrace) {
+        StringBuilder text = new StringBuilder();
+        if (stackTrace != null) {
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                text.append("\tat ").append(describe(frame)).append('\n');
+            }
+        }
+        return text.toString();
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("virtualThreads", taskExecutors.isVirtualThreads());
+        stats.put("monitoring", stream != null);
+        stats.put("thresholdMicros", thresholdMicros);
+        stats.put("pinnedEvents", pinned == null ? 0 : (long) pinned.count());
+        stats.put("pinnedMillis", TimeUnit.NANOSECONDS.toMillis(pinnedNanos.get()));
+        Map<String, Long> byFrame = new LinkedHashMap<>();
+        pinsByFrame.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().get(), a.getValue().get()))
+                .limit(20)
+                .forEach(entry -> byFrame.put(entry.getKey(), entry.getValue().get()));
+        stats.put("topFrames", byFrame);
+        return stats;
+    }
+}
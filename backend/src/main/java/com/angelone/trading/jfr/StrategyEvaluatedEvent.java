@@ -0,0 +1,41 @@
+package com.angelone.trading.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One evaluation of a strategy on one symbol of its universe by the execution
+ * scheduler, including the order it placed when it signalled.
+ */
+@Name(StrategyEvaluatedEvent.NAME)
+@Label("Strategy Evaluated")
+@Category({"Trading", "Strategy"})
+@Description("Evaluation of one active strategy")
+@StackTrace(false)
+public class StrategyEvaluatedEvent extends Event {
+    
+    public static final String NAME = "com.angelone.trading.StrategyEvaluated";
+    
+    public static final String SIGNAL = "SIGNAL";
+    public static final String NO_SIGNAL = "NO_SIGNAL";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String ERROR = "ERROR";
+    
+    @Label("Strategy Id")
+    public long strategyId;
+    
+    @Label("Strategy")
+    public String strategyName;
+    
+    @Label("Type")
+    public String strategyType;
+    
+    @Label("Symbol")
+    public String symbol;
+    
+    @Label("Time Frame")
+    public String timeFrame;
+    
+    @Label("Outcome")
+    @Description("SIGNAL, NO_SIGNAL, DUPLICATE or ERROR")
+    public String outcome;
+}
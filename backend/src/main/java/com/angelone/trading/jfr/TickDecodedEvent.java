@@ -0,0 +1,36 @@
+package com.angelone.trading.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Decode of one feed frame into a ring slot, from the socket callback until the
+ * tick was resolved to its symbol. Only decodes slower than the threshold are
+ * written, so the event can stay enabled on the feed's hot path.
+ */
+@Name(TickDecodedEvent.NAME)
+@Label("Tick Decoded")
+@Category({"Trading", "Feed"})
+@Description("Feed frame decoded into a tick")
+@Threshold("200 us")
+@StackTrace(false)
+public class TickDecodedEvent extends Event {
+    
+    public static final String NAME = "com.angelone.trading.TickDecoded";
+    
+    @Label("Symbol")
+    public String symbol;
+    
+    @Label("Token")
+    public String token;
+    
+    @Label("Exchange Timestamp")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long exchangeTimestamp;
+    
+    @Label("Binary Frame")
+    public boolean binary;
+    
+    @Label("Accepted")
+    @Description("False for unknown tokens and ticks older than the symbol's last one")
+    public boolean accepted;
+}
@@ -0,0 +1,14 @@
+package com.angelone.trading.repository;
+
+import com.angelone.trading.entity.AnalyticsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsRollupRepository extends JpaRepository<AnalyticsRollup, Long> {
+    Optional<AnalyticsRollup> findByScope(String scope);
+    List<AnalyticsRollup> findByUserIdOrderByScopeAsc(Long userId);
+}
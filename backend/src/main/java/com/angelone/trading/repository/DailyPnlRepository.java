@@ -0,0 +1,15 @@
+package com.angelone.trading.repository;
+
+import com.angelone.trading.entity.DailyPnl;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyPnlRepository extends JpaRepository<DailyPnl, Long> {
+    Optional<DailyPnl> findByUserIdAndDay(Long userId, LocalDate day);
+    List<DailyPnl> findByUserIdAndDayGreaterThanEqualOrderByDayAsc(Long userId, LocalDate startDay);
+}
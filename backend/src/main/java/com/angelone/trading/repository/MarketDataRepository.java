@@ -1,6 +1,7 @@
 package com.angelone.trading.repository;
 
 import com.angelone.trading.entity.MarketData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,13 +11,17 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * market_data is partitioned by day on timestamp, so every query is bounded
+ * by a start time; unbounded ones would touch every partition ever kept.
+ */
 @Repository
 public interface MarketDataRepository extends JpaRepository<MarketData, Long> {
-    @Query("SELECT m FROM MarketData m WHERE m.symbol = :symbol AND m.timeFrame = :timeFrame ORDER BY m.timestamp DESC")
-    List<MarketData> findBySymbolAndTimeFrameOrderByTimestampDesc(@Param("symbol") String symbol, @Param("timeFrame") String timeFrame);
+    @Query("SELECT m FROM MarketData m WHERE m.symbol = :symbol AND m.timeFrame = :timeFrame AND m.timestamp >= :startTime ORDER BY m.timestamp DESC")
+    List<MarketData> findRecentBars(@Param("symbol") String symbol, @Param("timeFrame") String timeFrame, @Param("startTime") LocalDateTime startTime, Pageable page);
     
     @Query("SELECT m FROM MarketData m WHERE m.symbol = :symbol AND m.timeFrame = :timeFrame AND m.timestamp >= :startTime ORDER BY m.timestamp DESC")
     List<MarketData> findBySymbolAndTimeFrameAndTimestampAfter(@Param("symbol") String symbol, @Param("timeFrame") String timeFrame, @Param("startTime") LocalDateTime startTime);
     
-    Optional<MarketData> findTopBySymbolAndTimeFrameOrderByTimestampDesc(String symbol, String timeFrame);
-}
\ No newline at end of file
+    Optional<MarketData> findTopBySymbolAndTimeFrameAndTimestampGreaterThanEqualOrderByTimestampDesc(String symbol, String timeFrame, LocalDateTime startTime);
+}
@@ -2,9 +2,15 @@ package com.angelone.trading.repository;
 
 import com.angelone.trading.entity.Notification;
 import com.angelone.trading.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,4 +18,29 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByUserOrderByCreatedAtDesc(User user);
     List<Notification> findByUserAndIsReadFalseOrderByCreatedAtDesc(User user);
     Long countByUserAndIsReadFalse(User user);
-}
\ No newline at end of file
+    
+    // Keyset pages: newest first, strictly older than the last id the client has seen
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.id < :beforeId ORDER BY n.id DESC")
+    List<Notification> findPageByUserId(@Param("userId") Long userId, @Param("beforeId") Long beforeId, Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isRead = false AND n.id < :beforeId ORDER BY n.id DESC")
+    List<Notification> findUnreadPageByUserId(@Param("userId") Long userId, @Param("beforeId") Long beforeId, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user.id = :userId AND n.isRead = false")
+    int markAsRead(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllAsRead(@Param("userId") Long userId);
+    
+    @Query("SELECT n.id FROM Notification n WHERE n.isRead = true AND n.createdAt < :cutoff ORDER BY n.id")
+    List<Long> findReadIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
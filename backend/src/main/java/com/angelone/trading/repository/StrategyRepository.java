@@ -1,15 +1,36 @@
 package com.angelone.trading.repository;
 
+import com.angelone.trading.dto.StrategyResponse;
 import com.angelone.trading.entity.Strategy;
 import com.angelone.trading.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
 public interface StrategyRepository extends JpaRepository<Strategy, Long> {
-    List<Strategy> findByUserOrderByCreatedAtDesc(User user);
+    
+    @Query("SELECT new com.angelone.trading.dto.StrategyResponse(s.id, s.name, s.type, s.isActive, s.timeFrame, "
+            + "s.symbols, s.emaFast, s.emaSlow, s.rsiPeriod, s.rsiOversold, s.rsiOverbought, s.stopLossPercentage, "
+            + "s.takeProfitPercentage, s.maxCapitalPercentage, s.totalTrades, s.winningTrades, s.averagePnL, "
+            + "s.createdAt, s.updatedAt) FROM Strategy s WHERE s.user.id = :userId ORDER BY s.createdAt DESC")
+    List<StrategyResponse> findStrategyResponses(@Param("userId") Long userId);
+    
     List<Strategy> findByUserAndIsActiveTrue(User user);
+    
+    // Strategies are evaluated off the session's thread, so their owners come with them
+    @EntityGraph(attributePaths = "user")
     List<Strategy> findByIsActiveTrue();
+    
+    @Modifying
+    @Query("UPDATE Strategy s SET s.totalTrades = :totalTrades, s.winningTrades = :winningTrades, "
+            + "s.averagePnL = :averagePnL WHERE s.id = :strategyId")
+    int updatePerformance(@Param("strategyId") Long strategyId, @Param("totalTrades") Integer totalTrades,
+                          @Param("winningTrades") Integer winningTrades, @Param("averagePnL") BigDecimal averagePnL);
 }
\ No newline at end of file
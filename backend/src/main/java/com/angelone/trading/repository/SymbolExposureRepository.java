@@ -0,0 +1,14 @@
+package com.angelone.trading.repository;
+
+import com.angelone.trading.entity.SymbolExposure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SymbolExposureRepository extends JpaRepository<SymbolExposure, Long> {
+    Optional<SymbolExposure> findByUserIdAndSymbol(Long userId, String symbol);
+    List<SymbolExposure> findByUserIdAndOpenTradesGreaterThanOrderBySymbolAsc(Long userId, Integer openTrades);
+}
@@ -1,19 +1,72 @@
 package com.angelone.trading.repository;
 
+import com.angelone.trading.dto.TradeResponse;
 import com.angelone.trading.entity.Trade;
 import com.angelone.trading.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TradeRepository extends JpaRepository<Trade, Long> {
-    List<Trade> findByUserOrderByCreatedAtDesc(User user);
-    List<Trade> findByUserAndStatusOrderByCreatedAtDesc(User user, Trade.TradeStatus status);
+    
+    String TRADE_RESPONSE = "SELECT new com.angelone.trading.dto.TradeResponse(t.id, t.symbol, t.type, t.quantity, "
+            + "t.price, t.currentPrice, t.status, t.pnl, t.stopLoss, t.takeProfit, t.trailingStop, "
+            + "t.angelOneOrderId, t.clientOrderId, s.id, s.name, t.executedAt, t.closedAt, t.createdAt, t.updatedAt) "
+            + "FROM Trade t LEFT JOIN t.strategy s ";
+    
+    /**
+     * Newest trades first, one page per call. Ids are assigned in creation order,
+     * so paging on {@code id} keeps the creation order and each page is a range
+     * scan of the user_id index from the previous page's last id.
+     */
+    @Query(TRADE_RESPONSE + "WHERE t.user.id = :userId ORDER BY t.id DESC")
+    List<TradeResponse> findTradePage(@Param("userId") Long userId, Pageable page);
+    
+    @Query(TRADE_RESPONSE + "WHERE t.user.id = :userId AND t.id < :beforeId ORDER BY t.id DESC")
+    List<TradeResponse> findTradePageBefore(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+                                            Pageable page);
+    
+    @Query(TRADE_RESPONSE + "WHERE t.user.id = :userId AND t.status = :status ORDER BY t.id DESC")
+    List<TradeResponse> findTradesByStatus(@Param("userId") Long userId, @Param("status") Trade.TradeStatus status);
+    
+    @EntityGraph(attributePaths = "user")
+    Optional<Trade> findWithUserById(Long id);
+    
+    Optional<Trade> findByUserIdAndClientOrderId(Long userId, String clientOrderId);
+    
+    /**
+     * Books the close of a trade that is still open.
+     *
+     * @return 0 when the trade was no longer open
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Trade t SET t.status = com.angelone.trading.entity.Trade.TradeStatus.CLOSED, "
+            + "t.currentPrice = :currentPrice, t.pnl = :pnl, t.closedAt = :closedAt, t.updatedAt = :closedAt "
+            + "WHERE t.id = :id AND t.status = com.angelone.trading.entity.Trade.TradeStatus.OPEN")
+    int markClosed(@Param("id") Long id, @Param("currentPrice") BigDecimal currentPrice, @Param("pnl") BigDecimal pnl,
+                   @Param("closedAt") LocalDateTime closedAt);
+    
+    List<Trade> findByStatus(Trade.TradeStatus status);
+    
+    /**
+     * Capital held by the user's pending and open trades.
+     */
+    @Query("SELECT COALESCE(SUM(t.price * t.quantity), 0) FROM Trade t WHERE t.user.id = :userId "
+            + "AND t.status IN (com.angelone.trading.entity.Trade.TradeStatus.PENDING, "
+            + "com.angelone.trading.entity.Trade.TradeStatus.OPEN)")
+    BigDecimal sumCommittedCapital(@Param("userId") Long userId);
     
     @Query("SELECT t FROM Trade t WHERE t.user = :user AND t.createdAt >= :startDate")
     List<Trade> findByUserAndCreatedAtAfter(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
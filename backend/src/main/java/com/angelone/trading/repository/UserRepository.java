@@ -1,13 +1,46 @@
 package com.angelone.trading.repository;
 
 import com.angelone.trading.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    List<User> findByAngelOneRefreshTokenIsNotNull();
+    
+    /**
+     * Locks the user's row until the transaction ends, serializing writers of per-user aggregates.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> lockById(@Param("id") Long id);
+    
+    @Query("SELECT u.email FROM User u WHERE u.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.totalPnL = u.totalPnL + :pnl WHERE u.id = :userId")
+    int addTotalPnL(@Param("userId") Long userId, @Param("pnl") BigDecimal pnl);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.angelOneToken = :jwtToken, u.angelOneRefreshToken = :refreshToken, " +
+           "u.angelOneFeedToken = :feedToken, u.angelOneTokenExpiresAt = :expiresAt WHERE u.id = :userId")
+    int updateBrokerSession(@Param("userId") Long userId, @Param("jwtToken") String jwtToken,
+                            @Param("refreshToken") String refreshToken, @Param("feedToken") String feedToken,
+                            @Param("expiresAt") LocalDateTime expiresAt);
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.angelone.trading.security;
 
+import com.angelone.trading.entity.User;
 import com.angelone.trading.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -25,45 +28,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtTokenHelper jwtTokenHelper;
+    private final PrincipalCache principalCache;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) 
             throws ServletException, IOException {
         
         String requestToken = request.getHeader("Authorization");
-        String username = null;
-        String token = null;
         
-        if (requestToken != null && requestToken.startsWith("Bearer ")) {
-            token = requestToken.substring(7);
-            try {
-                username = jwtTokenHelper.getUsernameFromToken(token);
-            } catch (IllegalArgumentException e) {
-                log.error("Unable to get JWT Token");
-            } catch (ExpiredJwtException e) {
-                log.error("JWT Token has expired");
-            } catch (MalformedJwtException e) {
-                log.error("Invalid JWT Token");
+        if (requestToken != null && requestToken.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = requestToken.substring(7);
+            UserDetails userDetails = principalCache.get(token);
+            if (userDetails == null) {
+                userDetails = authenticate(token);
             }
-        } else {
-            log.warn("JWT Token does not begin with Bearer String");
-        }
-        
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
             
-            if (jwtTokenHelper.validateToken(token, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-            } else {
-                log.error("Invalid JWT Token");
             }
-        } else {
-            log.error("Username is null or context is not null");
+        } else if (requestToken != null && !requestToken.startsWith("Bearer ")) {
+            log.warn("JWT Token does not begin with Bearer String");
         }
         
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Cache miss: verifies the token with a single parse, loads the user and caches the principal.
+     */
+    private UserDetails authenticate(String token) {
+        try {
+            Claims claims = jwtTokenHelper.parseToken(token);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            if (userDetails instanceof User user) {
+                principalCache.put(token, user, claims.getExpiration());
+            }
+            return userDetails;
+        } catch (ExpiredJwtException e) {
+            log.error("JWT Token has expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("Invalid JWT Token");
+        } catch (UsernameNotFoundException e) {
+            log.error("JWT Token subject not found");
+        }
+        return null;
+    }
+}
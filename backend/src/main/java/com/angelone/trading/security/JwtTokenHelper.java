@@ -1,9 +1,11 @@
 package com.angelone.trading.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -23,8 +25,29 @@ public class JwtTokenHelper {
     @Value("${jwt.secret}")
     private String jwtSecret;
     
+    // The key and parser are immutable and thread-safe, so they are built once
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+    
+    /**
+     * Verifies the signature and expiry in a single parse and returns the claims.
+     * Throws {@link io.jsonwebtoken.JwtException} (including {@code ExpiredJwtException})
+     * or {@link IllegalArgumentException} for tokens that do not validate.
+     */
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
     
     public String getUsernameFromToken(String token) {
@@ -41,16 +64,7 @@ public class JwtTokenHelper {
     }
     
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return parseToken(token);
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -69,7 +83,8 @@ public class JwtTokenHelper {
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // parseClaimsJws already rejects expired tokens
+        final Claims claims = parseToken(token);
+        return claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date());
     }
 }
\ No newline at end of file
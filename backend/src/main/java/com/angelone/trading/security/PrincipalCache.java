@@ -0,0 +1,155 @@
+package com.angelone.trading.security;
+
+import com.angelone.trading.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authenticated principals keyed by a SHA-256 hash of the bearer token, so a
+ * request carrying a token seen recently skips both JWT parsing and the user
+ * lookup. Entries live for the configured TTL, never past the token's own
+ * expiry, and are dropped when the user changes. Entries hold an immutable
+ * {@link UserSnapshot}; every hit returns a fresh {@link User}, so requests
+ * never share a principal instance.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+    
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+    
+    @Value("${jwt.principal-cache.ttl:60000}")
+    private long ttlMillis;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    public User get(String token) {
+        if (ttlMillis <= 0) {
+            return null;
+        }
+        
+        String key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        hits.incrementAndGet();
+        return entry.principal.toUser();
+    }
+    
+    public void put(String token, User principal, Date tokenExpiration) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        
+        long lifetime = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        if (tokenExpiration != null) {
+            lifetime = Math.min(lifetime,
+                    TimeUnit.MILLISECONDS.toNanos(tokenExpiration.getTime() - System.currentTimeMillis()));
+        }
+        if (lifetime <= 0) {
+            return;
+        }
+        
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(hash(token), new Entry(UserSnapshot.of(principal), System.nanoTime() + lifetime));
+    }
+    
+    /**
+     * Drops every cached token of the given user, e.g. after the account changed.
+     */
+    public void invalidate(String username) {
+        if (entries.values().removeIf(entry -> entry.principal.getEmail().equals(username))) {
+            invalidations.incrementAndGet();
+        }
+    }
+    
+    public void invalidateAll() {
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+    
+    @Scheduled(fixedDelayString = "${jwt.principal-cache.ttl:60000}")
+    public void removeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+    }
+    
+    private void evict() {
+        removeExpired();
+        // Still full of live entries: drop the ones closest to expiry
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        if (excess > 0) {
+            entries.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(a.getValue().expiresAt, b.getValue().expiresAt))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entries::remove);
+            evictions.addAndGet(excess);
+        }
+    }
+    
+    private static String hash(String token) {
+        MessageDigest digest = SHA_256.get();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+    
+    private static final class Entry {
+        private final UserSnapshot principal;
+        private final long expiresAt;
+        
+        private Entry(UserSnapshot principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
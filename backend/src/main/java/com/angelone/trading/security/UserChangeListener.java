@@ -0,0 +1,26 @@
+package com.angelone.trading.security;
+
+import com.angelone.trading.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import com.angelone.trading.service.CacheInvalidationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link User} that evicts the user's cached principals and lookups whenever
+ * the row is updated or deleted, so role, password or account changes apply to
+ * the next request rather than after the cache TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+    
+    private final CacheInvalidationService cacheInvalidationService;
+    
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        cacheInvalidationService.userChanged(user.getEmail());
+    }
+}
@@ -0,0 +1,84 @@
+package com.angelone.trading.security;
+
+import com.angelone.trading.entity.User;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a {@link User} row for caches shared across requests.
+ * Each request gets its own detached {@link User} from {@link #toUser()}, so
+ * nothing a request does to its principal leaks into the cache or into
+ * concurrent requests.
+ */
+@Getter
+public final class UserSnapshot {
+    
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final String name;
+    private final User.Role role;
+    private final BigDecimal accountBalance;
+    private final BigDecimal totalPnL;
+    private final String angelOneClientId;
+    private final String angelOnePassword;
+    private final String angelOneTotp;
+    private final String angelOneToken;
+    private final String angelOneRefreshToken;
+    private final String angelOneFeedToken;
+    private final LocalDateTime angelOneTokenExpiresAt;
+    private final Boolean isActive;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    
+    private UserSnapshot(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.name = user.getName();
+        this.role = user.getRole();
+        this.accountBalance = user.getAccountBalance();
+        this.totalPnL = user.getTotalPnL();
+        this.angelOneClientId = user.getAngelOneClientId();
+        this.angelOnePassword = user.getAngelOnePassword();
+        this.angelOneTotp = user.getAngelOneTotp();
+        this.angelOneToken = user.getAngelOneToken();
+        this.angelOneRefreshToken = user.getAngelOneRefreshToken();
+        this.angelOneFeedToken = user.getAngelOneFeedToken();
+        this.angelOneTokenExpiresAt = user.getAngelOneTokenExpiresAt();
+        this.isActive = user.getIsActive();
+        this.createdAt = user.getCreatedAt();
+        this.updatedAt = user.getUpdatedAt();
+    }
+    
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user);
+    }
+    
+    /**
+     * A new detached entity with this snapshot's values; lazy associations are left unset.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setName(name);
+        user.setRole(role);
+        user.setAccountBalance(accountBalance);
+        user.setTotalPnL(totalPnL);
+        user.setAngelOneClientId(angelOneClientId);
+        user.setAngelOnePassword(angelOnePassword);
+        user.setAngelOneTotp(angelOneTotp);
+        user.setAngelOneToken(angelOneToken);
+        user.setAngelOneRefreshToken(angelOneRefreshToken);
+        user.setAngelOneFeedToken(angelOneFeedToken);
+        user.setAngelOneTokenExpiresAt(angelOneTokenExpiresAt);
+        user.setIsActive(isActive);
+        user.setCreatedAt(createdAt);
+        user.setUpdatedAt(updatedAt);
+        return user;
+    }
+}
@@ -0,0 +1,229 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.CacheConfig;
+import com.angelone.trading.dto.AnalyticsSummary;
+import com.angelone.trading.entity.AnalyticsRollup;
+import com.angelone.trading.entity.DailyPnl;
+import com.angelone.trading.entity.Strategy;
+import com.angelone.trading.entity.SymbolExposure;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.repository.AnalyticsRollupRepository;
+import com.angelone.trading.repository.DailyPnlRepository;
+import com.angelone.trading.repository.StrategyRepository;
+import com.angelone.trading.repository.SymbolExposureRepository;
+import com.angelone.trading.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Portfolio analytics maintained incrementally: each trade that opens or
+ * closes updates its user's exposure, totals and daily P&L, and its
+ * strategy's totals. Summaries are read from those rows and cached per user,
+ * so their cost does not grow with the number of trades.
+ * <p>
+ * Rollups are applied from {@link TradeEvent}s after the trade is committed,
+ * in a transaction of their own; a failure is logged and counted but never
+ * reaches the order or close path. Writers take a lock on the user's row
+ * first, which serializes them per user across instances and lets a missing
+ * rollup row be created without a race.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsService {
+    
+    private final UserRepository userRepository;
+    private final StrategyRepository strategyRepository;
+    private final AnalyticsRollupRepository rollupRepository;
+    private final DailyPnlRepository dailyPnlRepository;
+    private final SymbolExposureRepository exposureRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final PlatformTransactionManager transactionManager;
+    private final TradingMetrics tradingMetrics;
+    
+    @Value("${trading.analytics.daily-days:90}")
+    private int dailyDays;
+    
+    private TransactionTemplate rollupTransaction;
+    private final AtomicLong rollupFailures = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        rollupTransaction = new TransactionTemplate(transactionManager);
+        rollupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tradingMetrics.monitor("trading.analytics.rollup.failures", "Trade events whose rollups failed to apply",
+                rollupFailures, AtomicLong::get);
+    }
+    
+    /**
+     * Runs after the publisher's transaction commits, or right away when it
+     * published outside one, as the order and close paths do.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTradeEvent(TradeEvent event) {
+        Trade trade = event.getTrade();
+        try {
+            rollupTransaction.executeWithoutResult(status -> {
+                if (event.getKind() == TradeEvent.Kind.OPENED) {
+                    tradeOpened(trade);
+                } else {
+                    tradeClosed(trade);
+                }
+            });
+        } catch (RuntimeException e) {
+            rollupFailures.incrementAndGet();
+            log.error("Failed to apply analytics for trade {} {}", trade.getId(), event.getKind(), e);
+        }
+    }
+    
+    private void tradeOpened(Trade trade) {
+        Long userId = trade.getUser().getId();
+        userRepository.lockById(userId);
+        
+        SymbolExposure exposure = exposureRepository.findByUserIdAndSymbol(userId, trade.getSymbol())
+                .orElseGet(() -> new SymbolExposure(userId, trade.getSymbol()));
+        exposure.setOpenTrades(exposure.getOpenTrades() + 1);
+        exposure.setNetQuantity(exposure.getNetQuantity() + signedQuantity(trade));
+        exposure.setOpenNotional(exposure.getOpenNotional().add(notional(trade)));
+        exposureRepository.save(exposure);
+        
+        cacheInvalidationService.analyticsChanged(userId);
+    }
+    
+    private void tradeClosed(Trade trade) {
+        Long userId = trade.getUser().getId();
+        BigDecimal pnl = trade.getPnl() != null ? trade.getPnl() : BigDecimal.ZERO;
+        userRepository.lockById(userId);
+        
+        exposureRepository.findByUserIdAndSymbol(userId, trade.getSymbol()).ifPresent(exposure -> {
+            exposure.setOpenTrades(Math.max(0, exposure.getOpenTrades() - 1));
+            exposure.setNetQuantity(exposure.getNetQuantity() - signedQuantity(trade));
+            exposure.setOpenNotional(exposure.getOpenTrades() == 0
+                    ? BigDecimal.ZERO
+                    : exposure.getOpenNotional().subtract(notional(trade)));
+            exposureRepository.save(exposure);
+        });
+        
+        AnalyticsRollup userRollup = rollup(AnalyticsRollup.userScope(userId), userId, null);
+        userRollup.addClosedTrade(pnl);
+        rollupRepository.save(userRollup);
+        
+        if (trade.getStrategy() != null) {
+            Long strategyId = trade.getStrategy().getId();
+            AnalyticsRollup strategyRollup = rollup(AnalyticsRollup.strategyScope(strategyId), userId, strategyId);
+            strategyRollup.addClosedTrade(pnl);
+            rollupRepository.save(strategyRollup);
+            
+            // Keep the strategy's own performance columns, shown in strategy listings, in step
+            strategyRepository.updatePerformance(strategyId, strategyRollup.getTradeCount(),
+                    strategyRollup.getWinningTrades(), average(strategyRollup));
+            // A bulk update skips the entity listeners, so evict the cached strategy listing explicitly
+            cacheInvalidationService.strategiesChanged(userId);
+        }
+        
+        LocalDateTime closedAt = trade.getClosedAt() != null ? trade.getClosedAt() : LocalDateTime.now();
+        DailyPnl daily = dailyPnlRepository.findByUserIdAndDay(userId, closedAt.toLocalDate())
+                .orElseGet(() -> new DailyPnl(userId, closedAt.toLocalDate()));
+        daily.setTradeCount(daily.getTradeCount() + 1);
+        daily.setRealizedPnl(daily.getRealizedPnl().add(pnl));
+        dailyPnlRepository.save(daily);
+        
+        cacheInvalidationService.analyticsChanged(userId);
+    }
+    
+    /**
+     * Drops a deleted strategy's totals; its closed trades stay in the user's.
+     */
+    @Transactional
+    public void strategyDeleted(Long userId, Long strategyId) {
+        rollupRepository.findByScope(AnalyticsRollup.strategyScope(strategyId)).ifPresent(rollupRepository::delete);
+        cacheInvalidationService.analyticsChanged(userId);
+    }
+    
+    @Cacheable(value = CacheConfig.ANALYTICS, key = "#userId")
+    @Transactional(readOnly = true)
+    public AnalyticsSummary getSummary(Long userId) {
+        AnalyticsSummary summary = new AnalyticsSummary();
+        
+        for (AnalyticsRollup rollup : rollupRepository.findByUserIdOrderByScopeAsc(userId)) {
+            if (rollup.getStrategyId() == null) {
+                summary.setTotals(totals(rollup));
+            } else {
+                AnalyticsSummary.StrategyTotals strategy = new AnalyticsSummary.StrategyTotals();
+                strategy.setStrategyId(rollup.getStrategyId());
+                strategy.setTotals(totals(rollup));
+                summary.getStrategies().add(strategy);
+            }
+        }
+        
+        exposureRepository.findByUserIdAndOpenTradesGreaterThanOrderBySymbolAsc(userId, 0).forEach(row -> {
+            AnalyticsSummary.Exposure exposure = new AnalyticsSummary.Exposure();
+            exposure.setSymbol(row.getSymbol());
+            exposure.setOpenTrades(row.getOpenTrades());
+            exposure.setNetQuantity(row.getNetQuantity());
+            exposure.setOpenNotional(row.getOpenNotional());
+            summary.getExposure().add(exposure);
+        });
+        
+        LocalDate startDay = LocalDate.now().minusDays(dailyDays - 1L);
+        dailyPnlRepository.findByUserIdAndDayGreaterThanEqualOrderByDayAsc(userId, startDay).forEach(row -> {
+            AnalyticsSummary.DailyPnl daily = new AnalyticsSummary.DailyPnl();
+            daily.setDay(row.getDay());
+            daily.setTradeCount(row.getTradeCount());
+            daily.setRealizedPnl(row.getRealizedPnl());
+            summary.getDailyPnl().add(daily);
+        });
+        
+        return summary;
+    }
+    
+    private AnalyticsRollup rollup(String scope, Long userId, Long strategyId) {
+        return rollupRepository.findByScope(scope).orElseGet(() -> {
+            AnalyticsRollup rollup = new AnalyticsRollup();
+            rollup.setScope(scope);
+            rollup.setUserId(userId);
+            rollup.setStrategyId(strategyId);
+            return rollup;
+        });
+    }
+    
+    private static AnalyticsSummary.Totals totals(AnalyticsRollup rollup) {
+        AnalyticsSummary.Totals totals = new AnalyticsSummary.Totals();
+        totals.setTradeCount(rollup.getTradeCount());
+        totals.setWinningTrades(rollup.getWinningTrades());
+        totals.setWinRate(Strategy.winRate(rollup.getTradeCount(), rollup.getWinningTrades()));
+        totals.setRealizedPnl(rollup.getRealizedPnl());
+        totals.setMaxDrawdown(rollup.getMaxDrawdown());
+        return totals;
+    }
+    
+    private static BigDecimal average(AnalyticsRollup rollup) {
+        return rollup.getTradeCount() == 0
+                ? BigDecimal.ZERO
+                : rollup.getRealizedPnl().divide(BigDecimal.valueOf(rollup.getTradeCount()), 2, RoundingMode.HALF_UP);
+    }
+    
+    private static int signedQuantity(Trade trade) {
+        return trade.getType() == Trade.TradeType.SELL ? -trade.getQuantity() : trade.getQuantity();
+    }
+    
+    private static BigDecimal notional(Trade trade) {
+        return trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity()));
+    }
+}
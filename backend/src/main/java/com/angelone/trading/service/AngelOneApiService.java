@@ -1,9 +1,13 @@
 package com.angelone.trading.service;
 
+import com.angelone.trading.config.TaskExecutors;
 import com.angelone.trading.entity.Trade;
 import com.angelone.trading.entity.User;
+import com.angelone.trading.jfr.BrokerHttpEventInterceptor;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,14 +17,35 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AngelOneApiService {
     
+    private static final Map<String, String> SYMBOL_TOKENS = Map.of(
+            "NIFTY", "99926000",
+            "BANKNIFTY", "99926009",
+            "RELIANCE", "2885",
+            "TCS", "11536",
+            "INFY", "1594",
+            "HDFCBANK", "1333",
+            "ICICIBANK", "4963",
+            "SBIN", "3045"
+    );
+    
+    private static final Map<String, String> TOKEN_SYMBOLS = SYMBOL_TOKENS.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+    
     @Value("${angelone.api.base-url}")
     private String baseUrl;
     
@@ -30,10 +55,48 @@ public class AngelOneApiService {
     @Value("${angelone.api.client-secret}")
     private String clientSecret;
     
+    @Value("${angelone.api.quote-batch-size:50}")
+    private int quoteBatchSize;
+    
+    @Value("${angelone.api.rate-limits.quote:10}")
+    private double quoteRateLimit;
+    
+    @Value("${angelone.api.quote-threads:4}")
+    private int quoteThreads;
+    
+    @Value("${angelone.api.simulation.enabled:false}")
+    private boolean simulationEnabled;
+    
+    @Value("${angelone.api.simulation.order-latency:100}")
+    private long simulatedOrderLatencyMillis;
+    
+    @Value("${angelone.api.simulation.order-reject-rate:0.05}")
+    private double simulatedOrderRejectRate;
+    
+    @Value("${angelone.api.simulation.exit-reject-rate:0.02}")
+    private double simulatedExitRejectRate;
+    
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final SimpMessagingTemplate messagingTemplate;
-    private final Map<Long, String> userTokens = new HashMap<>();
+    private final BrokerSessionManager brokerSessionManager;
+    private final TaskExecutors taskExecutors;
+    private final Set<String> unknownSymbols = ConcurrentHashMap.newKeySet();
+    private TokenBucket quoteRateLimiter;
+    private ExecutorService quoteExecutor;
+    
+    @PostConstruct
+    public void init() {
+        restTemplate.getInterceptors().add(new BrokerHttpEventInterceptor());
+        quoteRateLimiter = new TokenBucket(quoteRateLimit, quoteRateLimit);
+        
+        quoteExecutor = taskExecutors.newExecutor("quote-fetch-", quoteThreads);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        quoteExecutor.shutdown();
+    }
     
     public boolean authenticateUser(User user) {
         try {
@@ -42,63 +105,40 @@ public class AngelOneApiService {
                 return simulateAuthentication(user);
             }
             
-            String url = baseUrl + "/rest/auth/angelbroking/user/v1/loginByPassword";
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-ClientLocalIP", "192.168.1.1");
-            headers.set("X-ClientPublicIP", "106.193.147.98");
-            headers.set("X-MACAddress", "fe80::216:3eff:fe00:1");
-            headers.set("Accept", "application/json");
-            headers.set("X-PrivateKey", clientSecret);
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("clientcode", user.getAngelOneClientId());
-            requestBody.put("password", user.getAngelOnePassword());
-            requestBody.put("totp", user.getAngelOneTotp());
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                JsonNode responseJson = objectMapper.readTree(response.getBody());
-                
-                if (responseJson.get("status").asBoolean()) {
-                    String jwtToken = responseJson.get("data").get("jwtToken").asText();
-                    String refreshToken = responseJson.get("data").get("refreshToken").asText();
-                    
-                    // Store tokens
-                    userTokens.put(user.getId(), jwtToken);
-                    user.setAngelOneToken(jwtToken);
-                    user.setAngelOneRefreshToken(refreshToken);
-                    
-                    log.info("Successfully authenticated user with Angel One: {}", user.getEmail());
-                    return true;
-                } else {
-                    log.error("Angel One authentication failed: {}", responseJson.get("message").asText());
-                }
-            }
+            return brokerSessionManager.login(user);
             
         } catch (Exception e) {
             log.error("Error authenticating user with Angel One API: {}", e.getMessage());
             return simulateAuthentication(user);
         }
-        
-        return false;
     }
     
     public boolean placeTrade(Trade trade) {
         try {
-            String token = userTokens.get(trade.getUser().getId());
-            
-            if (token == null) {
-                if (!authenticateUser(trade.getUser())) {
-                    return simulateTrade(trade);
+            BrokerSessionManager.BrokerSession session = brokerSessionManager.getSession(trade.getUser().getId());
+            
+            if (session == null) {
+                // Never log in on the order path; the session is set up in the background for the next order
+                brokerSessionManager.establishAsync(trade.getUser().getId());
+                if (!simulationEnabled) {
+                    log.warn("No broker session for user {}, rejecting order", trade.getUser().getId());
+                    return false;
                 }
-                token = userTokens.get(trade.getUser().getId());
+                log.warn("No broker session for user {}, simulating order", trade.getUser().getId());
+                return simulateTrade(trade);
             }
             
+            if (session.isSimulated()) {
+                return simulationEnabled && simulateTrade(trade);
+            }
+            
+            if (!hasSymbolToken(trade.getSymbol())) {
+                log.warn("No instrument token for {}, rejecting order", trade.getSymbol());
+                return false;
+            }
+            
+            String token = session.getJwtToken();
+            
             String url = baseUrl + "/rest/secure/angelbroking/order/v1/placeOrder";
             
             HttpHeaders headers = new HttpHeaders();
@@ -124,6 +164,9 @@ public class AngelOneApiService {
             requestBody.put("squareoff", "0");
             requestBody.put("stoploss", "0");
             requestBody.put("quantity", trade.getQuantity().toString());
+            if (trade.getClientOrderId() != null) {
+                requestBody.put("ordertag", trade.getClientOrderId());
+            }
             
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
             
@@ -144,7 +187,7 @@ public class AngelOneApiService {
             
         } catch (Exception e) {
             log.error("Error placing order via Angel One API: {}", e.getMessage());
-            return simulateTrade(trade);
+            return simulationEnabled && simulateTrade(trade);
         }
         
         return false;
@@ -152,12 +195,22 @@ public class AngelOneApiService {
     
     public boolean closeTrade(Trade trade) {
         try {
-            String token = userTokens.get(trade.getUser().getId());
+            BrokerSessionManager.BrokerSession session = brokerSessionManager.getSession(trade.getUser().getId());
             
-            if (token == null) {
+            if (session == null || session.isSimulated()) {
+                if (session == null) {
+                    brokerSessionManager.establishAsync(trade.getUser().getId());
+                }
+                if (!simulationEnabled) {
+                    // The exit stays pending and is retried once a broker session exists
+                    log.warn("No broker session for user {}, exit of trade {} not sent", trade.getUser().getId(), trade.getId());
+                    return false;
+                }
                 return simulateTradeClose(trade);
             }
             
+            String token = session.getJwtToken();
+            
             String url = baseUrl + "/rest/secure/angelbroking/order/v1/placeOrder";
             
             HttpHeaders headers = new HttpHeaders();
@@ -198,7 +251,7 @@ public class AngelOneApiService {
             log.error("Error closing trade via Angel One API: {}", e.getMessage());
         }
         
-        return simulateTradeClose(trade);
+        return false;
     }
     
     public BigDecimal getCurrentPrice(String symbol) {
@@ -284,25 +337,136 @@ public class AngelOneApiService {
         return getSimulatedMarketData(symbol);
     }
     
-    private String getSymbolToken(String symbol) {
-        // Angel One symbol tokens - these need to be fetched from their master contract API
-        Map<String, String> symbolTokenMap = new HashMap<>();
-        symbolTokenMap.put("NIFTY", "99926000");
-        symbolTokenMap.put("BANKNIFTY", "99926009");
-        symbolTokenMap.put("RELIANCE", "2885");
-        symbolTokenMap.put("TCS", "11536");
-        symbolTokenMap.put("INFY", "1594");
-        symbolTokenMap.put("HDFCBANK", "1333");
-        symbolTokenMap.put("ICICIBANK", "4963");
-        symbolTokenMap.put("SBIN", "3045");
+    /**
+     * Quotes for many symbols at once. Tokens are sent to the multi-instrument quote
+     * endpoint in batches of up to 50, with the batches issued concurrently within the
+     * quote rate limit. Symbols the broker did not return are simulated. Symbols without
+     * an instrument token are left out of the result and reported by {@link #getUnknownSymbols()}.
+     */
+    public Map<String, Map<String, Object>> getMarketDataBatch(List<String> symbols) {
+        Map<String, Map<String, Object>> quotes = new ConcurrentHashMap<>();
+        List<String> known = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            if (hasSymbolToken(symbol)) {
+                known.add(symbol);
+            } else if (unknownSymbols.add(symbol)) {
+                log.warn("No instrument token for {}, leaving it out of quote requests", symbol);
+            }
+        }
         
-        return symbolTokenMap.getOrDefault(symbol, "0");
+        BrokerSessionManager.BrokerSession session = brokerSessionManager.anySession();
+        
+        if (session != null) {
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (int from = 0; from < known.size(); from += quoteBatchSize) {
+                List<String> batch = known.subList(from, Math.min(from + quoteBatchSize, known.size()));
+                requests.add(CompletableFuture.runAsync(
+                        () -> fetchQuoteBatch(batch, session.getJwtToken(), quotes), quoteExecutor));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        }
+        
+        for (String symbol : known) {
+            quotes.computeIfAbsent(symbol, this::getSimulatedMarketData);
+        }
+        return quotes;
+    }
+    
+    /**
+     * Symbols quote requests were asked for that have no instrument token.
+     */
+    public Set<String> getUnknownSymbols() {
+        return Set.copyOf(unknownSymbols);
+    }
+    
+    public int getQuoteBatchSize() {
+        return quoteBatchSize;
+    }
+    
+    public double getQuoteRateLimit() {
+        return quoteRateLimit;
+    }
+    
+    private void fetchQuoteBatch(List<String> symbols, String token, Map<String, Map<String, Object>> quotes) {
+        try {
+            quoteRateLimiter.acquire();
+            
+            String url = baseUrl + "/rest/secure/angelbroking/market/v1/quote/";
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Authorization", "Bearer " + token);
+            headers.set("Accept", "application/json");
+            headers.set("X-UserType", "USER");
+            headers.set("X-SourceID", "WEB");
+            headers.set("X-ClientLocalIP", "192.168.1.1");
+            headers.set("X-ClientPublicIP", "106.193.147.98");
+            headers.set("X-MACAddress", "fe80::216:3eff:fe00:1");
+            headers.set("X-PrivateKey", clientSecret);
+            
+            List<String> tokens = new ArrayList<>(symbols.size());
+            for (String symbol : symbols) {
+                tokens.add(getSymbolToken(symbol));
+            }
+            
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("mode", "FULL");
+            requestBody.put("exchangeTokens", Map.of("NSE", tokens));
+            
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+            
+            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+            
+            if (response.getStatusCode() == HttpStatus.OK) {
+                JsonNode responseJson = objectMapper.readTree(response.getBody());
+                
+                if (responseJson.get("status").asBoolean()) {
+                    for (JsonNode data : responseJson.get("data").get("fetched")) {
+                        String symbol = TOKEN_SYMBOLS.get(data.get("symbolToken").asText());
+                        if (symbol == null) {
+                            continue;
+                        }
+                        
+                        Map<String, Object> marketData = new HashMap<>();
+                        marketData.put("symbol", symbol);
+                        marketData.put("ltp", new BigDecimal(data.get("ltp").asText()));
+                        marketData.put("open", new BigDecimal(data.get("open").asText()));
+                        marketData.put("high", new BigDecimal(data.get("high").asText()));
+                        marketData.put("low", new BigDecimal(data.get("low").asText()));
+                        marketData.put("close", new BigDecimal(data.get("close").asText()));
+                        marketData.put("volume", data.get("tradeVolume").asLong());
+                        quotes.put(symbol, marketData);
+                    }
+                } else {
+                    log.error("Angel One quote request failed: {}", responseJson.get("message").asText());
+                }
+            }
+            
+        } catch (Exception e) {
+            log.error("Error fetching quotes for {} symbols: {}", symbols.size(), e.getMessage());
+        }
+    }
+    
+    public String getSymbolToken(String symbol) {
+        // Angel One symbol tokens - these need to be fetched from their master contract API
+        return SYMBOL_TOKENS.getOrDefault(symbol, "0");
+    }
+    
+    public boolean hasSymbolToken(String symbol) {
+        return SYMBOL_TOKENS.containsKey(symbol);
+    }
+    
+    public String getTokenSymbol(String token) {
+        return TOKEN_SYMBOLS.get(token);
     }
     
     // Fallback simulation methods
     private boolean simulateAuthentication(User user) {
+        if (!simulationEnabled) {
+            return false;
+        }
         log.info("Simulating Angel One authentication for user: {}", user.getEmail());
-        userTokens.put(user.getId(), "SIMULATED_TOKEN_" + System.currentTimeMillis());
+        brokerSessionManager.putSimulatedSession(user.getId());
         return true;
     }
     
@@ -311,9 +475,9 @@ public class AngelOneApiService {
             log.info("Simulating trade execution for: {} {} {} @ {}",
                     trade.getType(), trade.getQuantity(), trade.getSymbol(), trade.getPrice());
             
-            Thread.sleep(100);
+            Thread.sleep(simulatedOrderLatencyMillis);
             trade.setAngelOneOrderId("SIM" + System.currentTimeMillis());
-            return Math.random() > 0.05; // 95% success rate
+            return Math.random() >= simulatedOrderRejectRate;
             
         } catch (Exception e) {
             log.error("Error in trade simulation", e);
@@ -324,8 +488,8 @@ public class AngelOneApiService {
     private boolean simulateTradeClose(Trade trade) {
         try {
             log.info("Simulating trade closure for: {}", trade.getAngelOneOrderId());
-            Thread.sleep(100);
-            return Math.random() > 0.02; // 98% success rate
+            Thread.sleep(simulatedOrderLatencyMillis);
+            return Math.random() >= simulatedExitRejectRate;
         } catch (Exception e) {
             return false;
         }
@@ -356,7 +520,7 @@ public class AngelOneApiService {
     }
     
     public void disconnectUser(Long userId) {
-        userTokens.remove(userId);
+        brokerSessionManager.invalidate(userId);
         log.info("Disconnected Angel One session for user: {}", userId);
     }
 }
\ No newline at end of file
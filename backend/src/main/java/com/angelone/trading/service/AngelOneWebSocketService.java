@@ -1,184 +1,267 @@
 package com.angelone.trading.service;
 
 import com.angelone.trading.entity.MarketData;
+import com.angelone.trading.jfr.TickDecodedEvent;
+import com.angelone.trading.repository.MarketDataRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import javax.websocket.*;
-import java.io.IOException;
-import java.math.BigDecimal;
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Feed manager for the Angel One Smart Stream. Subscriptions are sharded over
+ * as many {@link FeedConnection}s as the per-connection token cap requires,
+ * new tokens go to the quietest shard, and hot tokens are periodically moved
+ * off the busiest one. Each shard decodes on its own thread straight into a
+ * {@link TickRingBuffer}, merged into one stream that stays ordered per symbol
+ * even while a token moves; downstream work happens on the ring's consumers.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@ClientEndpoint
-public class AngelOneWebSocketService {
+public class AngelOneWebSocketService implements FeedConnection.Listener {
     
     @Value("${angelone.api.websocket-url}")
     private String websocketUrl;
     
+    @Value("${angelone.api.client-secret}")
+    private String apiKey;
+    
+    @Value("${angelone.feed.reconnect.initial-delay:500}")
+    private long reconnectInitialDelayMillis;
+    
+    @Value("${angelone.feed.reconnect.max-delay:30000}")
+    private long reconnectMaxDelayMillis;
+    
+    @Value("${angelone.feed.heartbeat-interval:25000}")
+    private long heartbeatIntervalMillis;
+    
+    @Value("${angelone.feed.stale-timeout:35000}")
+    private long staleTimeoutMillis;
+    
+    @Value("${angelone.feed.subscribe-batch-size:500}")
+    private int subscribeBatchSize;
+    
+    @Value("${angelone.feed.decode-queue-size:8192}")
+    private int decodeQueueSize;
+    
+    @Value("${angelone.feed.tokens-per-connection:1000}")
+    private int tokensPerConnection;
+    
+    @Value("${angelone.feed.max-connections:3}")
+    private int maxConnections;
+    
+    @Value("${angelone.feed.rebalance-interval:30000}")
+    private long rebalanceIntervalMillis;
+    
+    @Value("${angelone.feed.rebalance-threshold:0.25}")
+    private double rebalanceThreshold;
+    
+    @Value("${angelone.feed.ring.size:65536}")
+    private int ringSize;
+    
+    @Value("${angelone.feed.ring.wait-strategy:SLEEPING}")
+    private TickRingBuffer.WaitStrategy waitStrategy;
+    
+    @Value("${angelone.feed.persist-interval:5000}")
+    private long persistIntervalMillis;
+    
     private final SimpMessagingTemplate messagingTemplate;
-    private final MarketDataService marketDataService;
+    private final TradeTriggerService tradeTriggerService;
+    private final MarketDataRepository marketDataRepository;
+    private final AngelOneApiService angelOneApiService;
+    private final FeedRecorder feedRecorder;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final QuoteSnapshotStore quoteSnapshotStore;
+    private final TradingMetrics tradingMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
-    private Session session;
     private final Map<String, String> subscribedSymbols = new ConcurrentHashMap<>();
-    private boolean isConnected = false;
+    private final Map<String, SymbolFeed> symbolFeeds = new ConcurrentHashMap<>();
+    private final List<FeedConnection> connections = new CopyOnWriteArrayList<>();
     
-    public void connect(String authToken, String clientId) {
-        try {
-            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-            
-            // Add authentication headers
-            Map<String, List<String>> headers = new HashMap<>();
-            headers.put("Authorization", Arrays.asList("Bearer " + authToken));
-            headers.put("x-client-code", Arrays.asList(clientId));
-            headers.put("x-feed-token", Arrays.asList(authToken));
-            
-            ClientEndpointConfig config = ClientEndpointConfig.Builder.create()
-                    .configurator(new ClientEndpointConfig.Configurator() {
-                        @Override
-                        public void beforeRequest(Map<String, List<String>> requestHeaders) {
-                            requestHeaders.putAll(headers);
-                        }
-                    })
-                    .build();
-            
-            URI uri = URI.create(websocketUrl);
-            session = container.connectToServer(this, config, uri);
-            
-            log.info("Connected to Angel One WebSocket");
-            
-        } catch (Exception e) {
-            log.error("Error connecting to Angel One WebSocket: {}", e.getMessage());
-            // Start simulation mode as fallback
-            startSimulationMode();
-        }
-    }
+    // One scheduler owns reconnects, heartbeats and rebalancing
+    private ScheduledExecutorService supervisor;
+    
+    // Guards connection and shard ownership changes. disconnect closes the sessions under it,
+    // and a socket close inside synchronized would pin a virtual-thread caller to its carrier
+    private final ReentrantLock feedLock = new ReentrantLock();
+    
+    @Autowired
+    @Lazy
+    private MarketSimulator marketSimulator;
+    
+    // Decode threads publish here; broadcast, risk, persistence and snapshot each consume at their own pace
+    private TickRingBuffer tickBuffer;
+    // Latest tick per symbol, filled by the persistence consumer and drained by the writer
+    private final Map<String, MarketData> latestTicks = new ConcurrentHashMap<>();
+    // Own thread, so a slow database never holds the ring back or delays heartbeats
+    private ScheduledExecutorService marketDataWriter;
+    private volatile boolean firstTickProcessed;
     
-    @OnOpen
-    public void onOpen(Session session) {
-        log.info("Angel One WebSocket connection opened");
-        this.session = session;
-        this.isConnected = true;
+    private volatile Map<String, List<String>> headers;
+    private volatile boolean shouldBeConnected = false;
+    
+    private final AtomicLong ticksReceived = new AtomicLong();
+    private final AtomicLong staleTicksDropped = new AtomicLong();
+    private final AtomicLong rebalanceMoves = new AtomicLong();
+    private long rateWindowStart = System.nanoTime();
+    
+    @PostConstruct
+    public void init() {
+        tickBuffer = new TickRingBuffer(ringSize, waitStrategy);
+        tickBuffer.addConsumer("broadcast", this::broadcast);
+        tickBuffer.addConsumer("risk", this::checkTriggers);
+        tickBuffer.addConsumer("persistence", this::persist);
+        tickBuffer.addConsumer("snapshot", this::snapshot);
+        tickBuffer.start();
+        
+        tradingMetrics.monitor("trading.feed.ticks", "Ticks decoded from the feed", ticksReceived, AtomicLong::get);
+        tradingMetrics.monitor("trading.feed.ticks.stale", "Out-of-order ticks discarded", staleTicksDropped, AtomicLong::get);
+        tradingMetrics.monitor("trading.feed.ticks.dropped", "Ticks dropped on a full ring buffer", tickBuffer,
+                TickRingBuffer::getDropped);
         
-        // Send connection acknowledgment
-        sendConnectionAck();
+        AtomicInteger threadCount = new AtomicInteger();
+        supervisor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "angelone-feed-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        supervisor.scheduleAtFixedRate(this::heartbeat, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        supervisor.scheduleAtFixedRate(this::rebalance, rebalanceIntervalMillis, rebalanceIntervalMillis, TimeUnit.MILLISECONDS);
+        
+        marketDataWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "angelone-feed-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        marketDataWriter.scheduleWithFixedDelay(this::writeLatestTicks, persistIntervalMillis, persistIntervalMillis,
+                TimeUnit.MILLISECONDS);
     }
     
-    @OnMessage
-    public void onMessage(String message) {
+    @PreDestroy
+    public void shutdown() {
+        disconnect();
+        supervisor.shutdownNow();
+        tickBuffer.stop();
+        marketDataWriter.shutdown();
         try {
-            log.debug("Received text message: {}", message);
-            processTextMessage(message);
-        } catch (Exception e) {
-            log.error("Error processing text message: {}", e.getMessage());
+            marketDataWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        writeLatestTicks();
     }
     
-    @OnMessage
-    public void onMessage(ByteBuffer message) {
+    public void connect(String authToken, String feedToken, String clientId) {
+        feedLock.lock();
         try {
-            log.debug("Received binary message of size: {}", message.remaining());
-            processBinaryMessage(message);
-        } catch (Exception e) {
-            log.error("Error processing binary message: {}", e.getMessage());
-        }
-    }
-    
-    @OnClose
-    public void onClose(Session session, CloseReason closeReason) {
-        log.info("Angel One WebSocket connection closed: {}", closeReason.getReasonPhrase());
-        this.isConnected = false;
-        this.session = null;
-        
-        // Attempt to reconnect after delay
-        scheduleReconnect();
-    }
-    
-    @OnError
-    public void onError(Session session, Throwable throwable) {
-        log.error("Angel One WebSocket error: {}", throwable.getMessage());
-        
-        // Fallback to simulation mode
-        if (!isConnected) {
-            startSimulationMode();
+            // Add authentication headers
+            Map<String, List<String>> authHeaders = new HashMap<>();
+            authHeaders.put("Authorization", Arrays.asList("Bearer " + authToken));
+            authHeaders.put("x-api-key", Arrays.asList(apiKey));
+            authHeaders.put("x-client-code", Arrays.asList(clientId));
+            authHeaders.put("x-feed-token", Arrays.asList(feedToken != null ? feedToken : authToken));
+            
+            this.headers = authHeaders;
+            this.shouldBeConnected = true;
+            
+            if (connections.isEmpty()) {
+                newConnection();
+            }
+            for (FeedConnection connection : connections) {
+                connection.open(authHeaders);
+            }
+        } finally {
+            feedLock.unlock();
         }
     }
     
     public void subscribeToSymbol(String symbol, String token) {
-        if (!isConnected) {
-            log.warn("WebSocket not connected, cannot subscribe to {}", symbol);
-            return;
-        }
+        // Remember every subscription so it is replayed after a reconnect
+        subscribedSymbols.put(symbol, token);
         
+        feedLock.lock();
         try {
-            // Angel One subscription message format
-            Map<String, Object> subscriptionMessage = new HashMap<>();
-            subscriptionMessage.put("a", "subscribe");
-            subscriptionMessage.put("v", Arrays.asList(Arrays.asList("nse_cm", token)));
-            subscriptionMessage.put("m", "compact_marketdata");
-            
-            String message = objectMapper.writeValueAsString(subscriptionMessage);
-            session.getAsyncRemote().sendText(message);
-            
-            subscribedSymbols.put(symbol, token);
-            log.info("Subscribed to symbol: {} with token: {}", symbol, token);
+            SymbolFeed feed = symbolFeeds.computeIfAbsent(token, key -> new SymbolFeed(symbol));
+            if (feed.owner != null) {
+                return;
+            }
             
-        } catch (Exception e) {
-            log.error("Error subscribing to symbol {}: {}", symbol, e.getMessage());
+            FeedConnection connection = quietestWithCapacity();
+            if (connection == null) {
+                log.warn("All {} feed connections are full, not subscribing to {}", maxConnections, symbol);
+                symbolFeeds.remove(token);
+                subscribedSymbols.remove(symbol);
+                return;
+            }
+            feed.owner = connection;
+            connection.subscribe(List.of(token));
+            log.info("Subscribed to symbol: {} with token: {} on feed connection {}", symbol, token, connection.getId());
+        } finally {
+            feedLock.unlock();
         }
     }
     
     public void unsubscribeFromSymbol(String symbol) {
-        String token = subscribedSymbols.get(symbol);
-        if (token == null || !isConnected) {
+        String token = subscribedSymbols.remove(symbol);
+        if (token == null) {
             return;
         }
         
-        try {
-            Map<String, Object> unsubscriptionMessage = new HashMap<>();
-            unsubscriptionMessage.put("a", "unsubscribe");
-            unsubscriptionMessage.put("v", Arrays.asList(Arrays.asList("nse_cm", token)));
-            unsubscriptionMessage.put("m", "compact_marketdata");
-            
-            String message = objectMapper.writeValueAsString(unsubscriptionMessage);
-            session.getAsyncRemote().sendText(message);
-            
-            subscribedSymbols.remove(symbol);
+        SymbolFeed feed = symbolFeeds.remove(token);
+        if (feed != null && feed.owner != null) {
+            feed.owner.unsubscribe(List.of(token));
             log.info("Unsubscribed from symbol: {}", symbol);
-            
-        } catch (Exception e) {
-            log.error("Error unsubscribing from symbol {}: {}", symbol, e.getMessage());
         }
     }
     
-    private void sendConnectionAck() {
-        try {
-            Map<String, Object> ackMessage = new HashMap<>();
-            ackMessage.put("a", "connect");
-            ackMessage.put("v", Arrays.asList("compact_marketdata"));
-            ackMessage.put("m", "connect");
-            
-            String message = objectMapper.writeValueAsString(ackMessage);
-            session.getAsyncRemote().sendText(message);
-            
-        } catch (Exception e) {
-            log.error("Error sending connection acknowledgment: {}", e.getMessage());
+    @Override
+    public void onConnected(FeedConnection connection) {
+        // Real ticks and simulated ones must never feed the consumers together
+        stopSimulationMode();
+    }
+    
+    @Override
+    public void onDisconnected(FeedConnection connection) {
+        // The simulator only runs when configured; during an outage the REST poller keeps quotes fresh
+        if (!isConnected()) {
+            log.warn("All feed connections are down, quotes fall back to REST polling until one reconnects");
         }
     }
     
-    private void processTextMessage(String message) {
+    @Override
+    public void onText(FeedConnection connection, String message, long receivedAtNanos) {
+        decodeText(connection, message, receivedAtNanos, false);
+    }
+    
+    @Override
+    public void onBinary(FeedConnection connection, ByteBuffer buffer, long receivedAtNanos) {
+        decodeBinary(connection, buffer, receivedAtNanos, false);
+    }
+    
+    private void decodeText(FeedConnection connection, String message, long receivedAtNanos, boolean replayed) {
+        TickDecodedEvent decoded = new TickDecodedEvent();
+        decoded.begin();
         try {
             JsonNode messageJson = objectMapper.readTree(message);
             
@@ -189,7 +272,12 @@ public class AngelOneWebSocketService {
             
             // Process market data updates
             if (messageJson.has("tk")) {
-                processMarketDataUpdate(messageJson);
+                tickBuffer.publish(event -> TickDecoder.decodeJson(messageJson, event)
+                        && resolve(connection, event, receivedAtNanos, replayed, decoded));
+                decoded.commit();
+                if (tradingMetrics.sampleTick()) {
+                    tradingMetrics.recordDecode(receivedAtNanos);
+                }
             }
             
         } catch (Exception e) {
@@ -197,130 +285,370 @@ public class AngelOneWebSocketService {
         }
     }
     
-    private void processBinaryMessage(ByteBuffer buffer) {
+    private void decodeBinary(FeedConnection connection, ByteBuffer buffer, long receivedAtNanos, boolean replayed) {
+        TickDecodedEvent decoded = new TickDecodedEvent();
+        decoded.begin();
+        decoded.binary = true;
+        tickBuffer.publish(event -> TickDecoder.decodeBinary(buffer, event)
+                && resolve(connection, event, receivedAtNanos, replayed, decoded));
+        decoded.commit();
+        if (tradingMetrics.sampleTick()) {
+            tradingMetrics.recordDecode(receivedAtNanos);
+        }
+    }
+    
+    /**
+     * Feeds a synthetic text frame through the same decode path and consumers as a live shard.
+     */
+    public void injectText(String message) {
+        decodeText(null, message, System.nanoTime(), false);
+    }
+    
+    public void injectBinary(ByteBuffer frame) {
+        decodeBinary(null, frame, System.nanoTime(), false);
+    }
+    
+    /**
+     * Feeds a recorded frame through the decode path. Replayed ticks are only
+     * broadcast: exit triggers, the quote snapshot and market_data ignore them,
+     * so replaying an old session cannot close positions or rewrite live prices.
+     */
+    public void replayText(String message) {
+        decodeText(null, message, System.nanoTime(), true);
+    }
+    
+    public void replayBinary(ByteBuffer frame) {
+        decodeBinary(null, frame, System.nanoTime(), true);
+    }
+    
+    /**
+     * Starts the ordering of injected frames afresh, so a replay is not held back by
+     * the timestamps of an earlier one. Live ticks keep their own ordering.
+     */
+    public void resetInjectedOrdering() {
+        symbolFeeds.values().forEach(SymbolFeed::resetInjected);
+    }
+    
+    /**
+     * Maps a token to its symbol for injected frames without subscribing on the broker feed.
+     */
+    public void registerSymbol(String symbol, String token) {
+        symbolFeeds.computeIfAbsent(token, key -> new SymbolFeed(symbol));
+    }
+    
+    /**
+     * Runs on the shard's decode thread while it holds a ring slot: maps the token
+     * to its symbol and applies the per-symbol ordering guard. Injected frames
+     * ({@code connection == null}) may carry tokens nobody subscribed to.
+     */
+    private boolean resolve(FeedConnection connection, TickEvent event, long receivedAtNanos, boolean replayed,
+                            TickDecodedEvent decoded) {
+        event.frameReceivedAtNanos = receivedAtNanos;
+        event.replayed = replayed;
+        decoded.token = event.getToken();
+        decoded.exchangeTimestamp = event.getExchangeTimestamp();
+        SymbolFeed feed = symbolFeeds.get(event.getToken());
+        if (feed == null && connection == null) {
+            String symbol = angelOneApiService.getTokenSymbol(event.getToken());
+            feed = symbolFeeds.computeIfAbsent(event.getToken(),
+                    token -> new SymbolFeed(symbol != null ? symbol : token));
+        }
+        if (feed == null) {
+            return false;
+        }
+        
+        if (!feed.accept(connection, event.getExchangeTimestamp())) {
+            staleTicksDropped.incrementAndGet();
+            return false;
+        }
+        event.symbol = feed.symbol;
+        decoded.symbol = feed.symbol;
+        decoded.accepted = true;
+        ticksReceived.incrementAndGet();
+        return true;
+    }
+    
+    private void broadcast(TickEvent event, long sequence, boolean endOfBatch) {
+        MarketData marketData = event.toMarketData();
+        
+        // Broadcast to internal WebSocket
+        messagingTemplate.convertAndSend("/topic/market-data/" + event.getSymbol(), marketData);
+        messagingTemplate.convertAndSend("/topic/market-data/all", marketData);
+        
+        if (tradingMetrics.sampleTick(sequence)) {
+            tradingMetrics.recordBroadcast(event.getFrameReceivedAtNanos());
+        }
+    }
+    
+    private void checkTriggers(TickEvent event, long sequence, boolean endOfBatch) {
+        if (event.isReplayed()) {
+            return;
+        }
+        tradeTriggerService.onTick(event.getSymbol(), event.lastPrice());
+        
+        if (tradingMetrics.sampleTick(sequence)) {
+            tradingMetrics.recordRiskCheck(event.getFrameReceivedAtNanos());
+        }
+    }
+    
+    private void snapshot(TickEvent event, long sequence, boolean endOfBatch) {
+        if (event.isReplayed()) {
+            return;
+        }
+        quoteSnapshotStore.update(event);
+        if (!firstTickProcessed) {
+            // Only this consumer's thread writes the flag
+            firstTickProcessed = true;
+            log.info("First tick processed {} ms after JVM start", tradingMetrics.recordStartup("first-tick"));
+        }
+    }
+    
+    /**
+     * Keeps the latest tick per symbol for {@link #writeLatestTicks()}; the
+     * consumer itself never touches the database.
+     */
+    private void persist(TickEvent event, long sequence, boolean endOfBatch) {
+        if (event.isReplayed()) {
+            return;
+        }
+        latestTicks.put(event.getSymbol(), event.toMarketData());
+    }
+    
+    /**
+     * Writes the latest tick of every symbol that ticked since the last run in
+     * one batch, once per persist interval, so strategies see live prices
+     * without a row per tick. Being timed rather than tick-driven, the last
+     * ticks of a symbol that goes quiet are written too.
+     */
+    private void writeLatestTicks() {
+        if (latestTicks.isEmpty()) {
+            return;
+        }
+        
+        List<MarketData> batch = new ArrayList<>(latestTicks.size());
+        List<String> symbols = new ArrayList<>(latestTicks.size());
+        for (String symbol : latestTicks.keySet()) {
+            // A tick arriving after the remove waits for the next run
+            MarketData latest = latestTicks.remove(symbol);
+            if (latest != null) {
+                batch.add(latest);
+                symbols.add(symbol);
+            }
+        }
+        
         try {
-            // Angel One sends binary data in a specific format
-            // This is a simplified parser - you'll need to implement the full binary protocol
-            
-            byte[] data = new byte[buffer.remaining()];
-            buffer.get(data);
-            
-            // Parse binary market data format
-            // Format: [token][ltp][volume][timestamp]...
-            
-            log.debug("Processing binary market data of {} bytes", data.length);
-            
+            marketDataRepository.saveAll(batch);
+            tradingMetrics.dbWrites("market_data", batch.size());
+            cacheInvalidationService.marketDataWritten(symbols);
         } catch (Exception e) {
-            log.error("Error processing binary message: {}", e.getMessage());
+            log.error("Error writing {} latest ticks to market_data: {}", batch.size(), e.getMessage());
+        }
+    }
+    
+    private void heartbeat() {
+        for (FeedConnection connection : connections) {
+            connection.heartbeat();
         }
     }
     
-    private void processMarketDataUpdate(JsonNode data) {
+    /**
+     * Moves one token from the busiest shard to the quietest when their tick
+     * rates drift apart. The token is subscribed on the new shard before it is
+     * dropped from the old one; the per-symbol guard discards the overlap.
+     */
+    private void rebalance() {
+        feedLock.lock();
         try {
-            String token = data.get("tk").asText();
-            String symbol = getSymbolFromToken(token);
-            
-            if (symbol == null) {
+            updateTokenRates();
+            if (connections.size() < 2) {
                 return;
             }
             
-            MarketData marketData = new MarketData();
-            marketData.setSymbol(symbol);
-            marketData.setClose(new BigDecimal(data.get("lp").asText())); // Last price
-            marketData.setOpen(new BigDecimal(data.get("o").asText()));
-            marketData.setHigh(new BigDecimal(data.get("h").asText()));
-            marketData.setLow(new BigDecimal(data.get("l").asText()));
-            marketData.setVolume(data.get("v").asLong());
-            marketData.setTimestamp(LocalDateTime.now());
-            marketData.setTimeFrame("1m");
-            
-            // Calculate change
-            BigDecimal change = marketData.getClose().subtract(marketData.getOpen());
-            marketData.setChange(change);
+            Map<FeedConnection, Double> load = connectionLoad();
+            FeedConnection busiest = Collections.max(load.entrySet(), Map.Entry.comparingByValue()).getKey();
+            FeedConnection quietest = quietestWithCapacity();
+            if (quietest == null || quietest == busiest) {
+                return;
+            }
             
-            if (marketData.getOpen().compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal changePercent = change.divide(marketData.getOpen(), 4, BigDecimal.ROUND_HALF_UP)
-                        .multiply(BigDecimal.valueOf(100));
-                marketData.setChangePercent(changePercent);
+            double gap = load.get(busiest) - load.getOrDefault(quietest, 0d);
+            if (gap <= load.get(busiest) * rebalanceThreshold) {
+                return;
             }
             
-            // Broadcast to internal WebSocket
-            messagingTemplate.convertAndSend("/topic/market-data/" + symbol, marketData);
-            messagingTemplate.convertAndSend("/topic/market-data/all", marketData);
+            // The best single move shifts half the gap
+            String candidate = null;
+            double bestDistance = Double.MAX_VALUE;
+            for (Map.Entry<String, SymbolFeed> entry : symbolFeeds.entrySet()) {
+                SymbolFeed feed = entry.getValue();
+                double distance = Math.abs(feed.ratePerSecond - gap / 2);
+                if (feed.owner == busiest && feed.ratePerSecond > 0 && feed.ratePerSecond < gap && distance < bestDistance) {
+                    candidate = entry.getKey();
+                    bestDistance = distance;
+                }
+            }
+            if (candidate == null) {
+                return;
+            }
             
-            log.debug("Processed market data update for {}: {}", symbol, marketData.getClose());
+            quietest.subscribe(List.of(candidate));
+            symbolFeeds.get(candidate).owner = quietest;
+            busiest.unsubscribe(List.of(candidate));
+            rebalanceMoves.incrementAndGet();
             
+            log.info("Moved token {} from feed connection {} to {}", candidate, busiest.getId(), quietest.getId());
         } catch (Exception e) {
-            log.error("Error processing market data update: {}", e.getMessage());
+            log.error("Error rebalancing feed connections", e);
+        } finally {
+            feedLock.unlock();
         }
     }
     
-    private String getSymbolFromToken(String token) {
-        // Reverse lookup from token to symbol
-        for (Map.Entry<String, String> entry : subscribedSymbols.entrySet()) {
-            if (entry.getValue().equals(token)) {
-                return entry.getKey();
-            }
+    private void updateTokenRates() {
+        long now = System.nanoTime();
+        double seconds = (now - rateWindowStart) / 1_000_000_000d;
+        rateWindowStart = now;
+        if (seconds <= 0) {
+            return;
+        }
+        
+        for (SymbolFeed feed : symbolFeeds.values()) {
+            double rate = feed.ticks.getAndSet(0) / seconds;
+            feed.ratePerSecond = feed.ratePerSecond == 0 ? rate : 0.7 * feed.ratePerSecond + 0.3 * rate;
         }
-        return null;
     }
     
-    private void scheduleReconnect() {
-        // Implement reconnection logic with exponential backoff
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (!isConnected) {
-                    log.info("Attempting to reconnect to Angel One WebSocket...");
-                    // Reconnection logic would go here
-                }
+    private Map<FeedConnection, Double> connectionLoad() {
+        Map<FeedConnection, Double> load = new HashMap<>();
+        connections.forEach(connection -> load.put(connection, 0d));
+        symbolFeeds.values().forEach(feed -> {
+            if (feed.owner != null) {
+                load.merge(feed.owner, feed.ratePerSecond, Double::sum);
             }
-        }, 5000); // Retry after 5 seconds
+        });
+        return load;
     }
     
-    private void startSimulationMode() {
-        log.info("Starting Angel One WebSocket simulation mode");
+    private FeedConnection quietestWithCapacity() {
+        Map<FeedConnection, Double> load = connectionLoad();
         
-        // Start a timer to generate simulated market data
-        Timer simulationTimer = new Timer("AngelOneSimulation", true);
-        simulationTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                generateSimulatedMarketData();
+        FeedConnection quietest = null;
+        for (FeedConnection connection : connections) {
+            boolean hasCapacity = connection.getTokenCount() < tokensPerConnection;
+            if (hasCapacity && (quietest == null || load.get(connection) < load.get(quietest))) {
+                quietest = connection;
             }
-        }, 0, 2000); // Every 2 seconds
-    }
-    
-    private void generateSimulatedMarketData() {
-        String[] symbols = {"NIFTY", "BANKNIFTY", "RELIANCE", "TCS", "INFY"};
+        }
         
-        for (String symbol : symbols) {
-            try {
-                MarketData marketData = marketDataService.generateMarketData(symbol);
-                
-                // Broadcast simulated data
-                messagingTemplate.convertAndSend("/topic/market-data/" + symbol, marketData);
-                messagingTemplate.convertAndSend("/topic/market-data/all", marketData);
-                
-            } catch (Exception e) {
-                log.error("Error generating simulated data for {}: {}", symbol, e.getMessage());
+        if (quietest == null && connections.size() < maxConnections) {
+            quietest = newConnection();
+            if (shouldBeConnected) {
+                quietest.open(headers);
             }
         }
+        return quietest;
+    }
+    
+    private FeedConnection newConnection() {
+        FeedConnection connection = new FeedConnection(connections.size() + 1, URI.create(websocketUrl),
+                reconnectInitialDelayMillis, reconnectMaxDelayMillis, staleTimeoutMillis, subscribeBatchSize,
+                decodeQueueSize, supervisor, feedRecorder, this);
+        connections.add(connection);
+        return connection;
+    }
+    
+    private void stopSimulationMode() {
+        if (marketSimulator.isRunning()) {
+            marketSimulator.stop();
+            log.info("Stopped Angel One WebSocket simulation mode");
+        }
     }
     
     public void disconnect() {
-        if (session != null && session.isOpen()) {
-            try {
-                session.close();
-            } catch (IOException e) {
-                log.error("Error closing Angel One WebSocket connection: {}", e.getMessage());
+        feedLock.lock();
+        try {
+            shouldBeConnected = false;
+            
+            for (FeedConnection connection : connections) {
+                connection.close();
             }
+            connections.clear();
+            subscribedSymbols.clear();
+            symbolFeeds.clear();
+        } finally {
+            feedLock.unlock();
         }
-        isConnected = false;
-        subscribedSymbols.clear();
     }
     
     public boolean isConnected() {
-        return isConnected && session != null && session.isOpen();
+        return connections.stream().anyMatch(FeedConnection::isConnected);
+    }
+    
+    /**
+     * True while the market simulator is the tick source.
+     */
+    public boolean isSimulating() {
+        return marketSimulator.isRunning();
+    }
+    
+    public Map<String, Object> getFeedStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connected", isConnected());
+        stats.put("subscriptions", subscribedSymbols.size());
+        stats.put("ticksReceived", ticksReceived.get());
+        stats.put("staleTicksDropped", staleTicksDropped.get());
+        stats.put("rebalanceMoves", rebalanceMoves.get());
+        stats.put("reconnects", connections.stream().mapToLong(FeedConnection::getReconnects).sum());
+        stats.put("ticksLostDuringGaps", connections.stream().mapToLong(FeedConnection::getTicksLostDuringGaps).sum());
+        stats.put("framesCoalesced", connections.stream().mapToLong(FeedConnection::getFramesCoalesced).sum());
+        stats.put("framesDropped", connections.stream().mapToLong(FeedConnection::getFramesDropped).sum());
+        
+        List<Map<String, Object>> shards = new ArrayList<>();
+        connections.forEach(connection -> shards.add(connection.getStats()));
+        stats.put("connections", shards);
+        stats.put("pipeline", tickBuffer.getStats());
+        return stats;
+    }
+    
+    /**
+     * Per-token merge state. A token is only decoded by its owning shard,
+     * except briefly while it moves, so the guard is practically uncontended.
+     * Injected frames (replay, simulator) are ordered separately from live ones,
+     * so neither can hold the other back.
+     */
+    private static final class SymbolFeed {
+        private final String symbol;
+        private final AtomicLong ticks = new AtomicLong();
+        private volatile FeedConnection owner;
+        private volatile double ratePerSecond;
+        private long lastExchangeTime = Long.MIN_VALUE;
+        private long lastInjectedTime = Long.MIN_VALUE;
+        
+        private SymbolFeed(String symbol) {
+            this.symbol = symbol;
+        }
+        
+        synchronized boolean accept(FeedConnection source, long exchangeTime) {
+            if (source == null) {
+                if (exchangeTime < lastInjectedTime) {
+                    return false;
+                }
+                lastInjectedTime = exchangeTime;
+                ticks.incrementAndGet();
+                return true;
+            }
+            
+            // Older ticks are always stale; equal ones only count from the current owner
+            if (exchangeTime < lastExchangeTime || (exchangeTime == lastExchangeTime && source != owner)) {
+                return false;
+            }
+            lastExchangeTime = exchangeTime;
+            ticks.incrementAndGet();
+            return true;
+        }
+        
+        synchronized void resetInjected() {
+            lastInjectedTime = Long.MIN_VALUE;
+        }
     }
-}
\ No newline at end of file
+}
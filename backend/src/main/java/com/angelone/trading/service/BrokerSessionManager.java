@@ -0,0 +1,324 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.jfr.BrokerHttpEventInterceptor;
+import com.angelone.trading.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Owns the Angel One JWT/feed tokens of every user. Sessions are cached in
+ * memory, persisted on the user row so a restart does not log everyone in
+ * again, and refreshed in the background before they expire, so order
+ * placement only ever reads a cached token.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BrokerSessionManager {
+    
+    private static final String SIMULATED_TOKEN_PREFIX = "SIMULATED_TOKEN_";
+    
+    @Value("${angelone.api.base-url}")
+    private String baseUrl;
+    
+    @Value("${angelone.api.client-secret}")
+    private String clientSecret;
+    
+    @Value("${angelone.api.simulation.enabled:false}")
+    private boolean simulationEnabled;
+    
+    @Value("${angelone.api.session.default-ttl:86400000}")
+    private long defaultTtlMillis;
+    
+    @Value("${angelone.api.session.refresh-ahead:900000}")
+    private long refreshAheadMillis;
+    
+    private final UserRepository userRepository;
+    private final TaskExecutors taskExecutors;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private final Map<Long, BrokerSession> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<BrokerSession>> inFlight = new ConcurrentHashMap<>();
+    private ExecutorService sessionExecutor;
+    
+    @Getter
+    @AllArgsConstructor
+    public static class BrokerSession {
+        private final String jwtToken;
+        private final String refreshToken;
+        private final String feedToken;
+        private final Instant expiresAt;
+        
+        public boolean isSimulated() {
+            return jwtToken.startsWith(SIMULATED_TOKEN_PREFIX);
+        }
+        
+        public boolean isExpired() {
+            return !Instant.now().isBefore(expiresAt);
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        restTemplate.getInterceptors().add(new BrokerHttpEventInterceptor());
+        sessionExecutor = taskExecutors.newExecutor("broker-session-", 2);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sessionExecutor.shutdown();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void restorePersistedSessions() {
+        try {
+            List<User> users = userRepository.findByAngelOneRefreshTokenIsNotNull();
+            for (User user : users) {
+                if (user.getAngelOneToken() == null) {
+                    continue;
+                }
+                
+                Instant expiresAt = user.getAngelOneTokenExpiresAt() != null
+                        ? user.getAngelOneTokenExpiresAt().atZone(ZoneId.systemDefault()).toInstant()
+                        : tokenExpiry(user.getAngelOneToken());
+                sessions.put(user.getId(), new BrokerSession(user.getAngelOneToken(),
+                        user.getAngelOneRefreshToken(), user.getAngelOneFeedToken(), expiresAt));
+            }
+            log.info("Restored {} broker sessions", sessions.size());
+            
+            // Sessions that expired while we were down are refreshed in the background
+            refreshExpiringSessions();
+        } catch (Exception e) {
+            log.error("Error restoring broker sessions", e);
+        }
+    }
+    
+    /**
+     * Cached, unexpired session of the user, or null. Never blocks on the network.
+     */
+    public BrokerSession getSession(Long userId) {
+        BrokerSession session = sessions.get(userId);
+        return session == null || session.isExpired() ? null : session;
+    }
+    
+    public BrokerSession anySession() {
+        return sessions.values().stream()
+                .filter(session -> !session.isSimulated() && !session.isExpired())
+                .findFirst()
+                .orElse(null);
+    }
+    
+    /**
+     * Full password login. Returns false when Angel One rejects the credentials;
+     * transport errors are thrown to the caller.
+     */
+    public boolean login(User user) throws Exception {
+        String url = baseUrl + "/rest/auth/angelbroking/user/v1/loginByPassword";
+        
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("clientcode", user.getAngelOneClientId());
+        requestBody.put("password", user.getAngelOnePassword());
+        requestBody.put("totp", user.getAngelOneTotp());
+        
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, authHeaders(null));
+        ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+        
+        if (response.getStatusCode() == HttpStatus.OK) {
+            JsonNode responseJson = objectMapper.readTree(response.getBody());
+            
+            if (responseJson.get("status").asBoolean()) {
+                BrokerSession session = store(user.getId(), responseJson.get("data"));
+                user.setAngelOneToken(session.getJwtToken());
+                user.setAngelOneRefreshToken(session.getRefreshToken());
+                user.setAngelOneFeedToken(session.getFeedToken());
+                user.setAngelOneTokenExpiresAt(LocalDateTime.ofInstant(session.getExpiresAt(), ZoneId.systemDefault()));
+                
+                log.info("Successfully authenticated user with Angel One: {}", user.getEmail());
+                return true;
+            }
+            log.error("Angel One authentication failed: {}", responseJson.get("message").asText());
+        }
+        
+        return false;
+    }
+    
+    public void putSimulatedSession(Long userId) {
+        sessions.put(userId, new BrokerSession(SIMULATED_TOKEN_PREFIX + System.currentTimeMillis(),
+                null, null, Instant.now().plusMillis(defaultTtlMillis)));
+    }
+    
+    /**
+     * Logs the user in on a background thread. Concurrent callers share one login.
+     */
+    public CompletableFuture<BrokerSession> establishAsync(Long userId) {
+        return singleFlight(userId, () -> {
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null || user.getAngelOneClientId() == null || user.getAngelOnePassword() == null) {
+                if (!simulationEnabled) {
+                    return null;
+                }
+                putSimulatedSession(userId);
+            } else if (!login(user)) {
+                return null;
+            }
+            return sessions.get(userId);
+        });
+    }
+    
+    /**
+     * Exchanges the refresh token for a new JWT. Concurrent callers share one refresh.
+     */
+    public CompletableFuture<BrokerSession> refreshAsync(Long userId) {
+        return singleFlight(userId, () -> {
+            BrokerSession current = sessions.get(userId);
+            if (current == null || current.isSimulated() || current.getRefreshToken() == null) {
+                return current;
+            }
+            return refresh(userId, current);
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${angelone.api.session.refresh-check-interval:60000}")
+    public void refreshExpiringSessions() {
+        Instant threshold = Instant.now().plusMillis(refreshAheadMillis);
+        sessions.forEach((userId, session) -> {
+            if (!session.isSimulated() && session.getExpiresAt().isBefore(threshold)) {
+                refreshAsync(userId);
+            }
+        });
+    }
+    
+    public void invalidate(Long userId) {
+        sessions.remove(userId);
+    }
+    
+    private BrokerSession refresh(Long userId, BrokerSession current) throws Exception {
+        String url = baseUrl + "/rest/auth/angelbroking/jwt/v1/generateTokens";
+        
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("refreshToken", current.getRefreshToken());
+        
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, authHeaders(current.getJwtToken()));
+        ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+        
+        if (response.getStatusCode() == HttpStatus.OK) {
+            JsonNode responseJson = objectMapper.readTree(response.getBody());
+            if (responseJson.get("status").asBoolean()) {
+                log.info("Refreshed Angel One session for user: {}", userId);
+                return store(userId, responseJson.get("data"));
+            }
+            log.warn("Angel One token refresh failed for user {}: {}", userId, responseJson.get("message").asText());
+        }
+        
+        // Refresh token rejected: fall back to a full login off the order path
+        sessions.remove(userId, current);
+        User user = userRepository.findById(userId).orElse(null);
+        return user != null && user.getAngelOneClientId() != null && login(user) ? sessions.get(userId) : null;
+    }
+    
+    private BrokerSession store(Long userId, JsonNode data) {
+        String jwtToken = data.get("jwtToken").asText();
+        BrokerSession session = new BrokerSession(
+                jwtToken,
+                data.get("refreshToken").asText(),
+                data.hasNonNull("feedToken") ? data.get("feedToken").asText() : null,
+                tokenExpiry(jwtToken)
+        );
+        
+        sessions.put(userId, session);
+        userRepository.updateBrokerSession(userId, session.getJwtToken(), session.getRefreshToken(),
+                session.getFeedToken(), LocalDateTime.ofInstant(session.getExpiresAt(), ZoneId.systemDefault()));
+        // The bulk update bypasses the entity listener that evicts cached principals
+        userRepository.findEmailById(userId).ifPresent(cacheInvalidationService::userChanged);
+        return session;
+    }
+    
+    private CompletableFuture<BrokerSession> singleFlight(Long userId, SessionTask task) {
+        CompletableFuture<BrokerSession> created = new CompletableFuture<>();
+        CompletableFuture<BrokerSession> existing = inFlight.putIfAbsent(userId, created);
+        if (existing != null) {
+            return existing;
+        }
+        
+        sessionExecutor.execute(() -> {
+            try {
+                created.complete(task.run());
+            } catch (Exception e) {
+                log.error("Error establishing Angel One session for user {}: {}", userId, e.getMessage());
+                created.complete(null);
+            } finally {
+                inFlight.remove(userId, created);
+            }
+        });
+        return created;
+    }
+    
+    private Instant tokenExpiry(String jwtToken) {
+        // Angel One JWTs carry a standard exp claim; fall back to the configured TTL
+        try {
+            String[] parts = jwtToken.split("\\.");
+            if (parts.length == 3) {
+                String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+                JsonNode exp = objectMapper.readTree(payload).get("exp");
+                if (exp != null) {
+                    return Instant.ofEpochSecond(exp.asLong());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not read expiry from Angel One token: {}", e.getMessage());
+        }
+        return Instant.now().plus(Duration.ofMillis(defaultTtlMillis));
+    }
+    
+    private HttpHeaders authHeaders(String jwtToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Accept", "application/json");
+        headers.set("X-UserType", "USER");
+        headers.set("X-SourceID", "WEB");
+        headers.set("X-ClientLocalIP", "192.168.1.1");
+        headers.set("X-ClientPublicIP", "106.193.147.98");
+        headers.set("X-MACAddress", "fe80::216:3eff:fe00:1");
+        headers.set("X-PrivateKey", clientSecret);
+        if (jwtToken != null) {
+            headers.set("Authorization", "Bearer " + jwtToken);
+        }
+        return headers;
+    }
+    
+    @FunctionalInterface
+    private interface SessionTask {
+        BrokerSession run() throws Exception;
+    }
+}
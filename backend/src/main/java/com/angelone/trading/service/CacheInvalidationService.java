@@ -0,0 +1,92 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.CacheConfig;
+import com.angelone.trading.security.PrincipalCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Explicit evictions for the writes that change cached reads. Each eviction
+ * also reaches the near caches of other instances. Inside a transaction the
+ * evictions run after it commits, so a concurrent read cannot cache the rows
+ * as they were before the commit; outside one they run immediately.
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheInvalidationService {
+    
+    private final CacheManager cacheManager;
+    private final PrincipalCache principalCache;
+    
+    /**
+     * Called after minute bars for these symbols were written. Only those
+     * symbols' latest quotes and minute bar windows are evicted.
+     */
+    public void marketDataWritten(Collection<String> symbols) {
+        // Callers may reuse the collection once this returns
+        List<String> written = List.copyOf(symbols);
+        afterCommit(() -> {
+            for (String symbol : written) {
+                evictNow(CacheConfig.LATEST_QUOTES, symbol);
+                evictNow(CacheConfig.HISTORICAL_BARS, barsKey(symbol, TimeFrames.MINUTE));
+            }
+        });
+    }
+    
+    /**
+     * Key of a symbol's cached bar window for one time frame.
+     */
+    public static String barsKey(String symbol, String timeFrame) {
+        return symbol + ":" + timeFrame;
+    }
+    
+    public void strategiesChanged(Long userId) {
+        evict(CacheConfig.STRATEGIES, userId);
+    }
+    
+    public void analyticsChanged(Long userId) {
+        evict(CacheConfig.ANALYTICS, userId);
+    }
+    
+    /**
+     * Drops the user's cached lookup and authenticated principals. Called by the
+     * entity listener and, since bulk updates bypass it, after each bulk update of users.
+     */
+    public void userChanged(String email) {
+        afterCommit(() -> {
+            principalCache.invalidate(email);
+            evictNow(CacheConfig.USERS, email);
+        });
+    }
+    
+    private void evict(String cacheName, Object key) {
+        afterCommit(() -> evictNow(cacheName, key));
+    }
+    
+    private void evictNow(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+    
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.angelone.trading.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateOrderException extends RuntimeException {
+    
+    public DuplicateOrderException(String clientOrderId) {
+        super("Duplicate order: " + clientOrderId);
+    }
+}
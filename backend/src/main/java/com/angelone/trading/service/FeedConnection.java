@@ -0,0 +1,474 @@
+package com.angelone.trading.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One Smart Stream WebSocket carrying a shard of the subscribed tokens.
+ * Frames are handed off the container's I/O thread to a decode thread owned by
+ * this connection, so a busy shard never delays the others. Quote-mode frames
+ * carry the full quote, so the hand-off coalesces per token: while a token's
+ * frame waits to be decoded, a newer one for the same token replaces it in
+ * place. A decoder that falls behind therefore skips intermediate quotes but
+ * never loses the latest one of any token, and the queue holds at most one
+ * entry per token plus the frames without one. Reconnects back off
+ * exponentially with jitter and replay the shard's tokens once the socket opens.
+ */
+@Slf4j
+public class FeedConnection {
+    
+    private static final int ACTION_UNSUBSCRIBE = 0;
+    private static final int ACTION_SUBSCRIBE = 1;
+    private static final int MODE_QUOTE = 2;
+    private static final int EXCHANGE_NSE_CM = 1;
+    
+    public interface Listener {
+        void onConnected(FeedConnection connection);
+        
+        void onDisconnected(FeedConnection connection);
+        
+        /** Called on the connection's decode thread. */
+        void onText(FeedConnection connection, String message, long receivedAtNanos);
+        
+        /** Called on the connection's decode thread. */
+        void onBinary(FeedConnection connection, ByteBuffer message, long receivedAtNanos);
+    }
+    
+    private final int id;
+    private final URI uri;
+    private final long reconnectInitialDelayMillis;
+    private final long reconnectMaxDelayMillis;
+    private final long staleTimeoutMillis;
+    private final int subscribeBatchSize;
+    private final ScheduledExecutorService supervisor;
+    private final FeedRecorder recorder;
+    private final Listener listener;
+    private final BlockingQueue<Frame> decodeQueue;
+    // Newest undecoded frame per token; the queue holds one entry for each token in here
+    private final Map<String, Frame> newestFrames = new ConcurrentHashMap<>();
+    private final Thread decoder;
+    private volatile boolean decoding = true;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reconnectPending = new AtomicBoolean();
+    private final AtomicInteger reconnectAttempts = new AtomicInteger();
+    
+    private volatile Map<String, List<String>> headers = Collections.emptyMap();
+    private volatile Session session;
+    private volatile boolean isConnected = false;
+    private volatile boolean shouldBeConnected = false;
+    
+    // Recovery metrics
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong framesLostDuringGaps = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong framesCoalesced = new AtomicLong();
+    private final LatencyHistogram recoveryTimes = new LatencyHistogram();
+    private volatile long lastMessageAt = System.nanoTime();
+    private volatile long disconnectedAt;
+    private volatile double frameRatePerSecond;
+    private volatile long lastRecoveryMillis;
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowFrames;
+    
+    public FeedConnection(int id, URI uri, long reconnectInitialDelayMillis, long reconnectMaxDelayMillis,
+                          long staleTimeoutMillis, int subscribeBatchSize, int decodeQueueSize,
+                          ScheduledExecutorService supervisor, FeedRecorder recorder, Listener listener) {
+        this.id = id;
+        this.uri = uri;
+        this.reconnectInitialDelayMillis = reconnectInitialDelayMillis;
+        this.reconnectMaxDelayMillis = reconnectMaxDelayMillis;
+        this.staleTimeoutMillis = staleTimeoutMillis;
+        this.subscribeBatchSize = subscribeBatchSize;
+        this.supervisor = supervisor;
+        this.recorder = recorder;
+        this.listener = listener;
+        this.decodeQueue = new ArrayBlockingQueue<>(decodeQueueSize);
+        this.decoder = new Thread(this::decodeLoop, "feed-decode-" + id);
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+    
+    /**
+     * Called on the container's I/O thread, the only producer of this connection.
+     */
+    private void enqueue(Frame frame) {
+        if (frame.token != null && newestFrames.put(frame.token, frame) != null) {
+            // The token's queued entry now decodes this frame instead of the older one
+            framesCoalesced.incrementAndGet();
+            return;
+        }
+        if (!decodeQueue.offer(frame)) {
+            // Only reachable with more tokens and control frames pending than the queue holds
+            if (frame.token != null) {
+                newestFrames.remove(frame.token, frame);
+            }
+            long dropped = framesDropped.incrementAndGet();
+            if (Long.bitCount(dropped) == 1) {
+                log.warn("Feed connection {} decode queue is full, {} frames dropped so far", id, dropped);
+            }
+        }
+    }
+    
+    private void decodeLoop() {
+        while (decoding) {
+            Frame frame;
+            try {
+                frame = decodeQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame.token != null) {
+                frame = newestFrames.remove(frame.token);
+                if (frame == null) {
+                    continue;
+                }
+            }
+            
+            try {
+                if (frame.text != null) {
+                    listener.onText(this, frame.text, frame.receivedAtNanos);
+                } else {
+                    listener.onBinary(this, frame.binary, frame.receivedAtNanos);
+                }
+            } catch (RuntimeException e) {
+                log.error("Feed connection {} failed to decode a frame: {}", id, e.getMessage());
+            }
+        }
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public int getTokenCount() {
+        return tokens.size();
+    }
+    
+    public void open(Map<String, List<String>> headers) {
+        this.headers = headers;
+        this.shouldBeConnected = true;
+        supervisor.execute(this::openSession);
+    }
+    
+    public void close() {
+        shouldBeConnected = false;
+        
+        Session current = session;
+        session = null;
+        isConnected = false;
+        if (current != null) {
+            closeQuietly(current);
+        }
+        decoding = false;
+        decoder.interrupt();
+    }
+    
+    public boolean isConnected() {
+        return isConnected && session != null && session.isOpen();
+    }
+    
+    /**
+     * Adds tokens to this shard. They are sent now if the socket is open and
+     * replayed on every later reconnect.
+     */
+    public void subscribe(Collection<String> added) {
+        tokens.addAll(added);
+        send(ACTION_SUBSCRIBE, added);
+    }
+    
+    public void unsubscribe(Collection<String> removed) {
+        tokens.removeAll(removed);
+        send(ACTION_UNSUBSCRIBE, removed);
+    }
+    
+    private void openSession() {
+        if (!shouldBeConnected || isConnected()) {
+            return;
+        }
+        
+        try {
+            Map<String, List<String>> requestHeaders = headers;
+            ClientEndpointConfig config = ClientEndpointConfig.Builder.create()
+                    .configurator(new ClientEndpointConfig.Configurator() {
+                        @Override
+                        public void beforeRequest(Map<String, List<String>> outgoing) {
+                            outgoing.putAll(requestHeaders);
+                        }
+                    })
+                    .build();
+            
+            ContainerProvider.getWebSocketContainer().connectToServer(new ShardEndpoint(), config, uri);
+            
+            log.info("Feed connection {} connected to Angel One", id);
+            
+        } catch (Exception e) {
+            log.error("Error connecting feed connection {}: {}", id, e.getMessage());
+            markDisconnected();
+            listener.onDisconnected(this);
+            scheduleReconnect();
+        }
+    }
+    
+    private void onOpen(Session session) {
+        this.session = session;
+        this.isConnected = true;
+        this.lastMessageAt = System.nanoTime();
+        reconnectAttempts.set(0);
+        
+        recordRecovery();
+        send(ACTION_SUBSCRIBE, new ArrayList<>(tokens));
+        listener.onConnected(this);
+    }
+    
+    private void onClose(Session session, CloseReason closeReason) {
+        if (session != this.session) {
+            return; // a connection we already gave up on
+        }
+        
+        log.info("Feed connection {} closed: {}", id, closeReason.getReasonPhrase());
+        this.isConnected = false;
+        this.session = null;
+        markDisconnected();
+        listener.onDisconnected(this);
+        
+        scheduleReconnect();
+    }
+    
+    private void onTextMessage(String message) {
+        long receivedAt = System.nanoTime();
+        lastMessageAt = receivedAt;
+        if ("pong".equals(message)) {
+            return;
+        }
+        
+        framesReceived.incrementAndGet();
+        recorder.recordText(id, message);
+        enqueue(new Frame(TickDecoder.jsonToken(message), message, null, receivedAt));
+    }
+    
+    private void onBinaryMessage(ByteBuffer message) {
+        long receivedAt = System.nanoTime();
+        lastMessageAt = receivedAt;
+        framesReceived.incrementAndGet();
+        recorder.recordBinary(id, message);
+        
+        // The container may reuse its buffer once the handler returns
+        ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+        copy.put(message).flip();
+        enqueue(new Frame(TickDecoder.binaryToken(copy), null, copy, receivedAt));
+    }
+    
+    /**
+     * Sends a ping, or drops the socket if nothing arrived within the stale timeout.
+     * Called periodically by the owning feed manager.
+     */
+    public void heartbeat() {
+        updateFrameRate();
+        
+        Session current = session;
+        if (!isConnected || current == null) {
+            return;
+        }
+        
+        long silentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastMessageAt);
+        if (silentMillis > staleTimeoutMillis) {
+            // Half-open connections never deliver onClose, so drop it ourselves
+            log.warn("Feed connection {} silent for {} ms, reconnecting", id, silentMillis);
+            isConnected = false;
+            session = null;
+            markDisconnected();
+            closeQuietly(current);
+            listener.onDisconnected(this);
+            scheduleReconnect();
+            return;
+        }
+        
+        current.getAsyncRemote().sendText("ping");
+    }
+    
+    private void send(int action, Collection<String> batchTokens) {
+        Session current = session;
+        if (!isConnected || current == null || batchTokens.isEmpty()) {
+            return;
+        }
+        
+        try {
+            List<String> all = new ArrayList<>(batchTokens);
+            for (int from = 0; from < all.size(); from += subscribeBatchSize) {
+                List<String> batch = all.subList(from, Math.min(from + subscribeBatchSize, all.size()));
+                current.getAsyncRemote().sendText(subscriptionFrame(action, batch));
+            }
+        } catch (Exception e) {
+            log.error("Error sending subscription frame on feed connection {}: {}", id, e.getMessage());
+        }
+    }
+    
+    private String subscriptionFrame(int action, List<String> batch) throws IOException {
+        // Smart Stream (WebSocket 2.0) request format
+        Map<String, Object> tokenList = new HashMap<>();
+        tokenList.put("exchangeType", EXCHANGE_NSE_CM);
+        tokenList.put("tokens", batch);
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("mode", MODE_QUOTE);
+        params.put("tokenList", List.of(tokenList));
+        
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("correlationID", "feed-" + id);
+        frame.put("action", action);
+        frame.put("params", params);
+        
+        return objectMapper.writeValueAsString(frame);
+    }
+    
+    private void scheduleReconnect() {
+        if (!shouldBeConnected || !reconnectPending.compareAndSet(false, true)) {
+            return;
+        }
+        
+        // Exponential backoff with jitter so a broker outage does not cause a reconnect stampede
+        int attempt = reconnectAttempts.getAndIncrement();
+        long ceiling = Math.min(reconnectMaxDelayMillis, reconnectInitialDelayMillis << Math.min(attempt, 16));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        
+        log.info("Reconnecting feed connection {} in {} ms (attempt {})", id, delay, attempt + 1);
+        supervisor.schedule(() -> {
+            reconnectPending.set(false);
+            openSession();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    private void markDisconnected() {
+        if (disconnectedAt == 0) {
+            disconnectedAt = System.nanoTime();
+        }
+    }
+    
+    private void recordRecovery() {
+        long since = disconnectedAt;
+        if (since == 0) {
+            return;
+        }
+        
+        long gapNanos = System.nanoTime() - since;
+        recoveryTimes.record(gapNanos);
+        lastRecoveryMillis = TimeUnit.NANOSECONDS.toMillis(gapNanos);
+        // Frames the broker sent while we were away, estimated from the rate before the drop
+        long lost = Math.round(frameRatePerSecond * gapNanos / 1_000_000_000d);
+        framesLostDuringGaps.addAndGet(lost);
+        reconnects.incrementAndGet();
+        disconnectedAt = 0;
+        
+        log.info("Feed connection {} recovered after {} ms, ~{} ticks missed", id, lastRecoveryMillis, lost);
+    }
+    
+    private void updateFrameRate() {
+        long now = System.nanoTime();
+        long frames = framesReceived.get();
+        
+        if (isConnected) {
+            double seconds = (now - rateWindowStart) / 1_000_000_000d;
+            if (seconds > 0) {
+                double rate = (frames - rateWindowFrames) / seconds;
+                frameRatePerSecond = frameRatePerSecond == 0 ? rate : 0.7 * frameRatePerSecond + 0.3 * rate;
+            }
+        }
+        rateWindowStart = now;
+        rateWindowFrames = frames;
+    }
+    
+    private void closeQuietly(Session session) {
+        try {
+            if (session.isOpen()) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.error("Error closing feed connection {}: {}", id, e.getMessage());
+        }
+    }
+    
+    public long getTicksLostDuringGaps() {
+        return framesLostDuringGaps.get();
+    }
+    
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+    
+    public long getFramesCoalesced() {
+        return framesCoalesced.get();
+    }
+    
+    public long getReconnects() {
+        return reconnects.get();
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("id", id);
+        stats.put("connected", isConnected());
+        stats.put("tokens", tokens.size());
+        stats.put("framesReceived", framesReceived.get());
+        stats.put("frameRatePerSecond", frameRatePerSecond);
+        stats.put("decodeBacklog", decodeQueue.size());
+        stats.put("framesCoalesced", framesCoalesced.get());
+        stats.put("framesDropped", framesDropped.get());
+        stats.put("reconnects", reconnects.get());
+        stats.put("lastRecoveryMillis", lastRecoveryMillis);
+        stats.put("ticksLostDuringGaps", framesLostDuringGaps.get());
+        stats.put("timeToRecover", recoveryTimes.snapshot());
+        return stats;
+    }
+    
+    private static final class Frame {
+        private final String token;
+        private final String text;
+        private final ByteBuffer binary;
+        private final long receivedAtNanos;
+        
+        private Frame(String token, String text, ByteBuffer binary, long receivedAtNanos) {
+            this.token = token;
+            this.text = text;
+            this.binary = binary;
+            this.receivedAtNanos = receivedAtNanos;
+        }
+    }
+    
+    private class ShardEndpoint extends Endpoint {
+        
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            session.addMessageHandler(String.class, message -> onTextMessage(message));
+            session.addMessageHandler(ByteBuffer.class, message -> onBinaryMessage(message));
+            FeedConnection.this.onOpen(session);
+        }
+        
+        @Override
+        public void onClose(Session session, CloseReason closeReason) {
+            FeedConnection.this.onClose(session, closeReason);
+        }
+        
+        @Override
+        public void onError(Session session, Throwable throwable) {
+            log.error("Feed connection {} error: {}", id, throwable.getMessage());
+        }
+    }
+}
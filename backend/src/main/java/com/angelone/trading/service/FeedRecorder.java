@@ -0,0 +1,263 @@
+package com.angelone.trading.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Journals every raw inbound feed frame to gzip-compressed, append-only
+ * recording files for {@link FeedReplayer}. Frames are queued from the socket
+ * threads and written by one background thread; when the queue is full the
+ * frame is dropped from the recording (and counted), never from the feed.
+ *
+ * File layout: {@code MAGIC}, version, start time in epoch nanos, then per
+ * frame the receive offset in nanos, shard id, frame type and length-prefixed payload.
+ */
+@Service
+@Slf4j
+public class FeedRecorder {
+    
+    public static final int MAGIC = 0x414F4652; // "AOFR"
+    public static final int VERSION = 1;
+    public static final byte TEXT_FRAME = 0;
+    public static final byte BINARY_FRAME = 1;
+    public static final String FILE_SUFFIX = ".rec.gz";
+    
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    @Value("${angelone.feed.recorder.enabled:false}")
+    private boolean enabledOnStartup;
+    
+    @Value("${angelone.feed.recorder.directory:recordings}")
+    private String directory;
+    
+    @Value("${angelone.feed.recorder.queue-size:65536}")
+    private int queueSize;
+    
+    @Value("${angelone.feed.recorder.flush-interval:1000}")
+    private long flushIntervalMillis;
+    
+    private BlockingQueue<Frame> queue;
+    private volatile boolean recording;
+    private volatile Path currentFile;
+    private Thread writer;
+    
+    // Receive times are nanoTime offsets from this wall-clock anchor
+    private volatile long startEpochNanos;
+    private volatile long startNanoTime;
+    
+    private final AtomicLong framesRecorded = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong bytesRecorded = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueSize);
+        if (enabledOnStartup) {
+            start();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+    
+    public boolean isRecording() {
+        return recording;
+    }
+    
+    public synchronized Path start() {
+        if (recording) {
+            return currentFile;
+        }
+        
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            OutputStream file = createRecordingFile(dir);
+            
+            Instant now = Instant.now();
+            startEpochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+            startNanoTime = System.nanoTime();
+            
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(file, 64 * 1024, true)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(startEpochNanos);
+            
+            recording = true;
+            writer = new Thread(() -> writeLoop(out), "feed-recorder");
+            writer.setDaemon(true);
+            writer.start();
+            
+            log.info("Recording feed frames to {}", currentFile);
+            return currentFile;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start feed recording: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Opens a new recording file. Never appends: a second gzip stream and header in
+     * an existing recording would corrupt it for the replayer.
+     */
+    private OutputStream createRecordingFile(Path dir) throws IOException {
+        String baseName = "feed-" + LocalDateTime.now().format(FILE_NAME_FORMAT);
+        for (int attempt = 0; ; attempt++) {
+            Path candidate = dir.resolve(baseName + (attempt == 0 ? "" : "-" + attempt) + FILE_SUFFIX);
+            try {
+                OutputStream out = Files.newOutputStream(candidate, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                currentFile = candidate;
+                return out;
+            } catch (FileAlreadyExistsException e) {
+                // Started again within the same second
+            }
+        }
+    }
+    
+    public synchronized void stop() {
+        if (!recording) {
+            return;
+        }
+        
+        recording = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stopped feed recording {}", currentFile);
+    }
+    
+    /**
+     * Called on the socket thread as the frame arrives. Never blocks.
+     */
+    public void recordText(int connectionId, String message) {
+        if (recording) {
+            offer(new Frame(System.nanoTime(), connectionId, TEXT_FRAME, message.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+    
+    public void recordBinary(int connectionId, ByteBuffer message) {
+        if (recording) {
+            byte[] payload = new byte[message.remaining()];
+            message.duplicate().get(payload);
+            offer(new Frame(System.nanoTime(), connectionId, BINARY_FRAME, payload));
+        }
+    }
+    
+    private void offer(Frame frame) {
+        if (!queue.offer(frame)) {
+            framesDropped.incrementAndGet();
+        }
+    }
+    
+    private void writeLoop(DataOutputStream out) {
+        long lastFlush = System.nanoTime();
+        try (out) {
+            while (recording || !queue.isEmpty()) {
+                Frame frame = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (frame != null) {
+                    out.writeLong(frame.receivedAtNanos - startNanoTime);
+                    out.writeInt(frame.connectionId);
+                    out.writeByte(frame.type);
+                    out.writeInt(frame.payload.length);
+                    out.write(frame.payload);
+                    framesRecorded.incrementAndGet();
+                    bytesRecorded.addAndGet(frame.payload.length);
+                }
+                
+                // Sync-flush the gzip stream so a crash loses at most one interval
+                if (System.nanoTime() - lastFlush >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis)) {
+                    out.flush();
+                    lastFlush = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            recording = false;
+            log.error("Feed recording {} failed: {}", currentFile, e.getMessage());
+        }
+    }
+    
+    public List<String> listRecordings() {
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.error("Error listing feed recordings: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Resolves a recording by file name, refusing anything outside the recording directory.
+     */
+    public Path resolveRecording(String fileName) {
+        Path dir = Paths.get(directory).toAbsolutePath().normalize();
+        Path file = dir.resolve(fileName).normalize();
+        if (!file.startsWith(dir) || !file.getFileName().toString().endsWith(FILE_SUFFIX) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Unknown recording: " + fileName);
+        }
+        return file;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recording", recording);
+        stats.put("file", currentFile != null ? currentFile.getFileName().toString() : null);
+        stats.put("framesRecorded", framesRecorded.get());
+        stats.put("framesDropped", framesDropped.get());
+        stats.put("bytesRecorded", bytesRecorded.get());
+        stats.put("queued", queue.size());
+        return stats;
+    }
+    
+    private static final class Frame {
+        private final long receivedAtNanos;
+        private final int connectionId;
+        private final byte type;
+        private final byte[] payload;
+        
+        private Frame(long receivedAtNanos, int connectionId, byte type, byte[] payload) {
+            this.receivedAtNanos = receivedAtNanos;
+            this.connectionId = connectionId;
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.angelone.trading.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Feeds a {@link FeedRecorder} recording back through the live decode path of
+ * {@link AngelOneWebSocketService}, at recorded pace ({@code speed = 1}), N times
+ * faster, or as fast as the pipeline accepts ({@code speed <= 0}). Replayed ticks
+ * are broadcast but never reach exit triggers, quotes or market_data.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeedReplayer {
+    
+    private final FeedRecorder feedRecorder;
+    private final AngelOneWebSocketService angelOneWebSocketService;
+    
+    private volatile Thread replayThread;
+    private volatile boolean running;
+    private volatile String currentFile;
+    private volatile double currentSpeed;
+    private volatile long behindScheduleNanos;
+    
+    private final AtomicLong framesReplayed = new AtomicLong();
+    
+    public synchronized void start(String fileName, double speed) {
+        if (running) {
+            throw new IllegalStateException("A replay of " + currentFile + " is already running");
+        }
+        
+        Path file = feedRecorder.resolveRecording(fileName);
+        currentFile = fileName;
+        currentSpeed = speed;
+        framesReplayed.set(0);
+        behindScheduleNanos = 0;
+        angelOneWebSocketService.resetInjectedOrdering();
+        running = true;
+        
+        replayThread = new Thread(() -> replay(file, speed), "feed-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+    
+    public synchronized void stop() {
+        running = false;
+        if (replayThread != null) {
+            replayThread.interrupt();
+        }
+    }
+    
+    private void replay(Path file, double speed) {
+        log.info("Replaying feed recording {} at {}", file.getFileName(), speed > 0 ? speed + "x" : "max speed");
+        long started = System.nanoTime();
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024)))) {
+            if (in.readInt() != FeedRecorder.MAGIC || in.readInt() != FeedRecorder.VERSION) {
+                throw new IOException("Not a feed recording: " + file.getFileName());
+            }
+            in.readLong(); // recording start, epoch nanos
+            
+            while (running) {
+                long offsetNanos;
+                try {
+                    offsetNanos = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                in.readInt(); // shard id
+                byte type = in.readByte();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                
+                if (speed > 0) {
+                    long due = started + (long) (offsetNanos / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        // parkNanos may return early, so park again until the frame is due
+                        do {
+                            LockSupport.parkNanos(wait);
+                            wait = due - System.nanoTime();
+                        } while (wait > 0 && running);
+                    } else {
+                        behindScheduleNanos = -wait;
+                    }
+                }
+                
+                if (type == FeedRecorder.TEXT_FRAME) {
+                    angelOneWebSocketService.replayText(new String(payload, StandardCharsets.UTF_8));
+                } else {
+                    angelOneWebSocketService.replayBinary(ByteBuffer.wrap(payload));
+                }
+                framesReplayed.incrementAndGet();
+            }
+            
+            log.info("Replayed {} frames from {} in {} ms", framesReplayed.get(), file.getFileName(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            log.error("Error replaying feed recording {}: {}", file.getFileName(), e.getMessage());
+        } finally {
+            running = false;
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("file", currentFile);
+        stats.put("speed", currentSpeed);
+        stats.put("framesReplayed", framesReplayed.get());
+        stats.put("behindScheduleMillis", behindScheduleNanos / 1_000_000d);
+        return stats;
+    }
+}
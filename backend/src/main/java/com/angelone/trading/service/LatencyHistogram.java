@@ -0,0 +1,79 @@
+package com.angelone.trading.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (8 sub-buckets per power
+ * of two, so reported percentiles are within 12.5% of the recorded value).
+ * Values are recorded in nanoseconds and reported in microseconds.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexFor(value));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    public long getCount() {
+        return count.get();
+    }
+    
+    public long percentileNanos(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rank = (long) Math.ceil(total * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", count.get());
+        snapshot.put("p50Micros", percentileNanos(50) / 1000d);
+        snapshot.put("p90Micros", percentileNanos(90) / 1000d);
+        snapshot.put("p99Micros", percentileNanos(99) / 1000d);
+        snapshot.put("p999Micros", percentileNanos(99.9) / 1000d);
+        snapshot.put("maxMicros", max.get() / 1000d);
+        return snapshot;
+    }
+    
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + mantissa;
+    }
+    
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        int mantissa = index & (SUB_BUCKETS - 1);
+        return ((long) (SUB_BUCKETS + mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,290 @@
+package com.angelone.trading.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lifecycle of the day partitions of market_data (V2 migration). Each run:
+ * <ol>
+ * <li>splits the catch-all p_future so the next {@code days-ahead} days have their own partition;</li>
+ * <li>compacts days older than {@code raw-days}: the day's 1m snapshots become one
+ * 1m bar per symbol and minute, built in a staging table that is swapped in with
+ * EXCHANGE PARTITION, and a 1d bar per symbol is added;</li>
+ * <li>reduces days older than {@code minute-days} to their 1d bars the same way;</li>
+ * <li>drops days older than {@code daily-days}, a metadata change whatever the partition holds.</li>
+ * </ol>
+ * Compacted bars keep the id of the newest snapshot of their minute, so ids stay
+ * unique across partitions. A MySQL named lock keeps concurrent instances from
+ * running the job at the same time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketDataPartitionManager {
+    
+    private static final String LOCK_NAME = "market_data_partitions";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final String STAGING_TABLE = "market_data_compact";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p_'yyyyMMdd");
+    
+    private static final String COLUMNS =
+            "symbol, open, high, low, close, volume, `change`, change_percent, ema_20, ema_50, rsi, time_frame, timestamp, created_at";
+    
+    // One bar per symbol and minute, carrying the id, close and indicators of the minute's newest snapshot.
+    // Snapshot open/high/low are the session's day values, so the bar's are taken from the closes.
+    private static final String MINUTE_BARS_SQL =
+            "INSERT INTO " + STAGING_TABLE + " (id, " + COLUMNS + ") "
+            + "SELECT id, symbol, bar_open, bar_high, bar_low, close, volume, close - bar_open, "
+            + "ROUND((close - bar_open) / NULLIF(bar_open, 0) * 100, 2), ema_20, ema_50, rsi, '1m', bar_start, created_at "
+            + "FROM (SELECT s.*, "
+            + "FIRST_VALUE(close) OVER bar AS bar_open, MAX(close) OVER bar AS bar_high, MIN(close) OVER bar AS bar_low, "
+            + "ROW_NUMBER() OVER (PARTITION BY symbol, bar_start ORDER BY timestamp DESC, id DESC) AS newest "
+            + "FROM (SELECT m.*, TIMESTAMP(DATE(m.timestamp), MAKETIME(HOUR(m.timestamp), MINUTE(m.timestamp), 0)) AS bar_start "
+            + "FROM market_data PARTITION (%s) m WHERE m.time_frame = '1m') s "
+            + "WINDOW bar AS (PARTITION BY symbol, bar_start ORDER BY timestamp, id "
+            + "ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING)) bars "
+            + "WHERE newest = 1";
+    
+    private static final String DAILY_BARS_SQL =
+            "INSERT INTO market_data (" + COLUMNS + ") "
+            + "SELECT symbol, day_open, day_high, day_low, close, volume, close - day_open, "
+            + "ROUND((close - day_open) / NULLIF(day_open, 0) * 100, 2), ema_20, ema_50, rsi, '1d', TIMESTAMP(DATE(timestamp)), NOW(6) "
+            + "FROM (SELECT m.*, "
+            + "FIRST_VALUE(open) OVER day AS day_open, MAX(high) OVER day AS day_high, MIN(low) OVER day AS day_low, "
+            + "ROW_NUMBER() OVER (PARTITION BY symbol ORDER BY timestamp DESC, id DESC) AS newest "
+            + "FROM market_data PARTITION (%s) m WHERE m.time_frame = '1m' "
+            + "WINDOW day AS (PARTITION BY symbol ORDER BY timestamp, id "
+            + "ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING)) bars "
+            + "WHERE newest = 1";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${trading.market-data.partitions.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${trading.market-data.partitions.days-ahead:3}")
+    private int daysAhead;
+    
+    @Value("${trading.market-data.retention.raw-days:2}")
+    private int rawDays;
+    
+    @Value("${trading.market-data.retention.minute-days:30}")
+    private int minuteDays;
+    
+    @Value("${trading.market-data.retention.daily-days:730}")
+    private int dailyDays;
+    
+    private final AtomicLong partitionsCreated = new AtomicLong();
+    private final AtomicLong partitionsCompacted = new AtomicLong();
+    private final AtomicLong partitionsReduced = new AtomicLong();
+    private final AtomicLong partitionsDropped = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile Map<String, Long> partitionsByStage = Map.of();
+    
+    private enum Stage {
+        RAW, MINUTE, DAILY
+    }
+    
+    @Scheduled(fixedDelayString = "${trading.market-data.partitions.check-interval:3600000}",
+            initialDelayString = "${trading.market-data.partitions.initial-delay:60000}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        
+        try {
+            // GET_LOCK belongs to the connection, so the whole run uses the one holding it
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                Integer locked = jdbc.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, LOCK_NAME);
+                if (locked == null || locked != 1) {
+                    log.debug("market_data partitions are being maintained by another instance");
+                    return null;
+                }
+                try {
+                    maintain(jdbc);
+                } finally {
+                    jdbc.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, LOCK_NAME);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Error maintaining market_data partitions", e);
+        }
+    }
+    
+    private void maintain(JdbcTemplate jdbc) {
+        long startedAt = System.currentTimeMillis();
+        List<String> partitions = jdbc.queryForList(
+                "SELECT partition_name FROM information_schema.partitions "
+                + "WHERE table_schema = DATABASE() AND table_name = 'market_data' ORDER BY partition_ordinal_position",
+                String.class);
+        if (!partitions.contains(FUTURE_PARTITION)) {
+            log.warn("market_data is not partitioned by day, disabling partition maintenance");
+            enabled = false;
+            return;
+        }
+        
+        LocalDate today = LocalDate.now();
+        List<LocalDate> days = new ArrayList<>();
+        for (String partition : partitions) {
+            if (!FUTURE_PARTITION.equals(partition)) {
+                days.add(LocalDate.parse(partition, PARTITION_NAME));
+            }
+        }
+        addPartitions(jdbc, days, today);
+        
+        Map<String, Stage> stages = new LinkedHashMap<>();
+        jdbc.query("SELECT partition_name, stage FROM market_data_partitions",
+                row -> { stages.put(row.getString(1), Stage.valueOf(row.getString(2))); });
+        
+        Map<String, Long> byStage = new LinkedHashMap<>();
+        for (LocalDate day : days) {
+            String partition = day.format(PARTITION_NAME);
+            Stage stage = stages.getOrDefault(partition, Stage.RAW);
+            
+            if (day.isBefore(today.minusDays(dailyDays))) {
+                jdbc.execute("ALTER TABLE market_data DROP PARTITION " + partition);
+                jdbc.update("DELETE FROM market_data_partitions WHERE partition_name = ?", partition);
+                partitionsDropped.incrementAndGet();
+                log.info("Dropped market_data partition {}", partition);
+                continue;
+            }
+            if (stage == Stage.RAW && day.isBefore(today.minusDays(rawDays))) {
+                compactToMinuteBars(jdbc, partition);
+                stage = setStage(jdbc, partition, day, Stage.MINUTE);
+                partitionsCompacted.incrementAndGet();
+            }
+            if (stage == Stage.MINUTE && day.isBefore(today.minusDays(minuteDays))) {
+                reduceToDailyBars(jdbc, partition);
+                stage = setStage(jdbc, partition, day, Stage.DAILY);
+                partitionsReduced.incrementAndGet();
+            }
+            byStage.merge(stage.name(), 1L, Long::sum);
+        }
+        
+        partitionsByStage = byStage;
+        lastRunAt = LocalDateTime.now();
+        lastRunMillis = System.currentTimeMillis() - startedAt;
+    }
+    
+    /**
+     * Splits p_future into day partitions up to {@code days-ahead} days from
+     * now. On the first run p_future holds all existing history, so the split
+     * starts at its oldest day; anything older than the daily retention goes
+     * into the first partition, which the same run then drops.
+     */
+    private void addPartitions(JdbcTemplate jdbc, List<LocalDate> days, LocalDate today) {
+        LocalDate first;
+        if (!days.isEmpty()) {
+            first = days.get(days.size() - 1).plusDays(1);
+        } else {
+            LocalDateTime oldest = jdbc.queryForObject("SELECT MIN(timestamp) FROM market_data", LocalDateTime.class);
+            first = oldest != null ? oldest.toLocalDate() : today;
+            LocalDate earliestKept = today.minusDays(dailyDays + 1L);
+            if (first.isBefore(earliestKept)) {
+                first = earliestKept;
+            }
+        }
+        LocalDate last = today.plusDays(daysAhead);
+        if (first.isAfter(last)) {
+            return;
+        }
+        
+        StringBuilder ddl = new StringBuilder("ALTER TABLE market_data REORGANIZE PARTITION ")
+                .append(FUTURE_PARTITION).append(" INTO (");
+        List<LocalDate> added = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            ddl.append("PARTITION ").append(day.format(PARTITION_NAME))
+                    .append(" VALUES LESS THAN ('").append(day.plusDays(1)).append("'), ");
+            added.add(day);
+        }
+        ddl.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+        
+        jdbc.execute(ddl.toString());
+        for (LocalDate day : added) {
+            jdbc.update("INSERT IGNORE INTO market_data_partitions (partition_name, day, stage, updated_at) VALUES (?, ?, ?, NOW(6))",
+                    day.format(PARTITION_NAME), Date.valueOf(day), Stage.RAW.name());
+        }
+        days.addAll(added);
+        partitionsCreated.addAndGet(added.size());
+        log.info("Added {} market_data partitions, {} to {}", added.size(), first, last);
+    }
+    
+    /**
+     * Replaces the day's snapshots with 1m bars, then adds the day's 1d bars.
+     * Rerunning after a failure part way through yields the same bars.
+     */
+    private void compactToMinuteBars(JdbcTemplate jdbc, String partition) {
+        createStagingTable(jdbc);
+        int bars = jdbc.update(String.format(MINUTE_BARS_SQL, partition));
+        // Other time frames are kept as they are; 1d bars are rebuilt below
+        jdbc.update("INSERT INTO " + STAGING_TABLE + " SELECT * FROM market_data PARTITION (" + partition + ") "
+                + "WHERE time_frame NOT IN ('1m', '1d')");
+        swapIn(jdbc, partition);
+        
+        int dailyBars = jdbc.update(String.format(DAILY_BARS_SQL, partition));
+        log.info("Compacted market_data partition {} to {} 1m bars and {} 1d bars", partition, bars, dailyBars);
+    }
+    
+    private void reduceToDailyBars(JdbcTemplate jdbc, String partition) {
+        createStagingTable(jdbc);
+        int kept = jdbc.update("INSERT INTO " + STAGING_TABLE + " SELECT * FROM market_data PARTITION (" + partition + ") "
+                + "WHERE time_frame <> '1m'");
+        swapIn(jdbc, partition);
+        log.info("Reduced market_data partition {} to {} rows without 1m bars", partition, kept);
+    }
+    
+    private void createStagingTable(JdbcTemplate jdbc) {
+        jdbc.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+        jdbc.execute("CREATE TABLE " + STAGING_TABLE + " LIKE market_data");
+        jdbc.execute("ALTER TABLE " + STAGING_TABLE + " REMOVE PARTITIONING");
+    }
+    
+    /**
+     * Swaps the staging table's rows into the partition; the staging table then
+     * holds the partition's old rows and is dropped with them.
+     */
+    private void swapIn(JdbcTemplate jdbc, String partition) {
+        jdbc.execute("ALTER TABLE market_data EXCHANGE PARTITION " + partition + " WITH TABLE " + STAGING_TABLE);
+        jdbc.execute("DROP TABLE " + STAGING_TABLE);
+    }
+    
+    private Stage setStage(JdbcTemplate jdbc, String partition, LocalDate day, Stage stage) {
+        jdbc.update("INSERT INTO market_data_partitions (partition_name, day, stage, updated_at) VALUES (?, ?, ?, NOW(6)) "
+                + "ON DUPLICATE KEY UPDATE stage = VALUES(stage), updated_at = VALUES(updated_at)",
+                partition, Date.valueOf(day), stage.name());
+        return stage;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("partitionsByStage", partitionsByStage);
+        stats.put("created", partitionsCreated.get());
+        stats.put("compacted", partitionsCompacted.get());
+        stats.put("reduced", partitionsReduced.get());
+        stats.put("dropped", partitionsDropped.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("retentionDays", Map.of("raw", rawDays, "1m", minuteDays, "1d", dailyDays));
+        return stats;
+    }
+}
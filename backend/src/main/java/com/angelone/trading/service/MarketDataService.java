@@ -1,19 +1,27 @@
 package com.angelone.trading.service;
 
+import com.angelone.trading.config.CacheConfig;
 import com.angelone.trading.entity.MarketData;
 import com.angelone.trading.repository.MarketDataRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 @Service
@@ -21,33 +29,87 @@ import java.util.Random;
 @Slf4j
 public class MarketDataService {
     
+    // Enough history for the EMA 50 and RSI 14 attached to generated bars
+    private static final int INDICATOR_BARS = 200;
+    
     private final MarketDataRepository marketDataRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final TechnicalAnalysisService technicalAnalysisService;
     private final AngelOneApiService angelOneApiService;
+    private final TradeTriggerService tradeTriggerService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final QuoteSnapshotStore quoteSnapshotStore;
+    private final TradingMetrics tradingMetrics;
+    private final CacheManager cacheManager;
     
     @Autowired(required = false)
     private AngelOneWebSocketService angelOneWebSocketService;
     
-    private final Random random = new Random();
-    private final List<String> symbols = Arrays.asList("NIFTY", "BANKNIFTY", "SENSEX", "RELIANCE", "TCS", "INFY");
+    @Value("${trading.market-data.symbols:NIFTY,BANKNIFTY,SENSEX,RELIANCE,TCS,INFY}")
+    private List<String> symbols;
+    
+    @Value("${trading.market-data.poll-interval:5000}")
+    private long pollIntervalMillis;
+    
+    @Value("${trading.market-data.lookback-days:7}")
+    private int lookbackDays;
+    
+    @Value("${trading.market-data.cached-bars:500}")
+    private int cachedBars;
+    
+    @Value("${trading.market-data.max-bars:5000}")
+    private int maxBars;
+    
+    // Fixed seed makes simulated sessions reproducible
+    @Value("${trading.market-data.simulation-seed:#{null}}")
+    private Long simulationSeed;
+    
+    private Random random;
+    private volatile long nextPollAt;
+    
+    @PostConstruct
+    public void init() {
+        random = simulationSeed != null ? new Random(simulationSeed) : new Random();
+    }
     
-    @Scheduled(fixedRate = 5000) // Every 5 seconds
+    @Scheduled(fixedRateString = "${trading.market-data.poll-check-interval:1000}")
     public void generateAndBroadcastMarketData() {
         try {
-            // If Angel One WebSocket is connected, it will handle real-time data
-            if (angelOneWebSocketService != null && angelOneWebSocketService.isConnected()) {
+            // The live feed, or a simulator started on purpose, owns the quotes; polling would race them.
+            // A feed outage lands here, so polling is the fallback until a shard reconnects.
+            if (angelOneWebSocketService != null
+                    && (angelOneWebSocketService.isConnected() || angelOneWebSocketService.isSimulating())) {
                 return;
             }
             
-            // Fallback to REST API calls or simulation
+            long now = System.currentTimeMillis();
+            if (now < nextPollAt) {
+                return;
+            }
+            nextPollAt = now + effectivePollInterval();
+            
+            // Fallback to REST API calls or simulation, one quote request per batch of symbols
+            Map<String, Map<String, Object>> quotes = angelOneApiService.getMarketDataBatch(symbols);
+            
+            List<MarketData> batch = new ArrayList<>(symbols.size());
             for (String symbol : symbols) {
-                MarketData marketData = fetchOrGenerateMarketData(symbol);
-                marketDataRepository.save(marketData);
+                Map<String, Object> apiData = quotes.get(symbol);
+                batch.add(apiData != null && apiData.containsKey("ltp")
+                        ? convertApiDataToMarketData(symbol, apiData)
+                        : generateMarketData(symbol));
+            }
+            marketDataRepository.saveAll(batch);
+            tradingMetrics.dbWrites("market_data", batch.size());
+            cacheInvalidationService.marketDataWritten(symbols);
+            
+            for (MarketData marketData : batch) {
+                quoteSnapshotStore.update(marketData);
                 
                 // Broadcast to WebSocket subscribers
-                messagingTemplate.convertAndSend("/topic/market-data/" + symbol, marketData);
+                messagingTemplate.convertAndSend("/topic/market-data/" + marketData.getSymbol(), marketData);
                 messagingTemplate.convertAndSend("/topic/market-data/all", marketData);
+                
+                tradeTriggerService.onTick(marketData.getSymbol(), marketData.getClose());
             }
             log.debug("Generated and broadcasted market data for {} symbols", symbols.size());
         } catch (Exception e) {
@@ -55,19 +117,13 @@ public class MarketDataService {
         }
     }
     
-    private MarketData fetchOrGenerateMarketData(String symbol) {
-        // Try to fetch real data from Angel One API first
-        try {
-            Map<String, Object> apiData = angelOneApiService.getMarketData(symbol);
-            if (apiData != null && apiData.containsKey("ltp")) {
-                return convertApiDataToMarketData(symbol, apiData);
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch real data for {}, using simulation: {}", symbol, e.getMessage());
-        }
-        
-        // Fallback to simulation
-        return generateMarketData(symbol);
+    /**
+     * Poll no faster than the quote rate limit allows for the size of the watchlist.
+     */
+    private long effectivePollInterval() {
+        int batches = (symbols.size() + angelOneApiService.getQuoteBatchSize() - 1) / angelOneApiService.getQuoteBatchSize();
+        long rateLimitedInterval = (long) Math.ceil(batches * 1000 / angelOneApiService.getQuoteRateLimit());
+        return Math.max(pollIntervalMillis, rateLimitedInterval);
     }
     
     private MarketData convertApiDataToMarketData(String symbol, Map<String, Object> apiData) {
@@ -96,9 +152,7 @@ public class MarketDataService {
     
     public MarketData generateMarketData(String symbol) {
         // Get the last price for this symbol
-        MarketData lastData = marketDataRepository
-                .findTopBySymbolAndTimeFrameOrderByTimestampDesc(symbol, "1m")
-                .orElse(null);
+        MarketData lastData = findLatest(symbol);
         
         BigDecimal basePrice = getBasePrice(symbol);
         if (lastData != null) {
@@ -133,8 +187,7 @@ public class MarketDataService {
         marketData.setTimestamp(LocalDateTime.now());
         
         // Calculate technical indicators
-        List<MarketData> historicalData = marketDataRepository
-                .findBySymbolAndTimeFrameOrderByTimestampDesc(symbol, "1m");
+        List<MarketData> historicalData = findRecentBars(symbol, TimeFrames.MINUTE, INDICATOR_BARS);
         
         if (historicalData.size() >= 20) {
             BigDecimal ema20 = technicalAnalysisService.calculateEMA(historicalData, 20);
@@ -154,30 +207,18 @@ public class MarketDataService {
         return marketData;
     }
     
-    public void initializeAngelOneWebSocket(String authToken, String clientId) {
+    public void initializeAngelOneWebSocket(String authToken, String feedToken, String clientId) {
         if (angelOneWebSocketService != null) {
-            angelOneWebSocketService.connect(authToken, clientId);
-            
-            // Subscribe to default symbols
+            // Subscriptions are recorded first and replayed once the connection opens
             for (String symbol : symbols) {
-                String token = getSymbolToken(symbol);
-                angelOneWebSocketService.subscribeToSymbol(symbol, token);
+                angelOneWebSocketService.subscribeToSymbol(symbol, angelOneApiService.getSymbolToken(symbol));
             }
+            
+            angelOneWebSocketService.connect(authToken, feedToken, clientId);
         }
     }
     
-    private String getSymbolToken(String symbol) {
-        Map<String, String> symbolTokenMap = new HashMap<>();
-        symbolTokenMap.put("NIFTY", "99926000");
-        symbolTokenMap.put("BANKNIFTY", "99926009");
-        symbolTokenMap.put("RELIANCE", "2885");
-        symbolTokenMap.put("TCS", "11536");
-        symbolTokenMap.put("INFY", "1594");
-        
-        return symbolTokenMap.getOrDefault(symbol, "0");
-    }
-    
-    private BigDecimal getBasePrice(String symbol) {
+    public BigDecimal getBasePrice(String symbol) {
         switch (symbol) {
             case "NIFTY": return BigDecimal.valueOf(21800);
             case "BANKNIFTY": return BigDecimal.valueOf(46200);
@@ -189,16 +230,42 @@ public class MarketDataService {
         }
     }
     
+    /**
+     * Newest {@code limit} bars, newest first. One window of the newest
+     * {@code cached-bars} bars is cached per symbol and time frame and serves
+     * every smaller limit, so a write evicts a single key per symbol. The
+     * limit is clamped to between 1 and {@code max-bars}.
+     */
     public List<MarketData> getHistoricalData(String symbol, String timeFrame, int limit) {
-        List<MarketData> data = marketDataRepository
-                .findBySymbolAndTimeFrameOrderByTimestampDesc(symbol, timeFrame);
+        limit = Math.max(1, Math.min(limit, maxBars));
+        Cache bars = cacheManager.getCache(CacheConfig.HISTORICAL_BARS);
+        if (bars == null || limit > cachedBars) {
+            return findRecentBars(symbol, timeFrame, limit);
+        }
         
-        return data.size() > limit ? data.subList(0, limit) : data;
+        List<MarketData> window = bars.get(CacheInvalidationService.barsKey(symbol, timeFrame),
+                () -> findRecentBars(symbol, timeFrame, cachedBars));
+        return new ArrayList<>(window.subList(0, Math.min(limit, window.size())));
+    }
+    
+    @Cacheable(value = CacheConfig.SYMBOLS, key = "'all'")
+    public List<String> getAvailableSymbols() {
+        return new ArrayList<>(symbols);
     }
     
+    @Cacheable(value = CacheConfig.LATEST_QUOTES, key = "#symbol", unless = "#result == null")
     public MarketData getLatestData(String symbol) {
-        return marketDataRepository
-                .findTopBySymbolAndTimeFrameOrderByTimestampDesc(symbol, "1m")
-                .orElse(null);
+        return findLatest(symbol);
+    }
+    
+    private MarketData findLatest(String symbol) {
+        return marketDataRepository.findTopBySymbolAndTimeFrameAndTimestampGreaterThanEqualOrderByTimestampDesc(
+                symbol, TimeFrames.MINUTE, LocalDateTime.now().minusDays(lookbackDays)).orElse(null);
+    }
+    
+    private List<MarketData> findRecentBars(String symbol, String timeFrame, int bars) {
+        return marketDataRepository.findRecentBars(symbol, timeFrame,
+                TimeFrames.lookbackStart(LocalDateTime.now(), timeFrame, bars, lookbackDays),
+                PageRequest.of(0, bars));
     }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.angelone.trading.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory market simulator for load tests and demos. It never starts by itself
+ * when the broker feed drops: only {@code trading.simulator.start-on-startup} or
+ * the admin endpoint run it, and a connecting live feed stops it.
+ * Prices follow geometric Brownian motion with Poisson jumps; a single market
+ * factor gives instruments a configurable common correlation.
+ * Ticks are encoded in the broker's binary or JSON format and pushed through
+ * {@link AngelOneWebSocketService#injectBinary} / {@code injectText}, so they
+ * exercise the same decode and consumer path as the live feed.
+ *
+ * With a fixed seed and rate the generated sequence is fully reproducible.
+ *
+ * Ticks carry a simulated exchange time: wall-clock time at start, advanced by the
+ * monotonic clock and strictly increasing per instrument, so no two ticks of one
+ * instrument share a timestamp and wall-clock steps never move it backwards. While
+ * the simulator runs, the REST poller in {@link MarketDataService} stays off.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketSimulator {
+    
+    // NSE trading seconds per year: 252 sessions of 6h15m
+    private static final double SECONDS_PER_YEAR = 252 * 6.25 * 3600;
+    private static final String SYNTHETIC_TOKEN_PREFIX = "9";
+    
+    public enum Format {
+        BINARY, JSON
+    }
+    
+    @Value("${trading.simulator.start-on-startup:false}")
+    private boolean startOnStartup;
+    
+    @Value("${trading.simulator.ticks-per-second:10}")
+    private double defaultTicksPerSecond;
+    
+    @Value("${trading.simulator.synthetic-instruments:0}")
+    private int defaultSyntheticInstruments;
+    
+    @Value("${trading.simulator.format:BINARY}")
+    private Format format;
+    
+    @Value("${trading.simulator.seed:#{null}}")
+    private Long seed;
+    
+    @Value("${trading.simulator.drift:0.08}")
+    private double drift;
+    
+    @Value("${trading.simulator.volatility:0.25}")
+    private double volatility;
+    
+    @Value("${trading.simulator.correlation:0.4}")
+    private double correlation;
+    
+    @Value("${trading.simulator.jumps-per-year:20}")
+    private double jumpsPerYear;
+    
+    @Value("${trading.simulator.jump-volatility:0.03}")
+    private double jumpVolatility;
+    
+    @Value("${trading.market-data.symbols:NIFTY,BANKNIFTY,SENSEX,RELIANCE,TCS,INFY}")
+    private List<String> symbols;
+    
+    private final AngelOneWebSocketService angelOneWebSocketService;
+    private final AngelOneApiService angelOneApiService;
+    private final MarketDataService marketDataService;
+    
+    private volatile Thread simulatorThread;
+    private volatile boolean running;
+    private volatile double ticksPerSecond;
+    private volatile int instrumentCount;
+    private volatile long startedAt;
+    private volatile long clockOriginMillis;
+    
+    private final AtomicLong ticksGenerated = new AtomicLong();
+    
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+    
+    /**
+     * Runs the simulator from startup, for environments that never connect a
+     * broker feed (load tests, demos).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfConfigured() {
+        if (startOnStartup) {
+            start();
+        }
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Starts the simulator with the configured rate and universe.
+     */
+    public void start() {
+        start(defaultTicksPerSecond, defaultSyntheticInstruments);
+    }
+    
+    public synchronized void start(double ticksPerSecond, int syntheticInstruments) {
+        if (running) {
+            return;
+        }
+        
+        List<Instrument> instruments = buildUniverse(syntheticInstruments);
+        for (Instrument instrument : instruments) {
+            angelOneWebSocketService.registerSymbol(instrument.symbol, instrument.tokenString);
+        }
+        
+        this.ticksPerSecond = ticksPerSecond;
+        this.instrumentCount = instruments.size();
+        ticksGenerated.set(0);
+        startedAt = System.nanoTime();
+        clockOriginMillis = System.currentTimeMillis();
+        running = true;
+        
+        Random random = seed != null ? new Random(seed) : new Random();
+        simulatorThread = new Thread(() -> run(instruments, random, ticksPerSecond), "market-simulator");
+        simulatorThread.setDaemon(true);
+        simulatorThread.start();
+        
+        log.info("Started market simulator: {} instruments at {} ticks/s ({})", instruments.size(), ticksPerSecond, format);
+    }
+    
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        
+        running = false;
+        if (simulatorThread != null) {
+            simulatorThread.interrupt();
+        }
+        log.info("Stopped market simulator after {} ticks", ticksGenerated.get());
+    }
+    
+    private List<Instrument> buildUniverse(int syntheticInstruments) {
+        List<Instrument> instruments = new ArrayList<>();
+        for (String symbol : symbols) {
+            String token = angelOneApiService.getSymbolToken(symbol);
+            // Symbols without a broker token still need a unique one on the simulated feed
+            if ("0".equals(token)) {
+                token = SYNTHETIC_TOKEN_PREFIX + String.format("%07d", instruments.size());
+            }
+            instruments.add(new Instrument(symbol, token, marketDataService.getBasePrice(symbol).doubleValue()));
+        }
+        
+        for (int i = 0; i < syntheticInstruments; i++) {
+            String token = SYNTHETIC_TOKEN_PREFIX + String.format("%07d", 1_000_000 + i);
+            instruments.add(new Instrument("SIM" + i, token, 100 + (i % 50) * 40));
+        }
+        return instruments;
+    }
+    
+    private void run(List<Instrument> instruments, Random random, double rate) {
+        ByteBuffer frame = ByteBuffer.allocate(TickDecoder.QUOTE_PACKET_SIZE);
+        StringBuilder json = new StringBuilder(160);
+        
+        // Every instrument ticks once per round, so each step covers one round of market time
+        double dt = instruments.size() / rate / SECONDS_PER_YEAR;
+        double diffusion = volatility * Math.sqrt(dt);
+        double driftStep = (drift - 0.5 * volatility * volatility) * dt;
+        double jumpProbability = jumpsPerYear * dt;
+        double common = Math.sqrt(correlation);
+        double idiosyncratic = Math.sqrt(1 - correlation);
+        
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long next = System.nanoTime();
+        long sequence = 0;
+        int index = 0;
+        double marketShock = random.nextGaussian();
+        
+        while (running) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(Math.min(next - now, TimeUnit.MILLISECONDS.toNanos(1)));
+                continue;
+            }
+            
+            // Catch up in bursts when a park overslept, as a real feed would after a stall
+            while (next <= now && running) {
+                if (index == instruments.size()) {
+                    index = 0;
+                    marketShock = random.nextGaussian();
+                }
+                Instrument instrument = instruments.get(index++);
+                
+                double shock = common * marketShock + idiosyncratic * random.nextGaussian();
+                double logReturn = driftStep + diffusion * shock;
+                if (random.nextDouble() < jumpProbability) {
+                    logReturn += jumpVolatility * random.nextGaussian();
+                }
+                instrument.advance(logReturn, 1 + random.nextInt(500));
+                
+                emit(instrument, ++sequence, frame, json);
+                ticksGenerated.incrementAndGet();
+                next += intervalNanos;
+            }
+        }
+    }
+    
+    private void emit(Instrument instrument, long sequence, ByteBuffer frame, StringBuilder json) {
+        long timestamp = instrument.stamp(clockOriginMillis + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        
+        if (format == Format.BINARY) {
+            TickDecoder.encodeQuote(frame, instrument.token, sequence, timestamp, instrument.lastPrice,
+                    instrument.volume, instrument.open, instrument.high, instrument.low, instrument.open);
+            angelOneWebSocketService.injectBinary(frame);
+        } else {
+            json.setLength(0);
+            json.append("{\"tk\":\"").append(instrument.tokenString)
+                    .append("\",\"lp\":\"").append(rupees(instrument.lastPrice))
+                    .append("\",\"o\":\"").append(rupees(instrument.open))
+                    .append("\",\"h\":\"").append(rupees(instrument.high))
+                    .append("\",\"l\":\"").append(rupees(instrument.low))
+                    .append("\",\"v\":").append(instrument.volume)
+                    .append(",\"ft\":").append(timestamp)
+                    .append('}');
+            angelOneWebSocketService.injectText(json.toString());
+        }
+    }
+    
+    private static String rupees(long paise) {
+        return (paise / 100) + "." + (paise % 100 < 10 ? "0" : "") + (paise % 100);
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("format", format.name());
+        stats.put("instruments", instrumentCount);
+        stats.put("targetTicksPerSecond", ticksPerSecond);
+        stats.put("ticksGenerated", ticksGenerated.get());
+        
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000d;
+        stats.put("actualTicksPerSecond", running && seconds > 0 ? ticksGenerated.get() / seconds : 0);
+        return stats;
+    }
+    
+    private static final class Instrument {
+        private final String symbol;
+        private final String tokenString;
+        private final byte[] token;
+        private double price;
+        private long lastPrice;
+        private long open;
+        private long high;
+        private long low;
+        private long volume;
+        private long lastTimestamp = Long.MIN_VALUE;
+        
+        private Instrument(String symbol, String token, double price) {
+            this.symbol = symbol;
+            this.tokenString = token;
+            this.token = token.getBytes(StandardCharsets.US_ASCII);
+            this.price = price;
+            this.lastPrice = this.open = this.high = this.low = Math.round(price * 100);
+        }
+        
+        private void advance(double logReturn, long quantity) {
+            price *= Math.exp(logReturn);
+            // Prices move on the exchange's 5 paise tick
+            lastPrice = Math.max(5, Math.round(price * 20) * 5);
+            high = Math.max(high, lastPrice);
+            low = Math.min(low, lastPrice);
+            volume += quantity;
+        }
+        
+        private long stamp(long clockMillis) {
+            lastTimestamp = Math.max(clockMillis, lastTimestamp + 1);
+            return lastTimestamp;
+        }
+    }
+}
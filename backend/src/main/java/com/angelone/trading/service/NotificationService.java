@@ -3,104 +3,387 @@ package com.angelone.trading.service;
 import com.angelone.trading.entity.Notification;
 import com.angelone.trading.entity.User;
 import com.angelone.trading.repository.NotificationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Notifications are queued by the trade and strategy paths and delivered by a
+ * background dispatcher, which inserts them in batches and pushes them over
+ * WebSocket afterwards. Bursts of strategy alerts for one user within the
+ * digest window are coalesced into a single digest notification.
+ *
+ * Unread counts are cached per user, loaded from the database on first use and
+ * dropped whenever one of the user's notifications is inserted or read, so the
+ * unread badge is served without a query between changes. Read notifications past the retention period are purged.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
     
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    private static final int MAX_PAGE_SIZE = 200;
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, type, title, message, priority, is_read, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
     private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TradingMetrics tradingMetrics;
+    
+    @Value("${trading.notifications.queue-size:10000}")
+    private int queueSize;
+    
+    @Value("${trading.notifications.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${trading.notifications.flush-interval:200}")
+    private long flushIntervalMillis;
+    
+    @Value("${trading.notifications.digest-window:1000}")
+    private long digestWindowMillis;
+    
+    @Value("${trading.notifications.retention-days:30}")
+    private int retentionDays;
+    
+    @Value("${trading.notifications.purge-batch-size:1000}")
+    private int purgeBatchSize;
+    
+    @Value("${trading.notifications.unread-counters.max-size:100000}")
+    private long unreadCountersMaxSize;
+    
+    @Value("${trading.notifications.unread-counters.expire-after-write:300000}")
+    private long unreadCountersExpireMillis;
+    
+    private BlockingQueue<PendingNotification> queue;
+    private final Map<Long, Digest> digests = new LinkedHashMap<>();
+    // Invalidated after every committed change rather than adjusted by deltas: a delta cannot
+    // tell whether a concurrently loaded count already includes the row it is applied for
+    private Cache<Long, Long> unreadCounts;
+    private Thread dispatcher;
+    private volatile boolean running;
+    
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+    private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+    
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueSize);
+        unreadCounts = Caffeine.newBuilder()
+                .maximumSize(unreadCountersMaxSize)
+                .expireAfterWrite(unreadCountersExpireMillis, TimeUnit.MILLISECONDS)
+                .build();
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+    }
     
     public void sendTradeExecutedNotification(User user, String message) {
-        Notification notification = new Notification();
-        notification.setUser(user);
-        notification.setType(Notification.NotificationType.TRADE_EXECUTED);
-        notification.setTitle("Trade Executed");
-        notification.setMessage(message);
-        notification.setPriority(Notification.Priority.HIGH);
-        
-        notification = notificationRepository.save(notification);
-        
-        // Send via WebSocket
-        messagingTemplate.convertAndSendToUser(
-                user.getEmail(),
-                "/queue/notifications",
-                notification
-        );
-        
-        log.info("Trade executed notification sent to user: {}", user.getEmail());
+        enqueue(user, Notification.NotificationType.TRADE_EXECUTED, "Trade Executed", message, Notification.Priority.HIGH);
     }
     
     public void sendStrategyTriggeredNotification(User user, String strategyName, String message) {
+        enqueue(user, Notification.NotificationType.STRATEGY_TRIGGERED, "Strategy Alert: " + strategyName, message,
+                Notification.Priority.MEDIUM);
+    }
+    
+    public void sendRiskAlertNotification(User user, String message) {
+        enqueue(user, Notification.NotificationType.RISK_ALERT, "Risk Alert", message, Notification.Priority.HIGH);
+    }
+    
+    private void enqueue(User user, Notification.NotificationType type, String title, String message,
+                         Notification.Priority priority) {
         Notification notification = new Notification();
         notification.setUser(user);
-        notification.setType(Notification.NotificationType.STRATEGY_TRIGGERED);
-        notification.setTitle("Strategy Alert: " + strategyName);
+        notification.setType(type);
+        notification.setTitle(title);
         notification.setMessage(message);
-        notification.setPriority(Notification.Priority.MEDIUM);
+        notification.setPriority(priority);
         
-        notification = notificationRepository.save(notification);
+        // Read the email on the caller's thread, where a lazy user proxy can still be initialised
+        if (queue.offer(new PendingNotification(notification, user.getId(), user.getEmail()))) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+            log.warn("Notification queue full, dropping {} notification for user: {}", type, user.getEmail());
+        }
+    }
+    
+    private void dispatchLoop() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !digests.isEmpty()) {
+            try {
+                PendingNotification first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                
+                deliver(coalesce(batch, !running));
+            } catch (InterruptedException e) {
+                // Shutting down: the loop drains what is left
+                running = false;
+            } catch (Exception e) {
+                log.error("Error delivering notifications", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private List<PendingNotification> coalesce(List<PendingNotification> batch, boolean flushAll) {
+        List<PendingNotification> ready = new ArrayList<>(batch.size());
+        long now = System.nanoTime();
         
-        // Send via WebSocket
-        messagingTemplate.convertAndSendToUser(
-                user.getEmail(),
-                "/queue/notifications",
-                notification
-        );
+        for (PendingNotification pending : batch) {
+            if (pending.notification.getType() == Notification.NotificationType.STRATEGY_TRIGGERED) {
+                digests.computeIfAbsent(pending.userId, userId -> new Digest(now)).items.add(pending);
+            } else {
+                ready.add(pending);
+            }
+        }
         
-        log.info("Strategy triggered notification sent to user: {}", user.getEmail());
+        Iterator<Digest> open = digests.values().iterator();
+        while (open.hasNext()) {
+            Digest digest = open.next();
+            if (flushAll || now - digest.openedAt >= TimeUnit.MILLISECONDS.toNanos(digestWindowMillis)) {
+                ready.add(digest.toNotification());
+                coalesced.addAndGet(digest.items.size() - 1);
+                open.remove();
+            }
+        }
+        return ready;
     }
     
-    public void sendRiskAlertNotification(User user, String message) {
-        Notification notification = new Notification();
-        notification.setUser(user);
-        notification.setType(Notification.NotificationType.RISK_ALERT);
-        notification.setTitle("Risk Alert");
-        notification.setMessage(message);
-        notification.setPriority(Notification.Priority.HIGH);
+    private void deliver(List<PendingNotification> ready) {
+        if (ready.isEmpty()) {
+            return;
+        }
         
-        notification = notificationRepository.save(notification);
+        insertAll(ready);
+        tradingMetrics.dbWrites("notifications", ready.size());
+        batches.incrementAndGet();
         
-        // Send via WebSocket
-        messagingTemplate.convertAndSendToUser(
-                user.getEmail(),
-                "/queue/notifications",
-                notification
-        );
+        for (PendingNotification pending : ready) {
+            // The batch is committed, so the next read counts these rows
+            unreadCounts.invalidate(pending.userId);
+            // Send via WebSocket
+            messagingTemplate.convertAndSendToUser(
+                    pending.email,
+                    "/queue/notifications",
+                    pending.notification
+            );
+            deliveryLatency.record(System.nanoTime() - pending.enqueuedAt);
+        }
+        delivered.addAndGet(ready.size());
         
-        log.info("Risk alert notification sent to user: {}", user.getEmail());
+        log.debug("Delivered {} notifications", ready.size());
+    }
+    
+    /**
+     * Inserts the batch as one JDBC batch, which the MySQL driver sends as a single
+     * multi-row INSERT (rewriteBatchedStatements). saveAll would not help here:
+     * Hibernate sends IDENTITY inserts one row at a time to read back each id.
+     * The generated ids are copied onto the notifications before they are pushed.
+     */
+    private void insertAll(List<PendingNotification> ready) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        PendingNotification pending = ready.get(i);
+                        Notification notification = pending.notification;
+                        statement.setLong(1, pending.userId);
+                        statement.setString(2, notification.getType().name());
+                        statement.setString(3, notification.getTitle());
+                        statement.setString(4, notification.getMessage());
+                        statement.setString(5, notification.getPriority().name());
+                        statement.setBoolean(6, Boolean.TRUE.equals(notification.getIsRead()));
+                        statement.setTimestamp(7, Timestamp.valueOf(notification.getCreatedAt()));
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return ready.size();
+                    }
+                }, keys);
+        
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < ids.size() && i < ready.size(); i++) {
+            ready.get(i).notification.setId(((Number) ids.get(i).values().iterator().next()).longValue());
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("delivered", delivered.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("batches", batches.get());
+        stats.put("queued", queue.size());
+        stats.put("cachedUnreadCounters", unreadCounts.estimatedSize());
+        stats.put("purged", purged.get());
+        stats.put("deliveryLatency", deliveryLatency.snapshot());
+        return stats;
+    }
+    
+    /**
+     * Newest-first page of a user's notifications older than {@code beforeId}
+     * (or the newest page when null). Clients pass the last id they received.
+     */
+    public List<Notification> getUserNotifications(User user, Long beforeId, int limit) {
+        return notificationRepository.findPageByUserId(user.getId(), cursor(beforeId), page(limit));
     }
     
-    public List<Notification> getUserNotifications(User user) {
-        return notificationRepository.findByUserOrderByCreatedAtDesc(user);
+    public List<Notification> getUnreadNotifications(User user, Long beforeId, int limit) {
+        return notificationRepository.findUnreadPageByUserId(user.getId(), cursor(beforeId), page(limit));
     }
     
-    public List<Notification> getUnreadNotifications(User user) {
-        return notificationRepository.findByUserAndIsReadFalseOrderByCreatedAtDesc(user);
+    /**
+     * A count loading while a change commits is dropped by that change's
+     * invalidation, which waits for the load to finish first.
+     */
+    public long getUnreadCount(User user) {
+        return unreadCounts.get(user.getId(), userId -> notificationRepository.countByUserAndIsReadFalse(user));
     }
     
+    // The repository updates commit in their own transactions, before the counter is dropped
     public void markAsRead(Long notificationId, User user) {
+        if (notificationRepository.markAsRead(notificationId, user.getId()) > 0) {
+            unreadCounts.invalidate(user.getId());
+            return;
+        }
+        
+        // Nothing updated: either already read, or not this user's notification
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
         
         if (!notification.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("Unauthorized access to notification");
         }
-        
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
     }
     
     public void markAllAsRead(User user) {
-        List<Notification> unreadNotifications = getUnreadNotifications(user);
-        unreadNotifications.forEach(notification -> notification.setIsRead(true));
-        notificationRepository.saveAll(unreadNotifications);
+        if (notificationRepository.markAllAsRead(user.getId()) > 0) {
+            unreadCounts.invalidate(user.getId());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${trading.notifications.purge-interval:3600000}")
+    public void purgeReadNotifications() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int removed = 0;
+        List<Long> ids;
+        // Small batches keep each delete's lock footprint short
+        do {
+            ids = notificationRepository.findReadIdsCreatedBefore(cutoff, PageRequest.of(0, purgeBatchSize));
+            if (!ids.isEmpty()) {
+                removed += notificationRepository.deleteByIdIn(ids);
+            }
+        } while (ids.size() == purgeBatchSize);
+        
+        if (removed > 0) {
+            purged.addAndGet(removed);
+            log.info("Purged {} read notifications older than {} days", removed, retentionDays);
+        }
+    }
+    
+    private static Long cursor(Long beforeId) {
+        return beforeId != null ? beforeId : Long.MAX_VALUE;
+    }
+    
+    private static PageRequest page(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+    
+    private static final class PendingNotification {
+        private final Notification notification;
+        private final Long userId;
+        private final String email;
+        private final long enqueuedAt = System.nanoTime();
+        
+        private PendingNotification(Notification notification, Long userId, String email) {
+            this.notification = notification;
+            this.userId = userId;
+            this.email = email;
+        }
+    }
+    
+    private static final class Digest {
+        private final long openedAt;
+        private final List<PendingNotification> items = new ArrayList<>();
+        
+        private Digest(long openedAt) {
+            this.openedAt = openedAt;
+        }
+        
+        PendingNotification toNotification() {
+            PendingNotification first = items.get(0);
+            if (items.size() == 1) {
+                return first;
+            }
+            
+            StringBuilder message = new StringBuilder();
+            for (PendingNotification item : items) {
+                String line = item.notification.getTitle().replace("Strategy Alert: ", "") + ": "
+                        + item.notification.getMessage();
+                if (message.length() + line.length() + 1 > MAX_MESSAGE_LENGTH) {
+                    break;
+                }
+                message.append(line).append('\n');
+            }
+            
+            Notification digest = new Notification();
+            digest.setUser(first.notification.getUser());
+            digest.setType(Notification.NotificationType.STRATEGY_TRIGGERED);
+            digest.setTitle(items.size() + " Strategy Alerts");
+            digest.setMessage(message.toString().trim());
+            digest.setPriority(Notification.Priority.MEDIUM);
+            return new PendingNotification(digest, first.userId, first.email);
+        }
     }
-}
\ No newline at end of file
+}
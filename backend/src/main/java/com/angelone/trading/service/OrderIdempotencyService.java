@@ -0,0 +1,82 @@
+package com.angelone.trading.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues client order ids and rejects repeats of an id seen within the dedupe
+ * window, before any database or broker work is done. Ids are scoped to the
+ * user, and an order that failed releases its id so the client can retry it.
+ * The unique constraint on trades (user_id, client_order_id) backs this up
+ * beyond the window, and for ids evicted early because the cache is full.
+ */
+@Service
+public class OrderIdempotencyService {
+    
+    @Value("${trading.orders.dedupe-window:86400000}")
+    private long dedupeWindowMillis;
+    
+    @Value("${trading.orders.dedupe-max-entries:200000}")
+    private int maxEntries;
+    
+    // user id:client order id; the size bound holds on every insert, not only when a sweep runs
+    private Cache<String, Boolean> seenOrderIds;
+    
+    @PostConstruct
+    public void init() {
+        seenOrderIds = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(dedupeWindowMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+    
+    /**
+     * Returns true the first time the user's id is seen within the window, false for a duplicate.
+     */
+    public boolean tryAcquire(Long userId, String clientOrderId) {
+        // Expired entries count as absent
+        return seenOrderIds.asMap().putIfAbsent(key(userId, clientOrderId), Boolean.TRUE) == null;
+    }
+    
+    /**
+     * Forgets an id whose order failed or was rejected, so a retry is accepted.
+     */
+    public void release(Long userId, String clientOrderId) {
+        seenOrderIds.invalidate(key(userId, clientOrderId));
+    }
+    
+    public String newClientOrderId() {
+        return "M" + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+    }
+    
+    /**
+     * Deterministic id for a strategy signal: the same strategy firing on the same
+     * symbol within the same bar always produces the same id.
+     */
+    public String strategyOrderId(Long strategyId, String symbol, LocalDateTime timestamp, String timeFrame) {
+        long barStart = barStartEpochSeconds(timestamp, timeFrame);
+        long hash = symbol.hashCode() * 0x9E3779B97F4A7C15L ^ barStart;
+        hash ^= hash >>> 31;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 29;
+        return "S" + Long.toString(strategyId, 36) + "-" + Long.toUnsignedString(hash, 36);
+    }
+    
+    private static String key(Long userId, String clientOrderId) {
+        return userId + ":" + clientOrderId;
+    }
+    
+    private long barStartEpochSeconds(LocalDateTime timestamp, String timeFrame) {
+        long epochSeconds = timestamp.toEpochSecond(ZoneOffset.UTC);
+        long barSeconds = TimeFrames.barSeconds(timeFrame);
+        return epochSeconds - Math.floorMod(epochSeconds, barSeconds);
+    }
+}
@@ -0,0 +1,242 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.Trade;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Queues broker order calls and releases them within Angel One's per-client
+ * rate limits. Stop-losses go before exits, exits before new entries, users
+ * are served round-robin within a priority, and a request that is already
+ * queued or in flight is coalesced with the original instead of resent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSubmissionScheduler {
+    
+    public static final String PLACE_ORDER = "placeOrder";
+    
+    @Value("${angelone.api.client-id}")
+    private String defaultClientId;
+    
+    @Value("${angelone.api.rate-limits.place-order:20}")
+    private double placeOrderRate;
+    
+    @Value("${trading.orders.submission-threads:8}")
+    private int submissionThreads;
+    
+    private final TaskExecutors taskExecutors;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Map<OrderPriority, LinkedHashMap<Long, ArrayDeque<Submission>>> lanes = new EnumMap<>(OrderPriority.class);
+    private final Map<String, Submission> pending = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<OrderPriority, LatencyHistogram> waitTimes = new EnumMap<>(OrderPriority.class);
+    
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private int queued;
+    
+    private ExecutorService brokerExecutor;
+    private Thread dispatcher;
+    private volatile boolean running;
+    
+    public enum OrderPriority {
+        STOP_LOSS, EXIT, ENTRY
+    }
+    
+    @PostConstruct
+    public void start() {
+        for (OrderPriority priority : OrderPriority.values()) {
+            lanes.put(priority, new LinkedHashMap<>());
+            waitTimes.put(priority, new LatencyHistogram());
+        }
+        
+        brokerExecutor = taskExecutors.newExecutor("order-submit-", submissionThreads);
+        
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "order-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        brokerExecutor.shutdown();
+        brokerExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        
+        // Fail whatever never reached the broker, or is stuck there, so no caller waits forever
+        IllegalStateException stopped = new IllegalStateException("Order submission stopped");
+        lock.lock();
+        try {
+            lanes.values().forEach(LinkedHashMap::clear);
+            queued = 0;
+        } finally {
+            lock.unlock();
+        }
+        pending.values().forEach(submission -> submission.result.completeExceptionally(stopped));
+        pending.clear();
+    }
+    
+    /**
+     * Queues a broker call for the trade's user. Calls sharing a dedupe key
+     * while the first is still pending all complete with the first one's result.
+     */
+    public CompletableFuture<Boolean> submit(OrderPriority priority, String dedupeKey, Trade trade, Supplier<Boolean> brokerCall) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Order submission stopped"));
+        }
+        
+        String clientId = trade.getUser().getAngelOneClientId() != null
+                ? trade.getUser().getAngelOneClientId() : defaultClientId;
+        
+        Submission submission = new Submission(priority, dedupeKey, trade.getUser().getId(),
+                bucketFor(clientId, PLACE_ORDER), brokerCall);
+        
+        Submission existing = pending.putIfAbsent(dedupeKey, submission);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            log.debug("Coalesced duplicate order request {}", dedupeKey);
+            return existing.result;
+        }
+        
+        submitted.incrementAndGet();
+        lock.lock();
+        try {
+            lanes.get(priority).computeIfAbsent(submission.userId, userId -> new ArrayDeque<>()).add(submission);
+            queued++;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        
+        return submission.result;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("submitted", submitted.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("dispatched", dispatched.get());
+        stats.put("pending", pending.size());
+        
+        Map<String, Object> waits = new LinkedHashMap<>();
+        waitTimes.forEach((priority, histogram) -> waits.put(priority.name(), histogram.snapshot()));
+        stats.put("queueWaitTimes", waits);
+        return stats;
+    }
+    
+    private TokenBucket bucketFor(String clientId, String endpoint) {
+        return buckets.computeIfAbsent(clientId + ":" + endpoint, key -> new TokenBucket(placeOrderRate, placeOrderRate));
+    }
+    
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Submission next = awaitNext();
+                if (next != null) {
+                    waitTimes.get(next.priority).record(System.nanoTime() - next.enqueuedAt);
+                    dispatched.incrementAndGet();
+                    brokerExecutor.execute(() -> execute(next));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error dispatching broker orders", e);
+            }
+        }
+    }
+    
+    private Submission awaitNext() throws InterruptedException {
+        lock.lock();
+        try {
+            long waitNanos = Long.MAX_VALUE;
+            
+            for (LinkedHashMap<Long, ArrayDeque<Submission>> lane : lanes.values()) {
+                Iterator<Map.Entry<Long, ArrayDeque<Submission>>> users = lane.entrySet().iterator();
+                while (users.hasNext()) {
+                    Map.Entry<Long, ArrayDeque<Submission>> user = users.next();
+                    ArrayDeque<Submission> queue = user.getValue();
+                    Submission head = queue.peek();
+                    
+                    if (head.bucket.tryAcquire()) {
+                        queue.poll();
+                        queued--;
+                        // Move the user to the back of the lane for round-robin
+                        users.remove();
+                        if (!queue.isEmpty()) {
+                            lane.put(user.getKey(), queue);
+                        }
+                        return head;
+                    }
+                    
+                    waitNanos = Math.min(waitNanos, head.bucket.nanosUntilAvailable());
+                }
+            }
+            
+            if (queued == 0) {
+                workAvailable.await();
+            } else {
+                workAvailable.awaitNanos(Math.max(waitNanos, 1000));
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void execute(Submission submission) {
+        try {
+            submission.result.complete(Boolean.TRUE.equals(submission.brokerCall.get()));
+        } catch (Exception e) {
+            log.error("Broker call {} failed: {}", submission.dedupeKey, e.getMessage());
+            submission.result.complete(false);
+        } finally {
+            pending.remove(submission.dedupeKey, submission);
+        }
+    }
+    
+    private static final class Submission {
+        private final OrderPriority priority;
+        private final String dedupeKey;
+        private final Long userId;
+        private final TokenBucket bucket;
+        private final Supplier<Boolean> brokerCall;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        
+        private Submission(OrderPriority priority, String dedupeKey, Long userId, TokenBucket bucket, Supplier<Boolean> brokerCall) {
+            this.priority = priority;
+            this.dedupeKey = dedupeKey;
+            this.userId = userId;
+            this.bucket = bucket;
+            this.brokerCall = brokerCall;
+        }
+    }
+}
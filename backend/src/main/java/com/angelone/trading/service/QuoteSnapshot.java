@@ -0,0 +1,113 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.entity.MarketData;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Immutable latest quote of one instrument, prices in paise. Published by
+ * swapping the reference in {@link QuoteSnapshotStore}, so a reader always sees
+ * one complete quote without locking.
+ */
+public final class QuoteSnapshot {
+    
+    private final String symbol;
+    private final long lastPrice;
+    private final long open;
+    private final long high;
+    private final long low;
+    private final long volume;
+    private final long exchangeTimestamp;
+    private final long version;
+    private final boolean stale;
+    
+    QuoteSnapshot(String symbol, long lastPrice, long open, long high, long low, long volume,
+                  long exchangeTimestamp, long version) {
+        this(symbol, lastPrice, open, high, low, volume, exchangeTimestamp, version, false);
+    }
+    
+    QuoteSnapshot(String symbol, long lastPrice, long open, long high, long low, long volume,
+                  long exchangeTimestamp, long version, boolean stale) {
+        this.symbol = symbol;
+        this.lastPrice = lastPrice;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.volume = volume;
+        this.exchangeTimestamp = exchangeTimestamp;
+        this.version = version;
+        this.stale = stale;
+    }
+    
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public BigDecimal getLastPrice() {
+        return BigDecimal.valueOf(lastPrice, 2);
+    }
+    
+    public BigDecimal getOpen() {
+        return BigDecimal.valueOf(open, 2);
+    }
+    
+    public BigDecimal getHigh() {
+        return BigDecimal.valueOf(high, 2);
+    }
+    
+    public BigDecimal getLow() {
+        return BigDecimal.valueOf(low, 2);
+    }
+    
+    public long getVolume() {
+        return volume;
+    }
+    
+    public BigDecimal getChange() {
+        return BigDecimal.valueOf(lastPrice - open, 2);
+    }
+    
+    public double getChangePercent() {
+        return open > 0 ? Math.round((lastPrice - open) * 10_000d / open) / 100d : 0;
+    }
+    
+    /**
+     * Exchange time of the quote, epoch millis.
+     */
+    public long getTimestamp() {
+        return exchangeTimestamp;
+    }
+    
+    /**
+     * Number of updates this instrument has received; lets clients skip unchanged quotes.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * True for a quote seeded from a stored bar at startup, which may be days
+     * old; cleared by the first update from the feed or the poller.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+    
+    public MarketData toMarketData() {
+        MarketData marketData = new MarketData();
+        marketData.setSymbol(symbol);
+        marketData.setClose(getLastPrice());
+        marketData.setOpen(getOpen());
+        marketData.setHigh(getHigh());
+        marketData.setLow(getLow());
+        marketData.setVolume(volume);
+        marketData.setChange(getChange());
+        marketData.setChangePercent(BigDecimal.valueOf(getChangePercent()));
+        marketData.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(exchangeTimestamp), ZoneId.systemDefault()));
+        marketData.setTimeFrame("1m");
+        return marketData;
+    }
+}
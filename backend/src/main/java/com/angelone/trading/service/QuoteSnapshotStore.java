@@ -0,0 +1,118 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.entity.MarketData;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latest quote per instrument, written by the feed and read by the REST API.
+ * Each instrument has one slot holding an immutable {@link QuoteSnapshot};
+ * writers replace it with a compare-and-set and readers take a plain volatile
+ * load, so neither side ever locks. The feed's snapshot consumer and the
+ * poller are normally exclusive (the poller stays off while the feed or the
+ * simulator runs), but the hand-over between them can overlap, so the version
+ * is bumped atomically and never skips or repeats.
+ */
+@Service
+public class QuoteSnapshotStore {
+    
+    private final Map<String, AtomicReference<QuoteSnapshot>> slots = new ConcurrentHashMap<>();
+    private final AtomicLong updates = new AtomicLong();
+    
+    /**
+     * Called on the snapshot consumer of the tick ring buffer.
+     */
+    public void update(TickEvent event) {
+        slot(event.symbol).updateAndGet(previous -> new QuoteSnapshot(event.symbol, event.lastPrice,
+                event.open, event.high, event.low, event.volume, event.exchangeTimestamp, nextVersion(previous)));
+        updates.incrementAndGet();
+    }
+    
+    /**
+     * Called by the polling fallback when no feed is connected.
+     */
+    public void update(MarketData marketData) {
+        slot(marketData.getSymbol()).updateAndGet(previous -> toSnapshot(marketData, nextVersion(previous), false));
+        updates.incrementAndGet();
+    }
+    
+    private static long nextVersion(QuoteSnapshot previous) {
+        return previous != null ? previous.getVersion() + 1 : 1;
+    }
+    
+    private static QuoteSnapshot toSnapshot(MarketData marketData, long version, boolean stale) {
+        return new QuoteSnapshot(marketData.getSymbol(),
+                TickDecoder.toPaise(marketData.getClose()),
+                TickDecoder.toPaise(marketData.getOpen()),
+                TickDecoder.toPaise(marketData.getHigh()),
+                TickDecoder.toPaise(marketData.getLow()),
+                marketData.getVolume() != null ? marketData.getVolume() : 0,
+                marketData.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                version, stale);
+    }
+    
+    /**
+     * Fills the symbol's slot from a stored bar at startup, unless the feed or
+     * poller has already written a fresher quote. The bar can be up to the
+     * lookback window old, so the quote is marked stale until the first update.
+     */
+    public boolean seed(MarketData marketData) {
+        boolean seeded = slot(marketData.getSymbol()).compareAndSet(null, toSnapshot(marketData, 1, true));
+        if (seeded) {
+            updates.incrementAndGet();
+        }
+        return seeded;
+    }
+    
+    public QuoteSnapshot get(String symbol) {
+        AtomicReference<QuoteSnapshot> slot = slots.get(symbol);
+        return slot != null ? slot.get() : null;
+    }
+    
+    /**
+     * Quotes for the given symbols in request order, skipping symbols without one.
+     */
+    public List<QuoteSnapshot> getAll(Collection<String> symbols) {
+        List<QuoteSnapshot> quotes = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            QuoteSnapshot quote = get(symbol);
+            if (quote != null) {
+                quotes.add(quote);
+            }
+        }
+        return quotes;
+    }
+    
+    public List<QuoteSnapshot> getAll() {
+        List<QuoteSnapshot> quotes = new ArrayList<>(slots.size());
+        for (AtomicReference<QuoteSnapshot> slot : slots.values()) {
+            QuoteSnapshot quote = slot.get();
+            if (quote != null) {
+                quotes.add(quote);
+            }
+        }
+        return quotes;
+    }
+    
+    private AtomicReference<QuoteSnapshot> slot(String symbol) {
+        AtomicReference<QuoteSnapshot> slot = slots.get(symbol);
+        // computeIfAbsent only on first sight of a symbol, so the hot path takes no bin lock
+        return slot != null ? slot : slots.computeIfAbsent(symbol, s -> new AtomicReference<>());
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("instruments", slots.size());
+        stats.put("updates", updates.get());
+        return stats;
+    }
+}
@@ -0,0 +1,117 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.repository.MarketDataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the caches the first ticks and quote requests hit, in parallel and off
+ * the startup thread: the token-to-symbol index of the feed and the latest
+ * quote per symbol, seeded from the newest stored bar so quotes are served
+ * before the feed delivers. Seeded quotes are flagged stale until the feed or
+ * poller replaces them. Everything else warms on first use.
+ *
+ * Startup is reported as JVM uptime under {@code trading.startup}: "ready"
+ * when the context is up, "warmup" when these caches are loaded, and
+ * "first-tick" when the first tick has gone through the pipeline.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StartupWarmup {
+    
+    private final AngelOneApiService angelOneApiService;
+    private final AngelOneWebSocketService angelOneWebSocketService;
+    private final MarketDataRepository marketDataRepository;
+    private final QuoteSnapshotStore quoteSnapshotStore;
+    private final TaskExecutors taskExecutors;
+    private final TradingMetrics tradingMetrics;
+    
+    @Value("${trading.market-data.symbols:NIFTY,BANKNIFTY,SENSEX,RELIANCE,TCS,INFY}")
+    private List<String> symbols;
+    
+    @Value("${trading.startup.warmup-threads:4}")
+    private int warmupThreads;
+    
+    @Value("${trading.market-data.lookback-days:7}")
+    private int lookbackDays;
+    
+    private final Map<String, Long> warmupMillis = new ConcurrentHashMap<>();
+    private final AtomicInteger quotesSeeded = new AtomicInteger();
+    
+    // Before the other ready listeners, which then run while the caches load
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void warmUp() {
+        log.info("Ready {} ms after JVM start", tradingMetrics.recordStartup("ready"));
+        
+        ExecutorService executor = taskExecutors.newExecutor("startup-warmup-", warmupThreads);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        tasks.add(CompletableFuture.runAsync(() -> timed("instrumentIndex", this::warmInstrumentIndex), executor));
+        for (String symbol : symbols) {
+            tasks.add(CompletableFuture.runAsync(() -> seedQuote(symbol), executor));
+        }
+        
+        long startedAt = System.nanoTime();
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            executor.shutdown();
+            warmupMillis.put("total", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            if (error != null) {
+                log.warn("Startup warmup incomplete: {}", error.getMessage());
+            }
+            log.info("Warmed instrument index and {} latest quotes, {} ms after JVM start",
+                    quotesSeeded.get(), tradingMetrics.recordStartup("warmup"));
+        });
+    }
+    
+    private void warmInstrumentIndex() {
+        for (String symbol : symbols) {
+            String token = angelOneApiService.getSymbolToken(symbol);
+            if (!"0".equals(token)) {
+                angelOneWebSocketService.registerSymbol(symbol, token);
+            }
+        }
+    }
+    
+    private void seedQuote(String symbol) {
+        LocalDateTime startTime = LocalDateTime.now().minusDays(lookbackDays);
+        marketDataRepository.findTopBySymbolAndTimeFrameAndTimestampGreaterThanEqualOrderByTimestampDesc(
+                symbol, TimeFrames.MINUTE, startTime).ifPresent(bar -> {
+            if (quoteSnapshotStore.seed(bar)) {
+                quotesSeeded.incrementAndGet();
+            }
+        });
+    }
+    
+    private void timed(String cache, Runnable warmup) {
+        long startedAt = System.nanoTime();
+        warmup.run();
+        warmupMillis.put(cache, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("uptimeMillisAtPhase", tradingMetrics.getStartupPhases());
+        stats.put("warmupMillis", new LinkedHashMap<>(warmupMillis));
+        stats.put("quotesSeeded", quotesSeeded.get());
+        return stats;
+    }
+}
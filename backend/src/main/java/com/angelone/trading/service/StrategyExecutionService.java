@@ -1,19 +1,48 @@
 package com.angelone.trading.service;
 
+import com.angelone.trading.config.TaskExecutors;
 import com.angelone.trading.entity.MarketData;
 import com.angelone.trading.entity.Strategy;
 import com.angelone.trading.entity.Trade;
 import com.angelone.trading.entity.User;
+import com.angelone.trading.jfr.StrategyEvaluatedEvent;
 import com.angelone.trading.repository.MarketDataRepository;
 import com.angelone.trading.repository.StrategyRepository;
+import com.angelone.trading.repository.TradeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Scans every active strategy across its symbol universe once per interval.
+ * Evaluations are grouped by series (symbol and time frame): each series is
+ * one task on the scan executor, loading its bars once and computing each
+ * indicator once for all the strategies that evaluate it.
+ * <p>
+ * Symbols without a broker instrument token are left out of the scan. Series
+ * of one user run in parallel, but that user's orders are placed one at a
+ * time, each sized from the capital the user's pending and open trades leave free.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -24,68 +53,151 @@ public class StrategyExecutionService {
     private final TechnicalAnalysisService technicalAnalysisService;
     private final TradeService tradeService;
     private final NotificationService notificationService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final TradingMetrics tradingMetrics;
+    private final SymbolUniverseService symbolUniverseService;
+    private final TaskExecutors taskExecutors;
+    private final AngelOneApiService angelOneApiService;
+    private final TradeRepository tradeRepository;
     
-    @Scheduled(fixedRate = 10000) // Every 10 seconds
+    @Value("${trading.market-data.strategy-bars:500}")
+    private int strategyBars;
+    
+    @Value("${trading.market-data.lookback-days:7}")
+    private int lookbackDays;
+    
+    @Value("${trading.strategy.execution-interval:10000}")
+    private long executionInterval;
+    
+    @Value("${trading.strategy.scan-threads:8}")
+    private int scanThreads;
+    
+    private ExecutorService scanExecutor;
+    private final Map<Long, ReentrantLock> userOrderLocks = new ConcurrentHashMap<>();
+    private final Set<String> untradableSymbols = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    public void init() {
+        scanExecutor = taskExecutors.newExecutor("strategy-scan-", scanThreads);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scanExecutor.shutdown();
+    }
+    
+    @Scheduled(fixedRateString = "${trading.strategy.execution-interval:10000}")
     public void executeActiveStrategies() {
+        long startedAt = System.nanoTime();
         try {
             List<Strategy> activeStrategies = strategyRepository.findByIsActiveTrue();
             
+            Map<String, Series> series = new LinkedHashMap<>();
+            int evaluations = 0;
             for (Strategy strategy : activeStrategies) {
-                executeStrategy(strategy);
+                for (String symbol : symbolUniverseService.resolve(strategy.getSymbols())) {
+                    if (!angelOneApiService.hasSymbolToken(symbol)) {
+                        if (untradableSymbols.add(symbol)) {
+                            log.warn("No instrument token for {}, leaving it out of strategy scans", symbol);
+                        }
+                        continue;
+                    }
+                    series.computeIfAbsent(symbol + '|' + strategy.getTimeFrame(),
+                            key -> new Series(symbol, strategy.getTimeFrame())).strategies.add(strategy);
+                    evaluations++;
+                }
             }
             
-            log.debug("Executed {} active strategies", activeStrategies.size());
+            List<Callable<Void>> tasks = new ArrayList<>(series.size());
+            for (Series s : series.values()) {
+                tasks.add(() -> {
+                    scan(s);
+                    return null;
+                });
+            }
+            scanExecutor.invokeAll(tasks);
+            
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(
+                    tradingMetrics.recordStrategyScan(startedAt, series.size(), evaluations));
+            if (elapsedMillis > executionInterval) {
+                log.warn("Strategy scan took {} ms for {} evaluations over {} series, longer than the {} ms interval",
+                        elapsedMillis, evaluations, series.size(), executionInterval);
+            }
+            log.debug("Executed {} active strategies: {} evaluations over {} series in {} ms",
+                    activeStrategies.size(), evaluations, series.size(), elapsedMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error executing strategies", e);
         }
     }
     
-    private void executeStrategy(Strategy strategy) {
+    private void scan(Series series) {
+        IndicatorMemo indicators;
+        try {
+            indicators = new IndicatorMemo(technicalAnalysisService, recentBars(series.symbol, series.timeFrame));
+        } catch (Exception e) {
+            log.error("Error loading {} {} bars: {}", series.symbol, series.timeFrame, e.getMessage());
+            return;
+        }
+        for (Strategy strategy : series.strategies) {
+            executeStrategy(strategy, series.symbol, indicators);
+        }
+    }
+    
+    private void executeStrategy(Strategy strategy, String symbol, IndicatorMemo indicators) {
+        long startedAt = System.nanoTime();
+        boolean signalled = false;
+        StrategyEvaluatedEvent evaluated = new StrategyEvaluatedEvent();
+        evaluated.begin();
+        evaluated.outcome = StrategyEvaluatedEvent.NO_SIGNAL;
         try {
             switch (strategy.getType()) {
                 case EMA_CROSSOVER:
-                    executeEMACrossoverStrategy(strategy);
+                    signalled = executeEMACrossoverStrategy(strategy, symbol, indicators);
                     break;
                 case RSI:
-                    executeRSIStrategy(strategy);
+                    signalled = executeRSIStrategy(strategy, symbol, indicators);
                     break;
                 default:
                     log.warn("Strategy type {} not implemented", strategy.getType());
             }
+            if (signalled) {
+                evaluated.outcome = StrategyEvaluatedEvent.SIGNAL;
+            }
+        } catch (DuplicateOrderException e) {
+            evaluated.outcome = StrategyEvaluatedEvent.DUPLICATE;
+            log.debug("Strategy {} already traded {} this bar: {}", strategy.getName(), symbol, e.getMessage());
         } catch (Exception e) {
-            log.error("Error executing strategy {}: {}", strategy.getName(), e.getMessage());
+            evaluated.outcome = StrategyEvaluatedEvent.ERROR;
+            log.error("Error executing strategy {} on {}: {}", strategy.getName(), symbol, e.getMessage());
+        } finally {
+            tradingMetrics.recordStrategyEvaluation(startedAt, signalled);
+            if (evaluated.shouldCommit()) {
+                evaluated.strategyId = strategy.getId() != null ? strategy.getId() : 0;
+                evaluated.strategyName = strategy.getName();
+                evaluated.strategyType = String.valueOf(strategy.getType());
+                evaluated.symbol = symbol;
+                evaluated.timeFrame = strategy.getTimeFrame();
+                evaluated.commit();
+            }
         }
     }
     
-    private void executeEMACrossoverStrategy(Strategy strategy) {
-        // For demo purposes, we'll use NIFTY as the default symbol
-        String symbol = "NIFTY";
-        
-        List<MarketData> historicalData = marketDataRepository
-                .findBySymbolAndTimeFrameOrderByTimestampDesc(symbol, strategy.getTimeFrame());
+    private boolean executeEMACrossoverStrategy(Strategy strategy, String symbol, IndicatorMemo indicators) {
+        List<MarketData> historicalData = indicators.bars;
         
         if (historicalData.size() < Math.max(strategy.getEmaFast(), strategy.getEmaSlow()) + 1) {
-            return; // Not enough data
+            return false; // Not enough data
         }
         
-        boolean isCrossover = technicalAnalysisService.isEMACrossover(
-                historicalData, strategy.getEmaFast(), strategy.getEmaSlow());
+        boolean isCrossover = indicators.isEMACrossover(strategy.getEmaFast(), strategy.getEmaSlow());
         
         if (isCrossover) {
-            MarketData currentData = historicalData.get(0);
-            
             // Create a buy trade
-            Trade trade = new Trade();
-            trade.setUser(strategy.getUser());
-            trade.setStrategy(strategy);
-            trade.setSymbol(symbol);
-            trade.setType(Trade.TradeType.BUY);
-            trade.setQuantity(calculatePositionSize(strategy, currentData.getClose()));
-            trade.setPrice(currentData.getClose());
-            trade.setStopLoss(calculateStopLoss(currentData.getClose(), strategy.getStopLossPercentage()));
-            trade.setTakeProfit(calculateTakeProfit(currentData.getClose(), strategy.getTakeProfitPercentage()));
-            
-            tradeService.executeTrade(trade);
+            if (!placeOrder(strategy, symbol, Trade.TradeType.BUY, historicalData.get(0))) {
+                return true;
+            }
             
             // Send notification
             notificationService.sendStrategyTriggeredNotification(
@@ -96,36 +208,26 @@ public class StrategyExecutionService {
             
             log.info("EMA Crossover strategy {} triggered for {}", strategy.getName(), symbol);
         }
+        return isCrossover;
     }
     
-    private void executeRSIStrategy(Strategy strategy) {
-        String symbol = "NIFTY";
-        
-        List<MarketData> historicalData = marketDataRepository
-                .findBySymbolAndTimeFrameOrderByTimestampDesc(symbol, strategy.getTimeFrame());
+    private boolean executeRSIStrategy(Strategy strategy, String symbol, IndicatorMemo indicators) {
+        List<MarketData> historicalData = indicators.bars;
         
         if (historicalData.size() < strategy.getRsiPeriod() + 1) {
-            return;
+            return false;
         }
         
-        BigDecimal rsi = technicalAnalysisService.calculateRSI(historicalData, strategy.getRsiPeriod());
+        BigDecimal rsi = indicators.rsi(strategy.getRsiPeriod());
         MarketData currentData = historicalData.get(0);
         
         boolean shouldBuy = technicalAnalysisService.isRSIOversold(rsi, strategy.getRsiOversold());
         boolean shouldSell = technicalAnalysisService.isRSIOverbought(rsi, strategy.getRsiOverbought());
         
         if (shouldBuy || shouldSell) {
-            Trade trade = new Trade();
-            trade.setUser(strategy.getUser());
-            trade.setStrategy(strategy);
-            trade.setSymbol(symbol);
-            trade.setType(shouldBuy ? Trade.TradeType.BUY : Trade.TradeType.SELL);
-            trade.setQuantity(calculatePositionSize(strategy, currentData.getClose()));
-            trade.setPrice(currentData.getClose());
-            trade.setStopLoss(calculateStopLoss(currentData.getClose(), strategy.getStopLossPercentage()));
-            trade.setTakeProfit(calculateTakeProfit(currentData.getClose(), strategy.getTakeProfitPercentage()));
-            
-            tradeService.executeTrade(trade);
+            if (!placeOrder(strategy, symbol, shouldBuy ? Trade.TradeType.BUY : Trade.TradeType.SELL, currentData)) {
+                return true;
+            }
             
             String action = shouldBuy ? "Buy" : "Sell";
             notificationService.sendStrategyTriggeredNotification(
@@ -137,22 +239,129 @@ public class StrategyExecutionService {
             log.info("RSI strategy {} triggered {} for {} (RSI: {})", 
                     strategy.getName(), action, symbol, rsi);
         }
+        return shouldBuy || shouldSell;
+    }
+    
+    private List<MarketData> recentBars(String symbol, String timeFrame) {
+        return marketDataRepository.findRecentBars(symbol, timeFrame,
+                TimeFrames.lookbackStart(LocalDateTime.now(), timeFrame, strategyBars, lookbackDays),
+                PageRequest.of(0, strategyBars));
+    }
+    
+    /**
+     * Sizes and places the order for one signal while holding the user's order
+     * lock, so the next signal of the same user is sized after this one is
+     * recorded.
+     *
+     * @return false when no capital is free for the position
+     */
+    private boolean placeOrder(Strategy strategy, String symbol, Trade.TradeType type, MarketData currentData) {
+        ReentrantLock lock = userOrderLocks.computeIfAbsent(strategy.getUser().getId(), id -> new ReentrantLock());
+        lock.lock();
+        try {
+            int quantity = calculatePositionSize(strategy, currentData.getClose());
+            if (quantity <= 0) {
+                log.info("Strategy {} signalled {} on {} but its user has no free capital", strategy.getName(), type, symbol);
+                return false;
+            }
+            
+            Trade trade = new Trade();
+            trade.setUser(strategy.getUser());
+            trade.setStrategy(strategy);
+            trade.setSymbol(symbol);
+            trade.setType(type);
+            trade.setQuantity(quantity);
+            trade.setPrice(currentData.getClose());
+            trade.setStopLoss(calculateStopLoss(type, currentData.getClose(), strategy.getStopLossPercentage()));
+            trade.setTakeProfit(calculateTakeProfit(type, currentData.getClose(), strategy.getTakeProfitPercentage()));
+            trade.setClientOrderId(orderIdempotencyService.strategyOrderId(
+                    strategy.getId(), symbol, currentData.getTimestamp(), strategy.getTimeFrame()));
+            
+            tradeService.executeTrade(trade);
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
     
-    private Integer calculatePositionSize(Strategy strategy, BigDecimal price) {
+    /**
+     * The strategy's share of the balance, capped by what the user's pending
+     * and open trades leave free.
+     */
+    private int calculatePositionSize(Strategy strategy, BigDecimal price) {
         User user = strategy.getUser();
         BigDecimal maxCapital = user.getAccountBalance()
                 .multiply(strategy.getMaxCapitalPercentage())
                 .divide(BigDecimal.valueOf(100));
+        BigDecimal freeCapital = user.getAccountBalance().subtract(tradeRepository.sumCommittedCapital(user.getId()));
         
-        return maxCapital.divide(price, 0, BigDecimal.ROUND_DOWN).intValue();
+        BigDecimal capital = maxCapital.min(freeCapital);
+        if (capital.signum() <= 0) {
+            return 0;
+        }
+        return capital.divide(price, 0, RoundingMode.DOWN).intValue();
+    }
+    
+    // A short loses as the price rises, so its stop sits above entry and its target below
+    private BigDecimal calculateStopLoss(Trade.TradeType type, BigDecimal price, BigDecimal stopLossPercentage) {
+        BigDecimal move = stopLossPercentage.divide(BigDecimal.valueOf(100));
+        return price.multiply(type == Trade.TradeType.SELL ? BigDecimal.ONE.add(move) : BigDecimal.ONE.subtract(move));
     }
     
-    private BigDecimal calculateStopLoss(BigDecimal price, BigDecimal stopLossPercentage) {
-        return price.multiply(BigDecimal.ONE.subtract(stopLossPercentage.divide(BigDecimal.valueOf(100))));
+    private BigDecimal calculateTakeProfit(Trade.TradeType type, BigDecimal price, BigDecimal takeProfitPercentage) {
+        BigDecimal move = takeProfitPercentage.divide(BigDecimal.valueOf(100));
+        return price.multiply(type == Trade.TradeType.SELL ? BigDecimal.ONE.subtract(move) : BigDecimal.ONE.add(move));
+    }
+    
+    private static final class Series {
+        private final String symbol;
+        private final String timeFrame;
+        private final List<Strategy> strategies = new ArrayList<>();
+        
+        private Series(String symbol, String timeFrame) {
+            this.symbol = symbol;
+            this.timeFrame = timeFrame;
+        }
     }
     
-    private BigDecimal calculateTakeProfit(BigDecimal price, BigDecimal takeProfitPercentage) {
-        return price.multiply(BigDecimal.ONE.add(takeProfitPercentage.divide(BigDecimal.valueOf(100))));
+    /**
+     * Indicators of one series for one scan, computed on first use and reused by
+     * every strategy with the same periods. Used by a single scan task.
+     */
+    private static final class IndicatorMemo {
+        private final TechnicalAnalysisService technicalAnalysisService;
+        private final List<MarketData> bars;
+        // Current and previous bar's EMA by period
+        private final Map<Integer, BigDecimal[]> emas = new HashMap<>();
+        private final Map<Integer, BigDecimal> rsis = new HashMap<>();
+        
+        private IndicatorMemo(TechnicalAnalysisService technicalAnalysisService, List<MarketData> bars) {
+            this.technicalAnalysisService = technicalAnalysisService;
+            this.bars = bars;
+        }
+        
+        /**
+         * Same rule as {@link TechnicalAnalysisService#isEMACrossover}: the fast EMA
+         * crossed above the slow one on the newest bar.
+         */
+        private boolean isEMACrossover(int fastPeriod, int slowPeriod) {
+            if (bars.size() < Math.max(fastPeriod, slowPeriod) + 1) {
+                return false;
+            }
+            BigDecimal[] fast = ema(fastPeriod);
+            BigDecimal[] slow = ema(slowPeriod);
+            return fast[1].compareTo(slow[1]) <= 0 && fast[0].compareTo(slow[0]) > 0;
+        }
+        
+        private BigDecimal[] ema(int period) {
+            return emas.computeIfAbsent(period, p -> new BigDecimal[]{
+                    technicalAnalysisService.calculateEMA(bars, p),
+                    technicalAnalysisService.calculateEMA(bars.subList(1, bars.size()), p)
+            });
+        }
+        
+        private BigDecimal rsi(int period) {
+            return rsis.computeIfAbsent(period, p -> technicalAnalysisService.calculateRSI(bars, p));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.CacheConfig;
+import com.angelone.trading.dto.StrategyResponse;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.repository.StrategyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@RequiredArgsConstructor
+public class StrategyService {
+    
+    private final StrategyRepository strategyRepository;
+    private final SymbolUniverseService symbolUniverseService;
+    private final AngelOneApiService angelOneApiService;
+    
+    @Cacheable(value = CacheConfig.STRATEGIES, key = "#user.id")
+    public List<StrategyResponse> getUserStrategies(User user) {
+        return strategyRepository.findStrategyResponses(user.getId());
+    }
+    
+    /**
+     * Orders need the broker's instrument token, so every symbol listed by name
+     * must have one and the universe must hold at least one tradable symbol.
+     * Index constituents without a token are skipped when strategies are scanned.
+     *
+     * @throws IllegalArgumentException naming the first symbol that cannot be traded
+     */
+    public void validateUniverse(String universe) {
+        if (universe != null) {
+            for (String entry : universe.split(",")) {
+                String item = entry.trim();
+                if (!item.isEmpty() && !SymbolUniverseService.isIndex(item)
+                        && !angelOneApiService.hasSymbolToken(item.toUpperCase(Locale.ROOT))) {
+                    throw new IllegalArgumentException("No instrument token for " + item);
+                }
+            }
+        }
+        if (symbolUniverseService.resolve(universe).stream().noneMatch(angelOneApiService::hasSymbolToken)) {
+            throw new IllegalArgumentException("No tradable symbol in " + universe);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.angelone.trading.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves a strategy's symbol universe. The universe is a comma-separated
+ * list of symbols and index names written as {@code index:<name>}; an index
+ * expands to the constituents configured as {@code trading.universes.<name>}.
+ * Resolved lists are kept, as both the specs and the configuration are fixed
+ * for the life of the process.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SymbolUniverseService {
+    
+    public static final String DEFAULT_UNIVERSE = "NIFTY";
+    private static final String INDEX_PREFIX = "index:";
+    
+    private final Environment environment;
+    private final Map<String, List<String>> resolved = new ConcurrentHashMap<>();
+    
+    public List<String> resolve(String universe) {
+        String spec = universe == null || universe.isBlank() ? DEFAULT_UNIVERSE : universe;
+        return resolved.computeIfAbsent(spec, this::expand);
+    }
+    
+    public static boolean isIndex(String item) {
+        return item.regionMatches(true, 0, INDEX_PREFIX, 0, INDEX_PREFIX.length());
+    }
+    
+    private List<String> expand(String spec) {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (String entry : spec.split(",")) {
+            String item = entry.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            if (isIndex(item)) {
+                String index = item.substring(INDEX_PREFIX.length()).trim().toLowerCase(Locale.ROOT);
+                String constituents = environment.getProperty("trading.universes." + index);
+                if (constituents == null) {
+                    log.warn("Unknown symbol universe {} in {}", index, spec);
+                    continue;
+                }
+                for (String symbol : constituents.split(",")) {
+                    if (!symbol.isBlank()) {
+                        symbols.add(symbol.trim().toUpperCase(Locale.ROOT));
+                    }
+                }
+            } else {
+                symbols.add(item.toUpperCase(Locale.ROOT));
+            }
+        }
+        return List.copyOf(symbols);
+    }
+}
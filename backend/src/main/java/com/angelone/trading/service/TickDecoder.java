@@ -0,0 +1,168 @@
+package com.angelone.trading.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes Smart Stream ticks straight into a {@link TickEvent} slot.
+ *
+ * Binary frames (WebSocket 2.0) are little-endian: mode and exchange type bytes,
+ * a 25 byte null-padded token, then sequence number, exchange timestamp and
+ * last traded price as int64 (prices in paise). Quote and snap-quote frames go
+ * on with quantity, average price, volume, buy/sell totals and the day's OHLC.
+ */
+public final class TickDecoder {
+    
+    public static final int MODE_LTP = 1;
+    public static final int MODE_QUOTE = 2;
+    public static final int MODE_SNAP_QUOTE = 3;
+    
+    private static final int TOKEN_OFFSET = 2;
+    private static final int TOKEN_LENGTH = 25;
+    private static final int EXCHANGE_TIMESTAMP_OFFSET = 35;
+    private static final int LTP_OFFSET = 43;
+    private static final int VOLUME_OFFSET = 67;
+    private static final int OPEN_OFFSET = 91;
+    private static final int HIGH_OFFSET = 99;
+    private static final int LOW_OFFSET = 107;
+    private static final int CLOSE_OFFSET = 115;
+    
+    public static final int LTP_PACKET_SIZE = 51;
+    public static final int QUOTE_PACKET_SIZE = 123;
+    
+    private TickDecoder() {
+    }
+    
+    /**
+     * Decodes one binary frame. Returns false for frames too short for their mode.
+     */
+    public static boolean decodeBinary(ByteBuffer frame, TickEvent event) {
+        ByteBuffer buffer = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int base = buffer.position();
+        int length = buffer.remaining();
+        if (length < LTP_PACKET_SIZE) {
+            return false;
+        }
+        
+        int mode = buffer.get(base);
+        event.token = readToken(buffer, base + TOKEN_OFFSET);
+        event.exchangeTimestamp = buffer.getLong(base + EXCHANGE_TIMESTAMP_OFFSET);
+        event.lastPrice = buffer.getLong(base + LTP_OFFSET);
+        
+        if (mode >= MODE_QUOTE && length >= QUOTE_PACKET_SIZE) {
+            event.volume = buffer.getLong(base + VOLUME_OFFSET);
+            event.open = buffer.getLong(base + OPEN_OFFSET);
+            event.high = buffer.getLong(base + HIGH_OFFSET);
+            event.low = buffer.getLong(base + LOW_OFFSET);
+            event.close = buffer.getLong(base + CLOSE_OFFSET);
+        } else {
+            event.volume = 0;
+            event.open = event.high = event.low = event.close = event.lastPrice;
+        }
+        return true;
+    }
+    
+    /**
+     * Decodes a JSON tick ({@code tk}, {@code lp}, {@code o}, {@code h}, {@code l},
+     * {@code v} and optional feed time {@code ft}).
+     */
+    public static boolean decodeJson(JsonNode data, TickEvent event) {
+        if (!data.has("tk") || !data.has("lp")) {
+            return false;
+        }
+        
+        event.token = data.get("tk").asText();
+        event.lastPrice = toPaise(data.get("lp"));
+        event.open = data.has("o") ? toPaise(data.get("o")) : event.lastPrice;
+        event.high = data.has("h") ? toPaise(data.get("h")) : event.lastPrice;
+        event.low = data.has("l") ? toPaise(data.get("l")) : event.lastPrice;
+        event.close = event.lastPrice;
+        event.volume = data.has("v") ? data.get("v").asLong() : 0;
+        
+        long feedTime = data.hasNonNull("ft") ? data.get("ft").asLong() : System.currentTimeMillis();
+        // Older feeds send seconds
+        event.exchangeTimestamp = feedTime < 100_000_000_000L ? feedTime * 1000 : feedTime;
+        return true;
+    }
+    
+    /**
+     * Writes a quote-mode binary frame in the broker's layout, for simulators and tests.
+     * {@code token} must be ASCII and at most 25 bytes.
+     */
+    public static void encodeQuote(ByteBuffer frame, byte[] token, long sequence, long exchangeTimestamp,
+                                   long lastPrice, long volume, long open, long high, long low, long close) {
+        ByteBuffer buffer = frame.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.clear();
+        buffer.put(0, (byte) MODE_QUOTE);
+        buffer.put(1, (byte) 1); // NSE cash
+        for (int i = 0; i < TOKEN_LENGTH; i++) {
+            buffer.put(TOKEN_OFFSET + i, i < token.length ? token[i] : 0);
+        }
+        buffer.putLong(27, sequence);
+        buffer.putLong(EXCHANGE_TIMESTAMP_OFFSET, exchangeTimestamp);
+        buffer.putLong(LTP_OFFSET, lastPrice);
+        buffer.putLong(51, 1); // last traded quantity
+        buffer.putLong(59, lastPrice); // average traded price
+        buffer.putLong(VOLUME_OFFSET, volume);
+        buffer.putDouble(75, 0); // total buy quantity
+        buffer.putDouble(83, 0); // total sell quantity
+        buffer.putLong(OPEN_OFFSET, open);
+        buffer.putLong(HIGH_OFFSET, high);
+        buffer.putLong(LOW_OFFSET, low);
+        buffer.putLong(CLOSE_OFFSET, close);
+        buffer.limit(QUOTE_PACKET_SIZE);
+    }
+    
+    public static long toPaise(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    private static long toPaise(JsonNode price) {
+        return toPaise(new BigDecimal(price.asText()));
+    }
+    
+    /**
+     * Token of a binary frame without decoding the rest, or null for a frame too
+     * short to be a tick.
+     */
+    public static String binaryToken(ByteBuffer frame) {
+        if (frame.remaining() < LTP_PACKET_SIZE) {
+            return null;
+        }
+        return readToken(frame, frame.position() + TOKEN_OFFSET);
+    }
+    
+    /**
+     * Token of a JSON tick, found by scanning for its quoted {@code tk} value
+     * instead of parsing the frame, or null when there is none (acknowledgements,
+     * errors).
+     */
+    public static String jsonToken(String message) {
+        int key = message.indexOf("\"tk\"");
+        int colon = key < 0 ? -1 : message.indexOf(':', key + 4);
+        int start = colon < 0 ? -1 : message.indexOf('"', colon + 1);
+        int end = start < 0 ? -1 : message.indexOf('"', start + 1);
+        if (end < 0 || !message.substring(colon + 1, start).isBlank()) {
+            return null;
+        }
+        return message.substring(start + 1, end);
+    }
+    
+    private static String readToken(ByteBuffer buffer, int offset) {
+        int end = offset;
+        while (end < offset + TOKEN_LENGTH && buffer.get(end) != 0) {
+            end++;
+        }
+        
+        byte[] token = new byte[end - offset];
+        for (int i = 0; i < token.length; i++) {
+            token[i] = buffer.get(offset + i);
+        }
+        return new String(token, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,105 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.entity.MarketData;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * One preallocated slot of the {@link TickRingBuffer}. Producers overwrite the
+ * fields in place with prices in paise; a {@link MarketData} is only built when
+ * a consumer asks for one.
+ */
+public class TickEvent {
+    
+    String token;
+    String symbol;
+    long exchangeTimestamp;
+    long lastPrice;
+    long open;
+    long high;
+    long low;
+    long close;
+    long volume;
+    long receivedAtNanos;
+    long frameReceivedAtNanos;
+    boolean replayed;
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public long getExchangeTimestamp() {
+        return exchangeTimestamp;
+    }
+    
+    public long getLastPrice() {
+        return lastPrice;
+    }
+    
+    public long getReceivedAtNanos() {
+        return receivedAtNanos;
+    }
+    
+    /**
+     * When the socket delivered the frame this tick came from, as opposed to
+     * {@link #getReceivedAtNanos()}, which is when it was published on the ring.
+     */
+    public long getFrameReceivedAtNanos() {
+        return frameReceivedAtNanos;
+    }
+    
+    /**
+     * True for ticks of a {@link FeedReplayer} recording, which only the broadcast consumer acts on.
+     */
+    public boolean isReplayed() {
+        return replayed;
+    }
+    
+    public BigDecimal lastPrice() {
+        return BigDecimal.valueOf(lastPrice, 2);
+    }
+    
+    public void clear() {
+        token = null;
+        symbol = null;
+        exchangeTimestamp = 0;
+        lastPrice = open = high = low = close = volume = 0;
+        receivedAtNanos = 0;
+        frameReceivedAtNanos = 0;
+        replayed = false;
+    }
+    
+    public MarketData toMarketData() {
+        MarketData marketData = new MarketData();
+        marketData.setSymbol(symbol);
+        marketData.setClose(lastPrice()); // Last price
+        marketData.setOpen(BigDecimal.valueOf(open, 2));
+        marketData.setHigh(BigDecimal.valueOf(high, 2));
+        marketData.setLow(BigDecimal.valueOf(low, 2));
+        marketData.setVolume(volume);
+        marketData.setTimestamp(exchangeTimestamp > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(exchangeTimestamp), ZoneId.systemDefault())
+                : LocalDateTime.now());
+        marketData.setTimeFrame("1m");
+        
+        // Calculate change
+        BigDecimal change = marketData.getClose().subtract(marketData.getOpen());
+        marketData.setChange(change);
+        
+        if (open > 0) {
+            BigDecimal changePercent = change.divide(marketData.getOpen(), 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+            marketData.setChangePercent(changePercent);
+        }
+        
+        return marketData;
+    }
+}
@@ -0,0 +1,339 @@
+package com.angelone.trading.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock-free multi-producer ring of preallocated {@link TickEvent} slots in the
+ * style of the LMAX Disruptor. Feed decode threads claim a slot with a CAS on
+ * the cursor, fill it and publish it; every registered consumer reads all
+ * events on its own thread at its own pace.
+ *
+ * Producers never wait: when the slowest consumer is a full ring behind, the
+ * tick is dropped and counted, so a stalled consumer can never block the socket.
+ */
+@Slf4j
+public class TickRingBuffer {
+    
+    public enum WaitStrategy {
+        /** Lowest latency, burns a core per consumer. */
+        BUSY_SPIN,
+        /** Spins, then yields the CPU. */
+        YIELDING,
+        /** Spins, yields, then parks briefly. */
+        SLEEPING,
+        /** Parks on a condition until a producer signals. */
+        BLOCKING
+    }
+    
+    @FunctionalInterface
+    public interface TickConsumer {
+        /**
+         * Called for every published event in order. {@code endOfBatch} is true
+         * for the last event currently available, which is the place to flush.
+         */
+        void onTick(TickEvent event, long sequence, boolean endOfBatch) throws Exception;
+    }
+    
+    @FunctionalInterface
+    public interface Translator {
+        /** Fills the claimed slot. Returning false leaves the slot empty for consumers to skip. */
+        boolean translate(TickEvent event);
+    }
+    
+    private final int mask;
+    private final int indexShift;
+    private final TickEvent[] slots;
+    private final AtomicIntegerArray published;
+    private final WaitStrategy waitStrategy;
+    
+    private final PaddedSequence cursor = new PaddedSequence(-1);
+    private final List<ConsumerWorker> consumers = new ArrayList<>();
+    private volatile PaddedSequence[] gatingSequences = new PaddedSequence[0];
+    private volatile long cachedGatingSequence = -1;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition eventsAvailable = lock.newCondition();
+    
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running;
+    
+    public TickRingBuffer(int size, WaitStrategy waitStrategy) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring buffer size must be a power of two: " + size);
+        }
+        
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.waitStrategy = waitStrategy;
+        this.slots = new TickEvent[size];
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new TickEvent();
+            published.set(i, -1);
+        }
+    }
+    
+    /**
+     * Registers a consumer. Consumers must be added before {@link #start()}.
+     */
+    public synchronized void addConsumer(String name, TickConsumer consumer) {
+        if (running) {
+            throw new IllegalStateException("Consumers must be added before the ring buffer starts");
+        }
+        consumers.add(new ConsumerWorker(name, consumer));
+    }
+    
+    public synchronized void start() {
+        PaddedSequence[] sequences = new PaddedSequence[consumers.size()];
+        for (int i = 0; i < consumers.size(); i++) {
+            sequences[i] = consumers.get(i).sequence;
+        }
+        gatingSequences = sequences;
+        running = true;
+        
+        for (ConsumerWorker worker : consumers) {
+            Thread thread = new Thread(worker, "tick-consumer-" + worker.name);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            thread.start();
+        }
+    }
+    
+    public void stop() {
+        running = false;
+        signalAll();
+        for (ConsumerWorker worker : consumers) {
+            if (worker.thread != null) {
+                worker.thread.interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Claims a slot, fills it through the translator and publishes it.
+     * Returns false when the ring is full and the tick was dropped.
+     */
+    public boolean publish(Translator translator) {
+        long sequence = tryClaim();
+        if (sequence < 0) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        
+        TickEvent event = slots[(int) sequence & mask];
+        event.clear();
+        try {
+            if (translator.translate(event)) {
+                event.receivedAtNanos = System.nanoTime();
+            } else {
+                event.token = null;
+            }
+        } catch (RuntimeException e) {
+            // The slot is already claimed, so it must still be published for consumers to move past it
+            event.token = null;
+            log.error("Error decoding tick: {}", e.getMessage());
+        }
+        
+        published.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            signalAll();
+        }
+        return event.token != null;
+    }
+    
+    private long tryClaim() {
+        long current;
+        long next;
+        do {
+            current = cursor.get();
+            next = current + 1;
+            
+            long wrapPoint = next - slots.length;
+            if (wrapPoint > cachedGatingSequence) {
+                long minimum = minimumSequence(current);
+                cachedGatingSequence = minimum;
+                if (wrapPoint > minimum) {
+                    return -1;
+                }
+            }
+        } while (!cursor.compareAndSet(current, next));
+        return next;
+    }
+    
+    private long minimumSequence(long fallback) {
+        long minimum = fallback;
+        for (PaddedSequence sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+    
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+    
+    /**
+     * Highest sequence from {@code from} on that is published without gaps,
+     * or {@code from - 1} when {@code from} itself is not published yet.
+     */
+    private long highestPublished(long from, long available) {
+        for (long sequence = from; sequence <= available; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return available;
+    }
+    
+    private void signalAll() {
+        lock.lock();
+        try {
+            eventsAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private long waitFor(long sequence) throws InterruptedException {
+        int spins = 0;
+        while (running) {
+            long available = cursor.get();
+            if (available >= sequence && isPublished(sequence)) {
+                return highestPublished(sequence, available);
+            }
+            
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELDING:
+                    if (++spins > 100) {
+                        Thread.yield();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    break;
+                case SLEEPING:
+                    if (++spins > 200) {
+                        LockSupport.parkNanos(100_000);
+                    } else if (spins > 100) {
+                        Thread.yield();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    break;
+                case BLOCKING:
+                    lock.lockInterruptibly();
+                    try {
+                        if (cursor.get() < sequence && running) {
+                            // Timed so a publish racing this check costs at most one millisecond
+                            eventsAvailable.await(1, TimeUnit.MILLISECONDS);
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    break;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return sequence - 1;
+    }
+    
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", slots.length);
+        stats.put("waitStrategy", waitStrategy.name());
+        stats.put("published", cursor.get() + 1);
+        stats.put("dropped", dropped.get());
+        
+        Map<String, Object> consumerStats = new LinkedHashMap<>();
+        for (ConsumerWorker worker : consumers) {
+            Map<String, Object> workerStats = new LinkedHashMap<>();
+            workerStats.put("lag", cursor.get() - worker.sequence.get());
+            workerStats.put("errors", worker.errors.get());
+            workerStats.put("tickToConsumer", worker.latency.snapshot());
+            consumerStats.put(worker.name, workerStats);
+        }
+        stats.put("consumers", consumerStats);
+        return stats;
+    }
+    
+    private final class ConsumerWorker implements Runnable {
+        private final String name;
+        private final TickConsumer consumer;
+        private final PaddedSequence sequence = new PaddedSequence(-1);
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private Thread thread;
+        
+        private ConsumerWorker(String name, TickConsumer consumer) {
+            this.name = name;
+            this.consumer = consumer;
+        }
+        
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (running) {
+                try {
+                    long available = waitFor(next);
+                    // End of batch is the last non-empty slot, so a trailing empty slot never swallows the flush
+                    long last = available;
+                    while (last >= next && slots[(int) last & mask].token == null) {
+                        last--;
+                    }
+                    for (long current = next; current <= available; current++) {
+                        TickEvent event = slots[(int) current & mask];
+                        if (event.token == null) {
+                            continue;
+                        }
+                        
+                        latency.record(System.nanoTime() - event.receivedAtNanos);
+                        try {
+                            consumer.onTick(event, current, current == last);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            log.error("Tick consumer {} failed on {}: {}", name, event.symbol, e.getMessage());
+                        }
+                    }
+                    if (available >= next) {
+                        // Releases the slots back to producers
+                        sequence.set(available);
+                        next = available + 1;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sequence padded onto its own cache line so producers and consumers don't false-share.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedSequence extends AtomicLong {
+        private long p1, p2, p3, p4, p5, p6, p7;
+        
+        private PaddedSequence(long initialValue) {
+            super(initialValue);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.angelone.trading.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bar time frames as stored in {@code market_data.time_frame}: an amount and a
+ * unit of m, h or d, e.g. "1m", "15m", "1d".
+ */
+public final class TimeFrames {
+    
+    public static final String MINUTE = "1m";
+    public static final String DAY = "1d";
+    
+    // Bars only form during market hours (about 6 of 24, 5 days of 7), so a
+    // window of N intraday bars spans several times N bar lengths of wall time
+    private static final int WALL_CLOCK_FACTOR = 6;
+    
+    private TimeFrames() {
+    }
+    
+    /**
+     * Bar length in seconds; unparseable frames count as one minute.
+     */
+    public static long barSeconds(String timeFrame) {
+        if (timeFrame == null || timeFrame.length() < 2) {
+            return 60;
+        }
+        
+        long amount;
+        try {
+            amount = Long.parseLong(timeFrame.substring(0, timeFrame.length() - 1));
+        } catch (NumberFormatException e) {
+            return 60;
+        }
+        
+        switch (timeFrame.charAt(timeFrame.length() - 1)) {
+            case 'm': return amount * 60;
+            case 'h': return amount * 3600;
+            case 'd': return amount * 86400;
+            default: return 60;
+        }
+    }
+    
+    /**
+     * Earliest timestamp a query for the newest {@code bars} bars needs to look
+     * at, and never less than {@code minDays} back to cover weekends and
+     * holidays. Bounding bar queries by time lets MySQL prune them to the
+     * recent day partitions of market_data.
+     */
+    public static LocalDateTime lookbackStart(LocalDateTime now, String timeFrame, int bars, int minDays) {
+        long seconds = Math.max(barSeconds(timeFrame) * bars * WALL_CLOCK_FACTOR, minDays * 86400L);
+        return now.minusSeconds(seconds);
+    }
+}
@@ -0,0 +1,56 @@
+package com.angelone.trading.service;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Classic token bucket used to stay under the broker's per-second API limits.
+ */
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+    
+    public TokenBucket(double ratePerSecond, double burst) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+    
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Blocks the calling thread until a token is available.
+     */
+    public void acquire() throws InterruptedException {
+        while (!tryAcquire()) {
+            LockSupport.parkNanos(Math.max(nanosUntilAvailable(), 1000));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+    
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
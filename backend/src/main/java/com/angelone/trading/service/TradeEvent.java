@@ -0,0 +1,22 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.entity.Trade;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by {@link TradeService} once a trade is recorded as open or
+ * closed. {@link AnalyticsService} applies it after the publisher's
+ * transaction, if any, has committed, so a rollup failure never touches the trade.
+ */
+@Getter
+@RequiredArgsConstructor
+public class TradeEvent {
+    
+    public enum Kind {
+        OPENED, CLOSED
+    }
+    
+    private final Kind kind;
+    private final Trade trade;
+}
@@ -1,10 +1,17 @@
 package com.angelone.trading.service;
 
+import com.angelone.trading.dto.TradeResponse;
 import com.angelone.trading.entity.Trade;
 import com.angelone.trading.entity.User;
+import com.angelone.trading.jfr.OrderAckedEvent;
+import com.angelone.trading.jfr.OrderSubmittedEvent;
 import com.angelone.trading.repository.TradeRepository;
+import com.angelone.trading.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +19,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -22,9 +31,48 @@ public class TradeService {
     private final SimpMessagingTemplate messagingTemplate;
     private final NotificationService notificationService;
     private final AngelOneApiService angelOneApiService;
+    private final TradeTriggerService tradeTriggerService;
+    private final OrderSubmissionScheduler orderSubmissionScheduler;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final TradingMetrics tradingMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserRepository userRepository;
     
-    @Transactional
+    @Value("${trading.trades.max-page-size:1000}")
+    private int maxPageSize;
+    
+    /**
+     * Places an order. Not transactional: the trade row is written before and
+     * after the broker call in short transactions of their own, so no database
+     * connection is held while the order waits for the broker rate limit.
+     */
     public Trade executeTrade(Trade trade) {
+        long acceptedAt = System.nanoTime();
+        if (trade.getClientOrderId() == null) {
+            trade.setClientOrderId(orderIdempotencyService.newClientOrderId());
+        }
+        
+        // Reject retries and repeated signals before touching the database or the broker
+        Long userId = trade.getUser().getId();
+        if (!orderIdempotencyService.tryAcquire(userId, trade.getClientOrderId())) {
+            log.warn("Rejected duplicate order {}", trade.getClientOrderId());
+            tradingMetrics.orderDuplicate();
+            throw new DuplicateOrderException(trade.getClientOrderId());
+        }
+        
+        // Past the dedupe window the table decides; a rejected order may be retried under its id
+        Trade previous = tradeRepository.findByUserIdAndClientOrderId(userId, trade.getClientOrderId()).orElse(null);
+        if (previous != null) {
+            if (previous.getStatus() != Trade.TradeStatus.REJECTED) {
+                log.warn("Rejected duplicate order {}", trade.getClientOrderId());
+                tradingMetrics.orderDuplicate();
+                throw new DuplicateOrderException(trade.getClientOrderId());
+            }
+            trade.setId(previous.getId());
+            trade.setCreatedAt(previous.getCreatedAt());
+        }
+        
         try {
             // Set execution time
             trade.setExecutedAt(LocalDateTime.now());
@@ -32,12 +80,20 @@ public class TradeService {
             
             // Save trade first
             trade = tradeRepository.save(trade);
+            tradingMetrics.dbWrites("trades", 1);
             
-            // Execute trade via Angel One API (if configured)
-            boolean executed = angelOneApiService.placeTrade(trade);
+            // Execute trade via Angel One API (if configured), within the broker rate limits
+            Trade pending = trade;
+            boolean executed = tradingMetrics.timeBrokerAck(() -> submit(
+                    OrderSubmissionScheduler.OrderPriority.ENTRY,
+                    "entry:" + userId + ":" + pending.getClientOrderId(),
+                    pending,
+                    () -> angelOneApiService.placeTrade(pending)
+            ));
             
             if (executed) {
                 trade.setStatus(Trade.TradeStatus.OPEN);
+                tradingMetrics.orderExecuted();
                 log.info("Trade executed successfully: {}", trade.getId());
                 
                 // Send notification
@@ -48,30 +104,42 @@ public class TradeService {
                 );
             } else {
                 trade.setStatus(Trade.TradeStatus.REJECTED);
+                tradingMetrics.orderRejected();
+                orderIdempotencyService.release(userId, trade.getClientOrderId());
                 log.warn("Trade execution failed: {}", trade.getId());
             }
             
             trade = tradeRepository.save(trade);
+            tradingMetrics.dbWrites("trades", 1);
+            
+            if (trade.getStatus() == Trade.TradeStatus.OPEN) {
+                tradeTriggerService.arm(trade);
+                eventPublisher.publishEvent(new TradeEvent(TradeEvent.Kind.OPENED, trade));
+                strategyTradesChanged(trade);
+            }
             
             // Broadcast trade update via WebSocket
+            long pushStartedAt = System.nanoTime();
             messagingTemplate.convertAndSendToUser(
                     trade.getUser().getEmail(),
                     "/queue/trades",
-                    trade
+                    TradeResponse.from(trade)
             );
+            tradingMetrics.recordPush(pushStartedAt, acceptedAt);
             
             return trade;
             
         } catch (Exception e) {
             log.error("Error executing trade", e);
+            tradingMetrics.orderRejected();
+            orderIdempotencyService.release(userId, trade.getClientOrderId());
             trade.setStatus(Trade.TradeStatus.REJECTED);
             return tradeRepository.save(trade);
         }
     }
     
-    @Transactional
     public Trade closeTrade(Long tradeId, User user) {
-        Trade trade = tradeRepository.findById(tradeId)
+        Trade trade = tradeRepository.findWithUserById(tradeId)
                 .orElseThrow(() -> new RuntimeException("Trade not found"));
         
         if (!trade.getUser().getId().equals(user.getId())) {
@@ -82,45 +150,146 @@ public class TradeService {
             throw new RuntimeException("Trade is not open");
         }
         
-        // Close trade via Angel One API
-        boolean closed = angelOneApiService.closeTrade(trade);
+        return closePosition(trade, user, OrderSubmissionScheduler.OrderPriority.EXIT,
+                "Position closed for " + trade.getSymbol());
+    }
+    
+    public Trade closeTriggeredTrade(Long tradeId, BigDecimal triggerPrice, TradeTriggerService.ExitReason reason) {
+        Trade trade = tradeRepository.findWithUserById(tradeId).orElse(null);
+        
+        // The position may have been closed manually while the exit was queued
+        if (trade == null || trade.getStatus() != Trade.TradeStatus.OPEN) {
+            return trade;
+        }
+        
+        trade.setCurrentPrice(triggerPrice);
+        String label = reason.name().replace('_', ' ').toLowerCase();
+        OrderSubmissionScheduler.OrderPriority priority = reason == TradeTriggerService.ExitReason.TAKE_PROFIT
+                ? OrderSubmissionScheduler.OrderPriority.EXIT
+                : OrderSubmissionScheduler.OrderPriority.STOP_LOSS;
+        return closePosition(trade, trade.getUser(), priority,
+                "Position closed for " + trade.getSymbol() + " on " + label);
+    }
+    
+    /**
+     * Runs outside a transaction like {@link #executeTrade}; the close is
+     * recorded with a conditional update, so of two closes racing on the same
+     * trade only the first books the P&L.
+     */
+    private Trade closePosition(Trade trade, User user, OrderSubmissionScheduler.OrderPriority priority, String message) {
+        tradeTriggerService.disarm(trade.getId());
+        
+        // Close trade via Angel One API; a manual close racing a trigger shares one exit order
+        Trade exiting = trade;
+        boolean closed = submit(
+                priority,
+                "exit:" + exiting.getId(),
+                exiting,
+                () -> angelOneApiService.closeTrade(exiting)
+        );
         
         if (closed) {
-            trade.setStatus(Trade.TradeStatus.CLOSED);
-            trade.setClosedAt(LocalDateTime.now());
-            
             // Calculate final P&L (this would be updated from real market data)
             // For demo, we'll use a simple calculation
             BigDecimal currentPrice = trade.getCurrentPrice() != null ? 
                     trade.getCurrentPrice() : trade.getPrice();
             
             BigDecimal pnl = calculatePnL(trade, currentPrice);
-            trade.setPnl(pnl);
+            LocalDateTime closedAt = LocalDateTime.now();
+            tradeTriggerService.exitSucceeded(trade.getId());
             
-            trade = tradeRepository.save(trade);
+            if (tradeRepository.markClosed(trade.getId(), currentPrice, pnl, closedAt) == 0) {
+                // Closed by a racing manual close or trigger sharing the same exit order
+                return tradeRepository.findById(trade.getId()).orElse(trade);
+            }
+            tradingMetrics.dbWrites("trades", 1);
+            trade.setStatus(Trade.TradeStatus.CLOSED);
+            trade.setCurrentPrice(currentPrice);
+            trade.setPnl(pnl);
+            trade.setClosedAt(closedAt);
+            trade.setUpdatedAt(closedAt);
             
             // Update user's total P&L
             updateUserPnL(user, pnl);
+            eventPublisher.publishEvent(new TradeEvent(TradeEvent.Kind.CLOSED, trade));
+            strategyTradesChanged(trade);
+            
+            // Broadcast the close like the open, so clients drop the position
+            messagingTemplate.convertAndSendToUser(
+                    user.getEmail(),
+                    "/queue/trades",
+                    TradeResponse.from(trade)
+            );
             
             // Send notification
             notificationService.sendTradeExecutedNotification(
                     user,
-                    "Position closed for " + trade.getSymbol() + 
-                    " with P&L: ₹" + pnl
+                    message + " with P&L: ₹" + pnl
             );
             
             log.info("Trade closed successfully: {} with P&L: {}", trade.getId(), pnl);
+        } else if (!tradeTriggerService.retryExit(trade)) {
+            // Out of retries: the position stays open at the broker and needs attention
+            notificationService.sendRiskAlertNotification(user,
+                    "Closing " + trade.getSymbol() + " (trade " + trade.getId()
+                            + ") keeps failing; the position is still open and no longer watched");
         }
         
         return trade;
     }
     
-    public List<Trade> getUserTrades(User user) {
-        return tradeRepository.findByUserOrderByCreatedAtDesc(user);
+    /**
+     * One page of the user's trades, newest first, starting after {@code beforeId}
+     * (the last id of the previous page) or at the newest trade when it is null.
+     */
+    @Transactional(readOnly = true)
+    public List<TradeResponse> getUserTrades(User user, Long beforeId, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, maxPageSize)));
+        return beforeId == null
+                ? tradeRepository.findTradePage(user.getId(), page)
+                : tradeRepository.findTradePageBefore(user.getId(), beforeId, page);
     }
     
-    public List<Trade> getUserOpenTrades(User user) {
-        return tradeRepository.findByUserAndStatusOrderByCreatedAtDesc(user, Trade.TradeStatus.OPEN);
+    @Transactional(readOnly = true)
+    public List<TradeResponse> getUserOpenTrades(User user) {
+        return tradeRepository.findTradesByStatus(user.getId(), Trade.TradeStatus.OPEN);
+    }
+    
+    /**
+     * Submits through the broker rate limits and waits for the answer, recording
+     * the submission and acknowledgement as flight recorder events.
+     */
+    private boolean submit(OrderSubmissionScheduler.OrderPriority priority, String dedupeKey, Trade trade,
+                           Supplier<Boolean> brokerCall) {
+        OrderSubmittedEvent submitted = new OrderSubmittedEvent();
+        if (submitted.isEnabled()) {
+            submitted.clientOrderId = dedupeKey;
+            submitted.symbol = trade.getSymbol();
+            submitted.side = String.valueOf(trade.getType());
+            submitted.quantity = trade.getQuantity() != null ? trade.getQuantity() : 0;
+            submitted.priority = priority.name();
+            submitted.commit();
+        }
+        
+        OrderAckedEvent acked = new OrderAckedEvent();
+        acked.begin();
+        boolean accepted = false;
+        try {
+            accepted = orderSubmissionScheduler.submit(priority, dedupeKey, trade, brokerCall).join();
+            return accepted;
+        } catch (CompletionException e) {
+            log.warn("Order {} was not submitted: {}", dedupeKey, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return false;
+        } finally {
+            if (acked.shouldCommit()) {
+                acked.clientOrderId = dedupeKey;
+                acked.brokerOrderId = trade.getAngelOneOrderId();
+                acked.symbol = trade.getSymbol();
+                acked.priority = priority.name();
+                acked.accepted = accepted;
+                acked.commit();
+            }
+        }
     }
     
     private BigDecimal calculatePnL(Trade trade, BigDecimal currentPrice) {
@@ -131,8 +300,22 @@ public class TradeService {
         return priceDiff.multiply(BigDecimal.valueOf(trade.getQuantity()));
     }
     
+    /**
+     * Strategy listings carry trade statistics, so a strategy's trades changing invalidates its owner's list.
+     */
+    private void strategyTradesChanged(Trade trade) {
+        if (trade.getStrategy() != null) {
+            cacheInvalidationService.strategiesChanged(trade.getUser().getId());
+        }
+    }
+    
+    /**
+     * Adds to the stored total in one statement instead of mutating the caller's
+     * user, which may be a request's principal or shared by concurrent orders.
+     */
     private void updateUserPnL(User user, BigDecimal pnl) {
-        user.setTotalPnL(user.getTotalPnL().add(pnl));
-        // This would be handled by UserService in a real application
+        userRepository.addTotalPnL(user.getId(), pnl);
+        // A bulk update skips the entity listener, so drop the cached principal here
+        cacheInvalidationService.userChanged(user.getEmail());
     }
 }
\ No newline at end of file
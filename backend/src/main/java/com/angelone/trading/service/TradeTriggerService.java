@@ -0,0 +1,406 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.repository.TradeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches stop-loss, take-profit and trailing-stop levels of open trades and
+ * closes positions as soon as a tick crosses one of them.
+ *
+ * Levels are kept per symbol in price-sorted ladders (in paise), so a tick only
+ * touches the levels it actually crosses: O(log n + k) for k fired triggers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TradeTriggerService {
+    
+    private static final long NONE = Long.MIN_VALUE;
+    
+    private final TradeRepository tradeRepository;
+    private final TaskExecutors taskExecutors;
+    
+    @Autowired
+    @Lazy
+    private TradeService tradeService;
+    
+    @Value("${trading.risk-management.trigger-exit-threads:4}")
+    private int exitThreads;
+    
+    @Value("${trading.risk-management.exit-retry-backoff:1000}")
+    private long exitRetryBackoff;
+    
+    @Value("${trading.risk-management.exit-retry-max-backoff:60000}")
+    private long exitRetryMaxBackoff;
+    
+    @Value("${trading.risk-management.exit-max-attempts:8}")
+    private int exitMaxAttempts;
+    
+    private final Map<String, TriggerBook> books = new ConcurrentHashMap<>();
+    private final Map<Long, Trigger> armedTriggers = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> failedExits = new ConcurrentHashMap<>();
+    private ExecutorService exitExecutor;
+    private ScheduledExecutorService retryScheduler;
+    
+    public enum ExitReason {
+        STOP_LOSS, TAKE_PROFIT, TRAILING_STOP
+    }
+    
+    @PostConstruct
+    public void init() {
+        exitExecutor = taskExecutors.newExecutor("trigger-exit-", exitThreads);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trigger-exit-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        exitExecutor.shutdown();
+        retryScheduler.shutdownNow();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void armOpenTrades() {
+        try {
+            List<Trade> openTrades = tradeRepository.findByStatus(Trade.TradeStatus.OPEN);
+            openTrades.forEach(this::arm);
+            log.info("Armed exit triggers for {} open trades", armedTriggers.size());
+        } catch (Exception e) {
+            log.error("Error arming exit triggers for open trades", e);
+        }
+    }
+    
+    /**
+     * Arms the trade's exit levels. A level on the wrong side of the entry price
+     * (a long's stop above it, a short's target above it, a non-positive trail)
+     * would fire on the first tick, so it is logged and left out instead. The
+     * check is against entry rather than the current price: a re-armed trade
+     * whose price has since crossed a valid level must still exit on it.
+     */
+    public void arm(Trade trade) {
+        boolean isLong = trade.getType() == Trade.TradeType.BUY;
+        long entry = toPaise(trade.getPrice());
+        long stopLevel = toPaise(trade.getStopLoss());
+        long targetLevel = toPaise(trade.getTakeProfit());
+        long trailDistance = toPaise(trade.getTrailingStop());
+        
+        if (stopLevel != NONE && (isLong ? stopLevel >= entry : stopLevel <= entry)) {
+            log.warn("Stop-loss {} of {} trade {} on {} is not {} its entry {}, not arming it", trade.getStopLoss(),
+                    trade.getType(), trade.getId(), trade.getSymbol(), isLong ? "below" : "above", trade.getPrice());
+            stopLevel = NONE;
+        }
+        if (targetLevel != NONE && (isLong ? targetLevel <= entry : targetLevel >= entry)) {
+            log.warn("Take-profit {} of {} trade {} on {} is not {} its entry {}, not arming it", trade.getTakeProfit(),
+                    trade.getType(), trade.getId(), trade.getSymbol(), isLong ? "above" : "below", trade.getPrice());
+            targetLevel = NONE;
+        }
+        if (trailDistance != NONE && trailDistance <= 0) {
+            log.warn("Trailing stop {} of trade {} on {} is not a positive distance, not arming it",
+                    trade.getTrailingStop(), trade.getId(), trade.getSymbol());
+            trailDistance = NONE;
+        }
+        
+        disarm(trade.getId());
+        if (stopLevel == NONE && targetLevel == NONE && trailDistance == NONE) {
+            return;
+        }
+        
+        Trigger trigger = new Trigger(trade.getId(), trade.getSymbol(), isLong, stopLevel, targetLevel, trailDistance);
+        
+        long referencePrice = toPaise(trade.getCurrentPrice() != null ? trade.getCurrentPrice() : trade.getPrice());
+        armedTriggers.put(trade.getId(), trigger);
+        books.computeIfAbsent(trade.getSymbol(), symbol -> new TriggerBook()).add(trigger, referencePrice);
+        
+        log.debug("Armed exit trigger for trade {} on {}", trade.getId(), trade.getSymbol());
+    }
+    
+    public void disarm(Long tradeId) {
+        Trigger trigger = armedTriggers.remove(tradeId);
+        if (trigger == null) {
+            return;
+        }
+        
+        TriggerBook book = books.get(trigger.symbol);
+        if (book != null) {
+            book.remove(trigger);
+        }
+    }
+    
+    public void onTick(String symbol, BigDecimal price) {
+        if (price == null) {
+            return;
+        }
+        
+        TriggerBook book = books.get(symbol);
+        if (book == null) {
+            return;
+        }
+        
+        List<Trigger> fired = book.onTick(toPaise(price));
+        for (Trigger trigger : fired) {
+            if (armedTriggers.remove(trigger.tradeId, trigger)) {
+                exitExecutor.execute(() -> exit(trigger, price));
+            }
+        }
+    }
+    
+    public int getArmedTriggerCount() {
+        return armedTriggers.size();
+    }
+    
+    /**
+     * Called when the broker refused or failed an exit. The trade's levels are
+     * armed again after an exponential backoff instead of on the next tick, so
+     * a failing broker is not hit on every tick.
+     *
+     * @return false once the exit has failed {@code exit-max-attempts} times in
+     *         a row; the trade is then left unarmed for the caller to escalate
+     */
+    public boolean retryExit(Trade trade) {
+        int attempts = failedExits.merge(trade.getId(), 1, Integer::sum);
+        if (attempts >= exitMaxAttempts) {
+            failedExits.remove(trade.getId());
+            log.error("Exit for trade {} on {} failed {} times, no longer retrying",
+                    trade.getId(), trade.getSymbol(), attempts);
+            return false;
+        }
+        
+        long delay = Math.min(exitRetryMaxBackoff, exitRetryBackoff << Math.min(attempts - 1, 20));
+        log.warn("Exit for trade {} on {} failed (attempt {}), re-arming in {} ms",
+                trade.getId(), trade.getSymbol(), attempts, delay);
+        retryScheduler.schedule(() -> arm(trade), delay, TimeUnit.MILLISECONDS);
+        return true;
+    }
+    
+    public void exitSucceeded(Long tradeId) {
+        failedExits.remove(tradeId);
+    }
+    
+    public int getFailedExitCount() {
+        return failedExits.size();
+    }
+    
+    private void exit(Trigger trigger, BigDecimal price) {
+        try {
+            log.info("{} triggered for trade {} on {} at {}", trigger.reason, trigger.tradeId, trigger.symbol, price);
+            tradeService.closeTriggeredTrade(trigger.tradeId, price, trigger.reason);
+        } catch (Exception e) {
+            log.error("Error closing trade {} on {}: {}", trigger.tradeId, trigger.reason, e.getMessage());
+        }
+    }
+    
+    private static long toPaise(BigDecimal price) {
+        return price == null ? NONE : price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+    
+    private static final class Trigger {
+        private final Long tradeId;
+        private final String symbol;
+        private final boolean isLong;
+        private final long targetLevel;
+        private final long trailDistance;
+        private long stopLevel;
+        private long watermark;
+        private ExitReason reason;
+        
+        private Trigger(Long tradeId, String symbol, boolean isLong, long stopLevel, long targetLevel, long trailDistance) {
+            this.tradeId = tradeId;
+            this.symbol = symbol;
+            this.isLong = isLong;
+            this.stopLevel = stopLevel;
+            this.targetLevel = targetLevel;
+            this.trailDistance = trailDistance;
+        }
+        
+        private boolean isTrailing() {
+            return trailDistance != NONE;
+        }
+    }
+    
+    /**
+     * All armed levels of one symbol. Ticks for a symbol arrive on a single feed
+     * thread, so the monitor is practically uncontended.
+     */
+    private static final class TriggerBook {
+        // Fires when price falls to the level: long stop-losses, short take-profits
+        private final PriceLadder fallingLadder = new PriceLadder();
+        // Fires when price rises to the level: long take-profits, short stop-losses
+        private final PriceLadder risingLadder = new PriceLadder();
+        // Trailing stops keyed by the best price their stop was last ratcheted to
+        private final PriceLadder longWatermarks = new PriceLadder();
+        private final PriceLadder shortWatermarks = new PriceLadder();
+        
+        synchronized void add(Trigger trigger, long referencePrice) {
+            if (trigger.isTrailing()) {
+                long trailed = trail(trigger, referencePrice);
+                if (trigger.stopLevel == NONE || tighter(trigger, trailed)) {
+                    trigger.stopLevel = trailed;
+                }
+                trigger.watermark = referencePrice;
+                watermarks(trigger).add(referencePrice, trigger);
+            }
+            if (trigger.stopLevel != NONE) {
+                stopLadder(trigger).add(trigger.stopLevel, trigger);
+            }
+            if (trigger.targetLevel != NONE) {
+                targetLadder(trigger).add(trigger.targetLevel, trigger);
+            }
+        }
+        
+        synchronized void remove(Trigger trigger) {
+            if (trigger.stopLevel != NONE) {
+                stopLadder(trigger).remove(trigger.stopLevel, trigger);
+            }
+            if (trigger.targetLevel != NONE) {
+                targetLadder(trigger).remove(trigger.targetLevel, trigger);
+            }
+            if (trigger.isTrailing()) {
+                watermarks(trigger).remove(trigger.watermark, trigger);
+            }
+        }
+        
+        synchronized List<Trigger> onTick(long price) {
+            // Only trailing stops whose watermark the price just beat need to move
+            ratchet(longWatermarks.drain(longWatermarks.below(price), null), price);
+            ratchet(shortWatermarks.drain(shortWatermarks.above(price), null), price);
+            
+            List<Trigger> crossed = fallingLadder.drain(fallingLadder.atOrAbove(price), null);
+            crossed = risingLadder.drain(risingLadder.atOrBelow(price), crossed);
+            if (crossed == null) {
+                return Collections.emptyList();
+            }
+            
+            List<Trigger> fired = new ArrayList<>(crossed.size());
+            for (Trigger trigger : crossed) {
+                if (trigger.reason != null) {
+                    continue; // crossed both of its levels on one tick
+                }
+                
+                boolean stopped = trigger.stopLevel != NONE
+                        && (trigger.isLong ? price <= trigger.stopLevel : price >= trigger.stopLevel);
+                if (stopped) {
+                    trigger.reason = trigger.isTrailing() ? ExitReason.TRAILING_STOP : ExitReason.STOP_LOSS;
+                } else {
+                    trigger.reason = ExitReason.TAKE_PROFIT;
+                }
+                
+                // One-cancels-other: drop the sibling level and watermark entry
+                remove(trigger);
+                fired.add(trigger);
+            }
+            return fired;
+        }
+        
+        private void ratchet(List<Trigger> moved, long price) {
+            if (moved == null) {
+                return;
+            }
+            
+            for (Trigger trigger : moved) {
+                long trailed = trail(trigger, price);
+                if (tighter(trigger, trailed)) {
+                    PriceLadder ladder = stopLadder(trigger);
+                    ladder.remove(trigger.stopLevel, trigger);
+                    trigger.stopLevel = trailed;
+                    ladder.add(trailed, trigger);
+                }
+                trigger.watermark = price;
+                watermarks(trigger).add(price, trigger);
+            }
+        }
+        
+        private long trail(Trigger trigger, long price) {
+            return trigger.isLong ? price - trigger.trailDistance : price + trigger.trailDistance;
+        }
+        
+        private boolean tighter(Trigger trigger, long level) {
+            return trigger.isLong ? level > trigger.stopLevel : level < trigger.stopLevel;
+        }
+        
+        private PriceLadder stopLadder(Trigger trigger) {
+            return trigger.isLong ? fallingLadder : risingLadder;
+        }
+        
+        private PriceLadder targetLadder(Trigger trigger) {
+            return trigger.isLong ? risingLadder : fallingLadder;
+        }
+        
+        private PriceLadder watermarks(Trigger trigger) {
+            return trigger.isLong ? longWatermarks : shortWatermarks;
+        }
+    }
+    
+    private static final class PriceLadder {
+        private final TreeMap<Long, Set<Trigger>> levels = new TreeMap<>();
+        
+        void add(long level, Trigger trigger) {
+            levels.computeIfAbsent(level, key -> new LinkedHashSet<>()).add(trigger);
+        }
+        
+        void remove(long level, Trigger trigger) {
+            Set<Trigger> bucket = levels.get(level);
+            if (bucket != null && bucket.remove(trigger) && bucket.isEmpty()) {
+                levels.remove(level);
+            }
+        }
+        
+        NavigableMap<Long, Set<Trigger>> atOrAbove(long price) {
+            return levels.tailMap(price, true);
+        }
+        
+        NavigableMap<Long, Set<Trigger>> atOrBelow(long price) {
+            return levels.headMap(price, true);
+        }
+        
+        NavigableMap<Long, Set<Trigger>> above(long price) {
+            return levels.tailMap(price, false);
+        }
+        
+        NavigableMap<Long, Set<Trigger>> below(long price) {
+            return levels.headMap(price, false);
+        }
+        
+        List<Trigger> drain(NavigableMap<Long, Set<Trigger>> range, List<Trigger> out) {
+            if (range.isEmpty()) {
+                return out;
+            }
+            
+            List<Trigger> drained = out != null ? out : new ArrayList<>();
+            for (Set<Trigger> bucket : range.values()) {
+                drained.addAll(bucket);
+            }
+            range.clear();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.angelone.trading.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Stage latencies and counters along the tick-to-trade chain, published through
+ * Micrometer (Prometheus at {@code /actuator/prometheus}).
+ *
+ * Tick stages are measured from the moment the socket delivered the frame and
+ * recorded for one tick in {@code tick-sample-rate}; order stages are recorded
+ * for every order. Timers publish percentile histograms.
+ */
+@Component
+public class TradingMetrics {
+    
+    private final MeterRegistry registry;
+    private final int tickSampleMask;
+    
+    private final Timer feedDecode;
+    private final Timer feedBroadcast;
+    private final Timer feedRiskCheck;
+    private final Timer strategyEvaluation;
+    private final Timer strategyScan;
+    private final Timer orderBrokerAck;
+    private final Timer orderPush;
+    private final Timer orderEndToEnd;
+    
+    private final Counter ordersExecuted;
+    private final Counter ordersRejected;
+    private final Counter ordersDuplicate;
+    private final Counter strategySignals;
+    private final Counter strategyScanSeries;
+    private final Counter strategyScanEvaluations;
+    
+    private final Map<String, Long> startupPhases = new ConcurrentHashMap<>();
+    
+    public TradingMetrics(MeterRegistry registry,
+                          @Value("${trading.metrics.tick-sample-rate:64}") int tickSampleRate) {
+        this.registry = registry;
+        // Round up to a power of two so sampling is a mask test
+        this.tickSampleMask = tickSampleRate <= 1 ? 0 : Integer.highestOneBit((tickSampleRate - 1) * 2) - 1;
+        
+        feedDecode = stage("trading.feed.decode", "Socket receive to tick published on the ring buffer");
+        feedBroadcast = stage("trading.feed.broadcast", "Socket receive to STOMP broadcast sent");
+        feedRiskCheck = stage("trading.feed.risk-check", "Socket receive to stop-loss/take-profit check done");
+        strategyEvaluation = stage("trading.strategy.evaluation", "Evaluation of one strategy, including order placement when it signals");
+        strategyScan = stage("trading.strategy.scan", "One scan of all active strategies across their symbol universes");
+        orderBrokerAck = stage("trading.order.broker-ack", "Order submitted to the broker queue until acknowledged");
+        orderPush = stage("trading.order.push", "Trade update push to /queue/trades");
+        orderEndToEnd = stage("trading.order.end-to-end", "Order accepted until the trade update was pushed");
+        
+        ordersExecuted = Counter.builder("trading.orders").tag("result", "executed").register(registry);
+        ordersRejected = Counter.builder("trading.orders").tag("result", "rejected").register(registry);
+        ordersDuplicate = Counter.builder("trading.orders").tag("result", "duplicate").register(registry);
+        strategySignals = Counter.builder("trading.strategy.signals").register(registry);
+        strategyScanSeries = Counter.builder("trading.strategy.scan.series")
+                .description("Symbol and time frame series loaded by strategy scans").register(registry);
+        strategyScanEvaluations = Counter.builder("trading.strategy.scan.evaluations")
+                .description("Strategy and symbol pairs evaluated by strategy scans").register(registry);
+    }
+    
+    private Timer stage(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+    
+    /**
+     * True for the ticks whose latencies are recorded. Ring consumers sample by
+     * sequence so every consumer measures the same ticks.
+     */
+    public boolean sampleTick(long sequence) {
+        return (sequence & tickSampleMask) == 0;
+    }
+    
+    /**
+     * Sampling for code that runs before a sequence is assigned.
+     */
+    public boolean sampleTick() {
+        return (ThreadLocalRandom.current().nextInt() & tickSampleMask) == 0;
+    }
+    
+    public void recordDecode(long receivedAtNanos) {
+        feedDecode.record(System.nanoTime() - receivedAtNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordBroadcast(long receivedAtNanos) {
+        feedBroadcast.record(System.nanoTime() - receivedAtNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordRiskCheck(long receivedAtNanos) {
+        feedRiskCheck.record(System.nanoTime() - receivedAtNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordStrategyEvaluation(long startedAtNanos, boolean signalled) {
+        strategyEvaluation.record(System.nanoTime() - startedAtNanos, TimeUnit.NANOSECONDS);
+        if (signalled) {
+            strategySignals.increment();
+        }
+    }
+    
+    /**
+     * @return the scan's duration in nanoseconds
+     */
+    public long recordStrategyScan(long startedAtNanos, int series, int evaluations) {
+        long elapsed = System.nanoTime() - startedAtNanos;
+        strategyScan.record(elapsed, TimeUnit.NANOSECONDS);
+        strategyScanSeries.increment(series);
+        strategyScanEvaluations.increment(evaluations);
+        return elapsed;
+    }
+    
+    public <T> T timeBrokerAck(Supplier<T> call) {
+        return orderBrokerAck.record(call);
+    }
+    
+    public void recordPush(long startedAtNanos, long acceptedAtNanos) {
+        long now = System.nanoTime();
+        orderPush.record(now - startedAtNanos, TimeUnit.NANOSECONDS);
+        orderEndToEnd.record(now - acceptedAtNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void orderExecuted() {
+        ordersExecuted.increment();
+    }
+    
+    public void orderRejected() {
+        ordersRejected.increment();
+    }
+    
+    public void orderDuplicate() {
+        ordersDuplicate.increment();
+    }
+    
+    /**
+     * Publishes a counter a component already maintains, without double counting on the hot path.
+     */
+    public <T> void monitor(String name, String description, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count)
+                .description(description)
+                .register(registry);
+    }
+    
+    /**
+     * Records how long after JVM start a startup phase completed, e.g. the
+     * context being ready or the first tick processed. Only the first call per
+     * phase counts. Returns the uptime in millis.
+     */
+    public long recordStartup(String phase) {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (startupPhases.putIfAbsent(phase, uptimeMillis) == null) {
+            TimeGauge.builder("trading.startup", () -> uptimeMillis, TimeUnit.MILLISECONDS)
+                    .description("Time from JVM start until the startup phase completed")
+                    .tag("phase", phase)
+                    .register(registry);
+        }
+        return uptimeMillis;
+    }
+    
+    public Map<String, Long> getStartupPhases() {
+        return new LinkedHashMap<>(startupPhases);
+    }
+    
+    /**
+     * Rows written to the given table.
+     */
+    public void dbWrites(String table, int rows) {
+        registry.counter("trading.db.writes", "table", table).increment(rows);
+    }
+}
@@ -1,21 +1,41 @@
 package com.angelone.trading.service;
 
+import com.angelone.trading.config.CacheConfig;
 import com.angelone.trading.repository.UserRepository;
+import com.angelone.trading.security.UserSnapshot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+/**
+ * User lookups by email. The users cache holds immutable {@link UserSnapshot}s
+ * and every call returns a fresh {@link com.angelone.trading.entity.User}, so
+ * callers cannot change what other requests see.
+ */
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
     
     private final UserRepository userRepository;
+    private final CacheManager cacheManager;
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
+        Cache users = cacheManager.getCache(CacheConfig.USERS);
+        UserSnapshot snapshot = users != null
+                ? users.get(username, () -> findSnapshot(username))
+                : findSnapshot(username);
+        if (snapshot == null) {
+            throw new UsernameNotFoundException("User not found with email: " + username);
+        }
+        return snapshot.toUser();
+    }
+    
+    private UserSnapshot findSnapshot(String username) {
+        return userRepository.findByEmail(username).map(UserSnapshot::of).orElse(null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- Trailing stop distance of a position, ratcheted by TradeTriggerService.
+alter table trades add column trailing_stop decimal(10,2);
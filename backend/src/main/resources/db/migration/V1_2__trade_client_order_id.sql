@@ -0,0 +1,5 @@
+-- Client order id of each submission, so a retried order is recognised instead
+-- of placed twice (see OrderIdempotencyService).
+alter table trades
+    add column client_order_id varchar(20),
+    add constraint uk_trades_client_order_id unique (client_order_id);
@@ -0,0 +1,5 @@
+-- Cached broker session: the feed token for the market data socket and the
+-- expiry the session is refreshed ahead of.
+alter table users
+    add column angel_one_feed_token varchar(255),
+    add column angel_one_token_expires_at datetime(6);
@@ -0,0 +1,103 @@
+-- Schema as Hibernate's ddl-auto=update created it for the entities of the
+-- last release without migrations. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate) without running it, so every
+-- later column, key and index belongs in a V1_1 or later migration.
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    name varchar(255) not null,
+    role enum ('USER','ADMIN') not null,
+    account_balance decimal(15,2),
+    total_pnl decimal(15,2),
+    angel_one_client_id varchar(255),
+    angel_one_password varchar(255),
+    angel_one_totp varchar(255),
+    angel_one_token varchar(255),
+    angel_one_refresh_token varchar(255),
+    is_active bit,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table strategies (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    name varchar(255) not null,
+    type enum ('EMA_CROSSOVER','RSI','MACD','CUSTOM') not null,
+    is_active bit,
+    time_frame varchar(255),
+    ema_fast integer,
+    ema_slow integer,
+    rsi_period integer,
+    rsi_oversold integer,
+    rsi_overbought integer,
+    stop_loss_percentage decimal(5,2),
+    take_profit_percentage decimal(5,2),
+    max_capital_percentage decimal(5,2),
+    total_trades integer,
+    winning_trades integer,
+    average_pnl decimal(15,2),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_strategies_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table trades (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    symbol varchar(255) not null,
+    type enum ('BUY','SELL') not null,
+    quantity integer not null,
+    price decimal(10,2) not null,
+    current_price decimal(10,2),
+    status enum ('PENDING','OPEN','CLOSED','CANCELLED','REJECTED') not null,
+    pnl decimal(15,2),
+    stop_loss decimal(10,2),
+    take_profit decimal(10,2),
+    angel_one_order_id varchar(255),
+    strategy_id bigint,
+    executed_at datetime(6),
+    closed_at datetime(6),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_trades_user foreign key (user_id) references users (id),
+    constraint fk_trades_strategy foreign key (strategy_id) references strategies (id)
+) engine=InnoDB;
+
+create table market_data (
+    id bigint not null auto_increment,
+    symbol varchar(255) not null,
+    open decimal(10,2) not null,
+    high decimal(10,2) not null,
+    low decimal(10,2) not null,
+    close decimal(10,2) not null,
+    volume bigint not null,
+    `change` decimal(10,2),
+    change_percent decimal(5,2),
+    ema_20 decimal(10,2),
+    ema_50 decimal(10,2),
+    rsi decimal(5,2),
+    time_frame varchar(255),
+    timestamp datetime(6) not null,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table notifications (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    type enum ('TRADE_EXECUTED','STRATEGY_TRIGGERED','RISK_ALERT','SYSTEM') not null,
+    title varchar(255) not null,
+    message varchar(1000) not null,
+    priority enum ('LOW','MEDIUM','HIGH') not null,
+    is_read bit,
+    created_at datetime(6),
+    primary key (id),
+    constraint fk_notifications_user foreign key (user_id) references users (id)
+) engine=InnoDB;
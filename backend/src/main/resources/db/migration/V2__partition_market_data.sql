@@ -0,0 +1,23 @@
+-- Range-partition market_data by day on timestamp. Every unique key of a
+-- partitioned table must contain the partitioning column, hence the wider
+-- primary key. Existing rows start out in the catch-all p_future partition;
+-- MarketDataPartitionManager splits it into day partitions on its first run
+-- and keeps a few days ahead from then on.
+
+alter table market_data drop primary key, add primary key (id, timestamp);
+
+create index idx_market_data_symbol_frame_timestamp on market_data (symbol, time_frame, timestamp);
+
+alter table market_data partition by range columns (timestamp) (
+    partition p_future values less than (maxvalue)
+);
+
+-- Lifecycle of each day partition: RAW (as written), MINUTE (compacted to 1m
+-- bars plus a 1d bar), DAILY (1d bars only), then dropped.
+create table market_data_partitions (
+    partition_name varchar(16) not null,
+    day date not null,
+    stage varchar(16) not null,
+    updated_at datetime(6) not null,
+    primary key (partition_name)
+) engine=InnoDB;
@@ -0,0 +1,4 @@
+-- Open-position listings filter on status as well as user; with the index ending
+-- in id, GET /trades/open reads only the user's open rows, already in id order.
+-- The full listing pages on (user_id, id) through the user_id foreign key index.
+create index idx_trades_user_status_id on trades (user_id, status, id);
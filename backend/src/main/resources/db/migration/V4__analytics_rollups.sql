@@ -0,0 +1,93 @@
+-- Incrementally maintained portfolio analytics (see AnalyticsService). Rows
+-- are keyed by plain ids without foreign keys: a deleted strategy takes its
+-- trades with it, but its rollup row is removed by the application.
+create table analytics_rollups (
+    id bigint not null auto_increment,
+    scope varchar(32) not null,
+    user_id bigint not null,
+    strategy_id bigint,
+    trade_count integer not null,
+    winning_trades integer not null,
+    realized_pnl decimal(15,2) not null,
+    peak_pnl decimal(15,2) not null,
+    max_drawdown decimal(15,2) not null,
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_analytics_rollups_scope unique (scope)
+) engine=InnoDB;
+
+create index idx_analytics_rollups_user on analytics_rollups (user_id);
+
+create table analytics_daily_pnl (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    trade_date date not null,
+    trade_count integer not null,
+    realized_pnl decimal(15,2) not null,
+    primary key (id),
+    constraint uk_analytics_daily_pnl_user_day unique (user_id, trade_date)
+) engine=InnoDB;
+
+create table analytics_exposure (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    symbol varchar(255) not null,
+    open_trades integer not null,
+    net_quantity integer not null,
+    open_notional decimal(17,2) not null,
+    primary key (id),
+    constraint uk_analytics_exposure_user_symbol unique (user_id, symbol)
+) engine=InnoDB;
+
+-- Backfill from the trades so far. The drawdown replays each equity curve in
+-- closing order: the peak starts at zero and the drawdown is the largest drop
+-- below it.
+insert into analytics_rollups (scope, user_id, strategy_id, trade_count, winning_trades, realized_pnl,
+                               peak_pnl, max_drawdown, updated_at)
+select concat('user:', user_id), user_id, null, count(*), sum(pnl > 0), sum(pnl), max(peak), max(peak - running),
+       now(6)
+from (
+    select user_id, pnl, running,
+           greatest(0, max(running) over (partition by user_id order by closed_at, id)) as peak
+    from (
+        select id, user_id, closed_at, coalesce(pnl, 0) as pnl,
+               sum(coalesce(pnl, 0)) over (partition by user_id order by closed_at, id) as running
+        from trades
+        where status = 'CLOSED'
+    ) closed
+) curve
+group by user_id;
+
+insert into analytics_rollups (scope, user_id, strategy_id, trade_count, winning_trades, realized_pnl,
+                               peak_pnl, max_drawdown, updated_at)
+select concat('strategy:', strategy_id), user_id, strategy_id, count(*), sum(pnl > 0), sum(pnl), max(peak),
+       max(peak - running), now(6)
+from (
+    select user_id, strategy_id, pnl, running,
+           greatest(0, max(running) over (partition by strategy_id order by closed_at, id)) as peak
+    from (
+        select id, user_id, strategy_id, closed_at, coalesce(pnl, 0) as pnl,
+               sum(coalesce(pnl, 0)) over (partition by strategy_id order by closed_at, id) as running
+        from trades
+        where status = 'CLOSED' and strategy_id is not null
+    ) closed
+) curve
+group by strategy_id, user_id;
+
+update strategies s
+join analytics_rollups r on r.strategy_id = s.id
+set s.total_trades = r.trade_count,
+    s.winning_trades = r.winning_trades,
+    s.average_pnl = round(r.realized_pnl / r.trade_count, 2);
+
+insert into analytics_daily_pnl (user_id, trade_date, trade_count, realized_pnl)
+select user_id, date(closed_at), count(*), sum(coalesce(pnl, 0))
+from trades
+where status = 'CLOSED' and closed_at is not null
+group by user_id, date(closed_at);
+
+insert into analytics_exposure (user_id, symbol, open_trades, net_quantity, open_notional)
+select user_id, symbol, count(*), sum(case when type = 'SELL' then -quantity else quantity end), sum(price * quantity)
+from trades
+where status = 'OPEN'
+group by user_id, symbol;
@@ -0,0 +1,5 @@
+-- Symbol universe per strategy: symbols and index:<name> entries, comma-separated.
+-- Existing strategies keep evaluating NIFTY, the symbol they were hard-wired to.
+alter table strategies add column symbols varchar(2000);
+
+update strategies set symbols = 'NIFTY' where symbols is null;
@@ -0,0 +1,4 @@
+-- Client order ids are scoped to their user, so two users may pick the same one.
+alter table trades
+    drop index uk_trades_client_order_id,
+    add constraint uk_trades_user_client_order_id unique (user_id, client_order_id);
@@ -0,0 +1,5 @@
+-- Notification pages are keyset queries ordered by id, so the indexes end in id:
+-- the full list reads (user_id, id) and the unread list and count read
+-- (user_id, is_read, id), both newest first without a filesort.
+create index idx_notifications_user_id on notifications (user_id, id);
+create index idx_notifications_user_read_id on notifications (user_id, is_read, id);
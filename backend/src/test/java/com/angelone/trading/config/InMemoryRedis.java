@@ -0,0 +1,39 @@
+package com.angelone.trading.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory stand-in for Redis in tests: one shared cache per name and a
+ * synchronous pub/sub channel. Every {@link TwoTierCacheManager} created here
+ * behaves like an application instance connected to the same Redis.
+ */
+class InMemoryRedis {
+    
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final List<TwoTierCacheManager> subscribers = new CopyOnWriteArrayList<>();
+    
+    TwoTierCacheManager newInstance(List<TwoTierCacheManager.CacheSpec> specs) {
+        TwoTierCacheManager manager = new TwoTierCacheManager(specs, this::cache, this::publish, Duration.ofSeconds(30));
+        subscribers.add(manager);
+        return manager;
+    }
+    
+    Cache cache(String name) {
+        return caches.computeIfAbsent(name, ConcurrentMapCache::new);
+    }
+    
+    private void publish(String channel, String body) {
+        Message message = new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+        subscribers.forEach(subscriber -> subscriber.onMessage(message, null));
+    }
+}
@@ -0,0 +1,74 @@
+package com.angelone.trading.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoTierCacheTest {
+    
+    private static final String SHARED = "shared";
+    private static final String LOCAL_ONLY = "localOnly";
+    
+    private final AtomicInteger loads = new AtomicInteger();
+    private TwoTierCacheManager first;
+    private TwoTierCacheManager second;
+    
+    @BeforeEach
+    void setUp() {
+        List<TwoTierCacheManager.CacheSpec> specs = List.of(
+                new TwoTierCacheManager.CacheSpec(SHARED, 100, Duration.ofMinutes(1), Duration.ofMinutes(5)),
+                new TwoTierCacheManager.CacheSpec(LOCAL_ONLY, 100, Duration.ofMinutes(1), Duration.ZERO));
+        InMemoryRedis redis = new InMemoryRedis();
+        first = redis.newInstance(specs);
+        second = redis.newInstance(specs);
+    }
+    
+    @Test
+    void loadsOnceAndSharesTheValueThroughTheRemoteTier() {
+        assertThat(first.getCache(SHARED).get("TCS", this::load)).isEqualTo("value-1");
+        assertThat(first.getCache(SHARED).get("TCS", this::load)).isEqualTo("value-1");
+        assertThat(second.getCache(SHARED).get("TCS", this::load)).isEqualTo("value-1");
+        
+        assertThat(loads).hasValue(1);
+    }
+    
+    @Test
+    void evictionReachesTheNearCacheOfOtherInstances() {
+        first.getCache(SHARED).put("TCS", "old");
+        assertThat(second.getCache(SHARED).get("TCS", String.class)).isEqualTo("old");
+        
+        first.getCache(SHARED).evict("TCS");
+        
+        assertThat(second.getCache(SHARED).get("TCS")).isNull();
+        assertThat(second.getCache(SHARED).get("TCS", this::load)).isEqualTo("value-1");
+    }
+    
+    @Test
+    void evictionOnlyDropsTheGivenKey() {
+        Cache cache = first.getCache(SHARED);
+        cache.put("TCS", "tcs");
+        cache.put("INFY", "infy");
+        
+        cache.evict("TCS");
+        
+        assertThat(cache.get("TCS")).isNull();
+        assertThat(second.getCache(SHARED).get("INFY", String.class)).isEqualTo("infy");
+    }
+    
+    @Test
+    void inProcessCachesAreNotShared() {
+        first.getCache(LOCAL_ONLY).put("user@example.com", "first");
+        
+        assertThat(second.getCache(LOCAL_ONLY).get("user@example.com")).isNull();
+    }
+    
+    private String load() {
+        return "value-" + loads.incrementAndGet();
+    }
+}
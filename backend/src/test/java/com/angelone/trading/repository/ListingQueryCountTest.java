@@ -0,0 +1,117 @@
+package com.angelone.trading.repository;
+
+import com.angelone.trading.dto.StrategyResponse;
+import com.angelone.trading.dto.TradeResponse;
+import com.angelone.trading.entity.Strategy;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.service.CacheInvalidationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The trade page and the strategy listing are DTO projections; each must stay a
+ * single select however many rows and strategies the page touches.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ListingQueryCountTest {
+    
+    // User's entity listener; not part of the JPA slice
+    @MockBean
+    private CacheInvalidationService cacheInvalidationService;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TradeRepository tradeRepository;
+    
+    @Autowired
+    private StrategyRepository strategyRepository;
+    
+    private Statistics statistics;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("trader@example.com");
+        user.setPassword("secret");
+        user.setName("Trader");
+        entityManager.persist(user);
+        
+        for (int s = 0; s < 3; s++) {
+            Strategy strategy = new Strategy();
+            strategy.setUser(user);
+            strategy.setName("Strategy " + s);
+            strategy.setType(Strategy.StrategyType.EMA_CROSSOVER);
+            entityManager.persist(strategy);
+            
+            for (int t = 0; t < 5; t++) {
+                Trade trade = new Trade();
+                trade.setUser(user);
+                trade.setStrategy(strategy);
+                trade.setSymbol("NIFTY");
+                trade.setType(Trade.TradeType.BUY);
+                trade.setQuantity(1);
+                trade.setPrice(BigDecimal.valueOf(21800));
+                trade.setStatus(Trade.TradeStatus.OPEN);
+                entityManager.persist(trade);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void tradePageIsOneSelect() {
+        List<TradeResponse> page = tradeRepository.findTradePage(user.getId(), PageRequest.of(0, 10));
+        
+        assertThat(page).hasSize(10);
+        assertThat(page).allSatisfy(trade -> assertThat(trade.getStrategyName()).startsWith("Strategy "));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void nextTradePageIsOneSelect() {
+        Long before = tradeRepository.findTradePage(user.getId(), PageRequest.of(0, 10)).get(9).getId();
+        statistics.clear();
+        
+        List<TradeResponse> page = tradeRepository.findTradePageBefore(user.getId(), before, PageRequest.of(0, 10));
+        
+        assertThat(page).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void strategyListingIsOneSelect() {
+        List<StrategyResponse> strategies = strategyRepository.findStrategyResponses(user.getId());
+        
+        assertThat(strategies).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
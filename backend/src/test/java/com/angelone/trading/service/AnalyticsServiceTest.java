@@ -0,0 +1,86 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.entity.SymbolExposure;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.repository.AnalyticsRollupRepository;
+import com.angelone.trading.repository.DailyPnlRepository;
+import com.angelone.trading.repository.StrategyRepository;
+import com.angelone.trading.repository.SymbolExposureRepository;
+import com.angelone.trading.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rollups run in their own transaction after the trade is recorded; a failure
+ * there must stay inside the analytics service.
+ */
+class AnalyticsServiceTest {
+    
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SymbolExposureRepository exposureRepository = mock(SymbolExposureRepository.class);
+    private final CacheInvalidationService cacheInvalidationService = mock(CacheInvalidationService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TransactionStatus transaction = mock(TransactionStatus.class);
+    private AnalyticsService service;
+    
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        service = new AnalyticsService(userRepository, mock(StrategyRepository.class),
+                mock(AnalyticsRollupRepository.class), mock(DailyPnlRepository.class), exposureRepository,
+                cacheInvalidationService, transactionManager, mock(TradingMetrics.class));
+        service.init();
+    }
+    
+    @Test
+    void openedTradeUpdatesExposureInItsOwnTransaction() {
+        when(exposureRepository.findByUserIdAndSymbol(1L, "NIFTY")).thenReturn(Optional.empty());
+        
+        service.onTradeEvent(new TradeEvent(TradeEvent.Kind.OPENED, trade()));
+        
+        verify(userRepository).lockById(1L);
+        verify(exposureRepository).save(any(SymbolExposure.class));
+        verify(cacheInvalidationService).analyticsChanged(1L);
+        verify(transactionManager).commit(transaction);
+    }
+    
+    @Test
+    void rollupFailureIsRolledBackAndNotRethrown() {
+        when(userRepository.lockById(1L)).thenThrow(new CannotAcquireLockException("lock wait timeout"));
+        
+        assertThatCode(() -> service.onTradeEvent(new TradeEvent(TradeEvent.Kind.CLOSED, trade())))
+                .doesNotThrowAnyException();
+        
+        verify(transactionManager).rollback(transaction);
+        verify(transactionManager, never()).commit(any());
+        verify(cacheInvalidationService, never()).analyticsChanged(any());
+    }
+    
+    private static Trade trade() {
+        User user = new User();
+        user.setId(1L);
+        Trade trade = new Trade();
+        trade.setId(10L);
+        trade.setUser(user);
+        trade.setSymbol("NIFTY");
+        trade.setType(Trade.TradeType.BUY);
+        trade.setQuantity(2);
+        trade.setPrice(BigDecimal.valueOf(21800));
+        trade.setPnl(BigDecimal.valueOf(150));
+        return trade;
+    }
+}
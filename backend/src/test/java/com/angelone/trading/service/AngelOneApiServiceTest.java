@@ -0,0 +1,130 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the batched quote fetch against a stub of the Angel One quote endpoint.
+ */
+class AngelOneApiServiceTest {
+    
+    private static final String QUOTE_PATH = "/rest/secure/angelbroking/market/v1/quote/";
+    
+    /** Tokens the stub leaves out of its response, as the broker does for instruments it cannot quote. */
+    private static final Set<String> UNQUOTED_TOKENS = Set.of("3045");
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<List<String>> requestedTokens = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private AngelOneApiService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(QUOTE_PATH, this::handleQuote);
+        server.start();
+        
+        BrokerSessionManager brokerSessionManager = mock(BrokerSessionManager.class);
+        when(brokerSessionManager.anySession()).thenReturn(
+                new BrokerSessionManager.BrokerSession("jwt", null, null, Instant.now().plusSeconds(600)));
+        
+        service = new AngelOneApiService(mock(SimpMessagingTemplate.class), brokerSessionManager, new TaskExecutors(false));
+        ReflectionTestUtils.setField(service, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "clientSecret", "secret");
+        ReflectionTestUtils.setField(service, "quoteBatchSize", 2);
+        ReflectionTestUtils.setField(service, "quoteRateLimit", 1000.0);
+        ReflectionTestUtils.setField(service, "quoteThreads", 2);
+        service.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        server.stop(0);
+    }
+    
+    @Test
+    void fetchesQuotesInBatchesOfTokens() {
+        Map<String, Map<String, Object>> quotes = service.getMarketDataBatch(List.of("RELIANCE", "TCS", "INFY"));
+        
+        assertThat(requestedTokens).hasSize(2);
+        assertThat(requestedTokens).flatMap(tokens -> tokens).containsExactlyInAnyOrder("2885", "11536", "1594");
+        assertThat(quotes).containsOnlyKeys("RELIANCE", "TCS", "INFY");
+        assertThat(quotes.get("TCS").get("ltp")).isEqualTo(new BigDecimal("11536.50"));
+        assertThat(quotes.get("TCS").get("volume")).isEqualTo(1000L);
+    }
+    
+    @Test
+    void skipsAndReportsSymbolsWithoutInstrumentToken() {
+        Map<String, Map<String, Object>> quotes = service.getMarketDataBatch(List.of("RELIANCE", "HCLTECH", "WIPRO"));
+        
+        assertThat(requestedTokens).flatMap(tokens -> tokens).containsExactly("2885");
+        assertThat(quotes).containsOnlyKeys("RELIANCE");
+        assertThat(service.getUnknownSymbols()).containsExactlyInAnyOrder("HCLTECH", "WIPRO");
+    }
+    
+    @Test
+    void simulatesKnownSymbolsTheBrokerDidNotReturn() {
+        Map<String, Map<String, Object>> quotes = service.getMarketDataBatch(List.of("RELIANCE", "SBIN"));
+        
+        assertThat(requestedTokens).flatMap(tokens -> tokens).containsExactlyInAnyOrder("2885", "3045");
+        assertThat(quotes).containsOnlyKeys("RELIANCE", "SBIN");
+        assertThat(quotes.get("RELIANCE").get("ltp")).isEqualTo(new BigDecimal("2885.50"));
+        assertThat(quotes.get("SBIN")).containsKey("ltp");
+    }
+    
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        List<String> tokens = objectMapper.convertValue(request.get("exchangeTokens").get("NSE"),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, String.class));
+        requestedTokens.add(tokens);
+        
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("status", true);
+        ArrayNode fetched = body.putObject("data").putArray("fetched");
+        for (String token : tokens) {
+            if (UNQUOTED_TOKENS.contains(token)) {
+                continue;
+            }
+            String price = token + ".50";
+            fetched.addObject()
+                    .put("symbolToken", token)
+                    .put("ltp", price)
+                    .put("open", price)
+                    .put("high", price)
+                    .put("low", price)
+                    .put("close", price)
+                    .put("tradeVolume", 1000);
+        }
+        
+        byte[] response = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+}
@@ -0,0 +1,108 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.CacheConfig;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.security.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheInvalidationServiceTest {
+    
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+            CacheConfig.LATEST_QUOTES, CacheConfig.HISTORICAL_BARS, CacheConfig.STRATEGIES, CacheConfig.USERS);
+    private final PrincipalCache principalCache = new PrincipalCache();
+    private final CacheInvalidationService service = new CacheInvalidationService(cacheManager, principalCache);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(principalCache, "maxSize", 100);
+        ReflectionTestUtils.setField(principalCache, "ttlMillis", 60_000L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void evictsOnlyAfterTheTransactionCommits() {
+        Cache strategies = cacheManager.getCache(CacheConfig.STRATEGIES);
+        strategies.put(1L, "cached");
+        TransactionSynchronizationManager.initSynchronization();
+        
+        service.strategiesChanged(1L);
+        assertThat(strategies.get(1L)).isNotNull();
+        
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(strategies.get(1L)).isNull();
+    }
+    
+    @Test
+    void keepsEntriesWhenTheTransactionRollsBack() {
+        Cache strategies = cacheManager.getCache(CacheConfig.STRATEGIES);
+        strategies.put(1L, "cached");
+        TransactionSynchronizationManager.initSynchronization();
+        
+        service.strategiesChanged(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        
+        assertThat(strategies.get(1L)).isNotNull();
+    }
+    
+    @Test
+    void evictsImmediatelyOutsideATransaction() {
+        Cache strategies = cacheManager.getCache(CacheConfig.STRATEGIES);
+        strategies.put(1L, "cached");
+        
+        service.strategiesChanged(1L);
+        
+        assertThat(strategies.get(1L)).isNull();
+    }
+    
+    @Test
+    void marketDataWritesEvictOnlyTheWrittenSymbols() {
+        Cache quotes = cacheManager.getCache(CacheConfig.LATEST_QUOTES);
+        Cache bars = cacheManager.getCache(CacheConfig.HISTORICAL_BARS);
+        quotes.put("TCS", "tcs");
+        quotes.put("INFY", "infy");
+        bars.put(CacheInvalidationService.barsKey("TCS", TimeFrames.MINUTE), List.of());
+        bars.put(CacheInvalidationService.barsKey("TCS", TimeFrames.DAY), List.of());
+        bars.put(CacheInvalidationService.barsKey("INFY", TimeFrames.MINUTE), List.of());
+        
+        service.marketDataWritten(List.of("TCS"));
+        
+        assertThat(quotes.get("TCS")).isNull();
+        assertThat(bars.get(CacheInvalidationService.barsKey("TCS", TimeFrames.MINUTE))).isNull();
+        assertThat(quotes.get("INFY")).isNotNull();
+        assertThat(bars.get(CacheInvalidationService.barsKey("TCS", TimeFrames.DAY))).isNotNull();
+        assertThat(bars.get(CacheInvalidationService.barsKey("INFY", TimeFrames.MINUTE))).isNotNull();
+    }
+    
+    @Test
+    void userChangesDropCachedPrincipalsAndLookups() {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("trader@example.com");
+        principalCache.put("token", user, new Date(System.currentTimeMillis() + 60_000));
+        cacheManager.getCache(CacheConfig.USERS).put(user.getEmail(), "cached");
+        
+        service.userChanged(user.getEmail());
+        
+        assertThat(principalCache.get("token")).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.USERS).get(user.getEmail())).isNull();
+    }
+}
@@ -0,0 +1,51 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.entity.MarketData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuoteSnapshotStoreTest {
+    
+    private final QuoteSnapshotStore store = new QuoteSnapshotStore();
+    
+    @Test
+    void seededQuoteIsStaleUntilTheFirstUpdate() {
+        assertThat(store.seed(bar("TCS", "3500.00", LocalDateTime.now().minusDays(3)))).isTrue();
+        
+        QuoteSnapshot seeded = store.get("TCS");
+        assertThat(seeded.isStale()).isTrue();
+        assertThat(seeded.getVersion()).isEqualTo(1);
+        
+        store.update(bar("TCS", "3510.50", LocalDateTime.now()));
+        
+        QuoteSnapshot live = store.get("TCS");
+        assertThat(live.isStale()).isFalse();
+        assertThat(live.getLastPrice()).isEqualByComparingTo("3510.50");
+        assertThat(live.getVersion()).isEqualTo(2);
+    }
+    
+    @Test
+    void seedDoesNotReplaceAFresherQuote() {
+        store.update(bar("INFY", "1500.00", LocalDateTime.now()));
+        
+        assertThat(store.seed(bar("INFY", "1480.00", LocalDateTime.now().minusDays(1)))).isFalse();
+        assertThat(store.get("INFY").isStale()).isFalse();
+        assertThat(store.get("INFY").getLastPrice()).isEqualByComparingTo("1500.00");
+    }
+    
+    private static MarketData bar(String symbol, String close, LocalDateTime timestamp) {
+        MarketData bar = new MarketData();
+        bar.setSymbol(symbol);
+        bar.setOpen(new BigDecimal(close));
+        bar.setHigh(new BigDecimal(close));
+        bar.setLow(new BigDecimal(close));
+        bar.setClose(new BigDecimal(close));
+        bar.setVolume(100L);
+        bar.setTimestamp(timestamp);
+        return bar;
+    }
+}
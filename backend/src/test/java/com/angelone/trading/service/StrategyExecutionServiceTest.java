@@ -0,0 +1,151 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.MarketData;
+import com.angelone.trading.entity.Strategy;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.repository.MarketDataRepository;
+import com.angelone.trading.repository.StrategyRepository;
+import com.angelone.trading.repository.TradeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * One RSI strategy signalling on every symbol of its universe: the scan runs
+ * the symbols in parallel, but the user's orders must be sized one after the
+ * other from the capital the earlier ones left free.
+ */
+class StrategyExecutionServiceTest {
+    
+    private static final Set<String> TRADABLE = Set.of("TCS", "INFY");
+    
+    private final StrategyRepository strategyRepository = mock(StrategyRepository.class);
+    private final MarketDataRepository marketDataRepository = mock(MarketDataRepository.class);
+    private final TechnicalAnalysisService technicalAnalysisService = mock(TechnicalAnalysisService.class);
+    private final TradeService tradeService = mock(TradeService.class);
+    private final OrderIdempotencyService orderIdempotencyService = mock(OrderIdempotencyService.class);
+    private final AngelOneApiService angelOneApiService = mock(AngelOneApiService.class);
+    private final TradeRepository tradeRepository = mock(TradeRepository.class);
+    
+    private final List<Trade> placed = new CopyOnWriteArrayList<>();
+    private final AtomicReference<BigDecimal> committed = new AtomicReference<>(BigDecimal.ZERO);
+    private StrategyExecutionService service;
+    
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setAccountBalance(BigDecimal.valueOf(100_000));
+        
+        Strategy strategy = new Strategy();
+        strategy.setId(7L);
+        strategy.setUser(user);
+        strategy.setName("RSI dip");
+        strategy.setType(Strategy.StrategyType.RSI);
+        strategy.setSymbols("TCS,INFY,XYZ");
+        strategy.setMaxCapitalPercentage(BigDecimal.valueOf(60));
+        when(strategyRepository.findByIsActiveTrue()).thenReturn(List.of(strategy));
+        
+        when(marketDataRepository.findRecentBars(anyString(), anyString(), any(), any())).thenReturn(bars(20));
+        when(technicalAnalysisService.calculateRSI(any(), anyInt())).thenReturn(BigDecimal.valueOf(20));
+        when(technicalAnalysisService.isRSIOversold(any(), anyInt())).thenReturn(true);
+        when(orderIdempotencyService.strategyOrderId(any(), anyString(), any(), any()))
+                .thenAnswer(invocation -> "order-" + invocation.getArgument(1));
+        when(angelOneApiService.hasSymbolToken(anyString()))
+                .thenAnswer(invocation -> TRADABLE.contains(invocation.<String>getArgument(0)));
+        
+        // Each recorded order holds its notional until the next one is sized
+        when(tradeRepository.sumCommittedCapital(1L)).thenAnswer(invocation -> committed.get());
+        when(tradeService.executeTrade(any())).thenAnswer(invocation -> {
+            Trade trade = invocation.getArgument(0);
+            placed.add(trade);
+            committed.accumulateAndGet(trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity())),
+                    BigDecimal::add);
+            return trade;
+        });
+        
+        service = new StrategyExecutionService(strategyRepository, marketDataRepository, technicalAnalysisService,
+                tradeService, mock(NotificationService.class), orderIdempotencyService, mock(TradingMetrics.class),
+                new SymbolUniverseService(new StandardEnvironment()),
+                new TaskExecutors(false), angelOneApiService, tradeRepository);
+        ReflectionTestUtils.setField(service, "strategyBars", 20);
+        ReflectionTestUtils.setField(service, "lookbackDays", 7);
+        ReflectionTestUtils.setField(service, "executionInterval", 10_000L);
+        ReflectionTestUtils.setField(service, "scanThreads", 4);
+        service.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+    
+    @Test
+    void ordersOfOneUserAreSizedFromTheCapitalLeftFree() {
+        service.executeActiveStrategies();
+        
+        List<Integer> quantities = new ArrayList<>();
+        placed.forEach(trade -> quantities.add(trade.getQuantity()));
+        // 60% of 100,000 at 1,000 a share, then only the 40,000 left free
+        assertThat(quantities).containsExactlyInAnyOrder(60, 40);
+        assertThat(committed.get()).isLessThanOrEqualTo(BigDecimal.valueOf(100_000));
+    }
+    
+    @Test
+    void symbolsWithoutAnInstrumentTokenAreNotScanned() {
+        service.executeActiveStrategies();
+        
+        assertThat(placed).extracting(Trade::getSymbol).containsExactlyInAnyOrder("TCS", "INFY");
+        verify(marketDataRepository, never()).findRecentBars(eq("XYZ"), anyString(), any(), any());
+    }
+    
+    @Test
+    void shortSignalsStopAboveAndTargetBelowEntry() {
+        when(technicalAnalysisService.calculateRSI(any(), anyInt())).thenReturn(BigDecimal.valueOf(80));
+        when(technicalAnalysisService.isRSIOversold(any(), anyInt())).thenReturn(false);
+        when(technicalAnalysisService.isRSIOverbought(any(), anyInt())).thenReturn(true);
+        
+        service.executeActiveStrategies();
+        
+        // Default 2% stop and 4% target around the 1,000 close
+        assertThat(placed).hasSize(2).allSatisfy(trade -> {
+            assertThat(trade.getType()).isEqualTo(Trade.TradeType.SELL);
+            assertThat(trade.getStopLoss()).isEqualByComparingTo("1020");
+            assertThat(trade.getTakeProfit()).isEqualByComparingTo("960");
+        });
+    }
+    
+    private static List<MarketData> bars(int count) {
+        List<MarketData> bars = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            MarketData bar = new MarketData();
+            bar.setClose(BigDecimal.valueOf(1000));
+            bar.setTimestamp(now.minusMinutes(15L * i));
+            bars.add(bar);
+        }
+        return bars;
+    }
+}
@@ -0,0 +1,96 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.TaskExecutors;
+import com.angelone.trading.entity.Trade;
+import com.angelone.trading.repository.TradeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class TradeTriggerServiceTest {
+    
+    private final TradeService tradeService = mock(TradeService.class);
+    private TradeTriggerService service;
+    
+    @BeforeEach
+    void setUp() {
+        service = new TradeTriggerService(mock(TradeRepository.class), new TaskExecutors(false));
+        ReflectionTestUtils.setField(service, "tradeService", tradeService);
+        ReflectionTestUtils.setField(service, "exitThreads", 1);
+        service.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+    
+    @Test
+    void shortIsStoppedOutOnlyWhenThePriceRisesToItsStop() {
+        service.arm(trade(1L, Trade.TradeType.SELL, "1000.00", "1020.00", "980.00"));
+        
+        service.onTick("TCS", new BigDecimal("1001.00"));
+        service.onTick("TCS", new BigDecimal("1019.95"));
+        verify(tradeService, after(200).never()).closeTriggeredTrade(anyLong(), any(), any());
+        
+        service.onTick("TCS", new BigDecimal("1020.00"));
+        verify(tradeService, timeout(1000)).closeTriggeredTrade(eq(1L), eq(new BigDecimal("1020.00")),
+                eq(TradeTriggerService.ExitReason.STOP_LOSS));
+        assertThat(service.getArmedTriggerCount()).isZero();
+    }
+    
+    @Test
+    void shortTakesProfitWhenThePriceFallsToItsTarget() {
+        service.arm(trade(2L, Trade.TradeType.SELL, "1000.00", "1020.00", "980.00"));
+        
+        service.onTick("TCS", new BigDecimal("979.50"));
+        verify(tradeService, timeout(1000)).closeTriggeredTrade(eq(2L), eq(new BigDecimal("979.50")),
+                eq(TradeTriggerService.ExitReason.TAKE_PROFIT));
+    }
+    
+    @Test
+    void levelsOnTheWrongSideOfEntryAreNotArmed() {
+        // Long-style levels on a short: both would fire on the first tick
+        service.arm(trade(3L, Trade.TradeType.SELL, "1000.00", "980.00", "1020.00"));
+        
+        assertThat(service.getArmedTriggerCount()).isZero();
+        service.onTick("TCS", new BigDecimal("1000.05"));
+        verify(tradeService, after(200).never()).closeTriggeredTrade(anyLong(), any(), any());
+    }
+    
+    @Test
+    void validStopIsArmedWhenTheTargetIsOnTheWrongSide() {
+        service.arm(trade(4L, Trade.TradeType.BUY, "1000.00", "980.00", "990.00"));
+        
+        assertThat(service.getArmedTriggerCount()).isEqualTo(1);
+        service.onTick("TCS", new BigDecimal("990.00"));
+        service.onTick("TCS", new BigDecimal("980.00"));
+        verify(tradeService, timeout(1000)).closeTriggeredTrade(eq(4L), eq(new BigDecimal("980.00")),
+                eq(TradeTriggerService.ExitReason.STOP_LOSS));
+    }
+    
+    private static Trade trade(Long id, Trade.TradeType type, String price, String stopLoss, String takeProfit) {
+        Trade trade = new Trade();
+        trade.setId(id);
+        trade.setSymbol("TCS");
+        trade.setType(type);
+        trade.setQuantity(1);
+        trade.setPrice(new BigDecimal(price));
+        trade.setStopLoss(new BigDecimal(stopLoss));
+        trade.setTakeProfit(new BigDecimal(takeProfit));
+        return trade;
+    }
+}
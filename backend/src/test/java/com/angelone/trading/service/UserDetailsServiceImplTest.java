@@ -0,0 +1,51 @@
+package com.angelone.trading.service;
+
+import com.angelone.trading.config.CacheConfig;
+import com.angelone.trading.entity.User;
+import com.angelone.trading.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserDetailsServiceImplTest {
+    
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserDetailsServiceImpl service = new UserDetailsServiceImpl(userRepository,
+            new ConcurrentMapCacheManager(CacheConfig.USERS));
+    
+    @Test
+    void cachedLookupsReturnIndependentUsers() {
+        User stored = new User();
+        stored.setId(7L);
+        stored.setEmail("trader@example.com");
+        stored.setTotalPnL(BigDecimal.TEN);
+        when(userRepository.findByEmail("trader@example.com")).thenReturn(Optional.of(stored));
+        
+        User first = (User) service.loadUserByUsername("trader@example.com");
+        first.setTotalPnL(BigDecimal.ZERO);
+        User second = (User) service.loadUserByUsername("trader@example.com");
+        
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getId()).isEqualTo(7L);
+        assertThat(second.getTotalPnL()).isEqualByComparingTo(BigDecimal.TEN);
+        verify(userRepository, times(1)).findByEmail("trader@example.com");
+    }
+    
+    @Test
+    void unknownUsersAreNotFound() {
+        when(userRepository.findByEmail("nobody@example.com")).thenReturn(Optional.empty());
+        
+        assertThatThrownBy(() -> service.loadUserByUsername("nobody@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+}
@@ -11,6 +11,10 @@ const NewTradeModal: React.FC<NewTradeModalProps> = ({ onClose }) => {
   const { dispatch } = useTrading();
   const [isLoading, setIsLoading] = useState(false);
   const [error, setError] = useState('');
+  // One id per order ticket, so a retried submit cannot create a second order
+  const [clientOrderId] = useState(
+    () => 'W' + Date.now().toString(36) + Math.random().toString(36).slice(2, 8)
+  );
   const [formData, setFormData] = useState({
     symbol: '',
     type: 'BUY' as 'BUY' | 'SELL',
@@ -33,6 +37,7 @@ const NewTradeModal: React.FC<NewTradeModalProps> = ({ onClose }) => {
         price: formData.price,
         stopLoss: formData.stopLoss || null,
         takeProfit: formData.takeProfit || null,
+        clientOrderId,
       };
 
       const newTrade = await apiService.executeTrade(tradeData);
@@ -65,13 +65,25 @@ class ApiService {
     return data;
   }
 
-  async getTrades() {
-    const response = await fetch(`${API_BASE_URL}/trades`, {
-      method: 'GET',
-      headers: this.getHeaders(),
-    });
+  // Trades come newest first in pages; follow the cursor until a page comes back empty,
+  // since the server may cap the page below the requested size
+  async getTrades(pageSize = 1000) {
+    const trades: any[] = [];
+    let before: number | undefined;
+    for (;;) {
+      const query = before === undefined ? `limit=${pageSize}` : `limit=${pageSize}&before=${before}`;
+      const response = await fetch(`${API_BASE_URL}/trades?${query}`, {
+        method: 'GET',
+        headers: this.getHeaders(),
+      });
 
-    return this.handleResponse(response);
+      const page = await this.handleResponse<any[]>(response);
+      if (page.length === 0) {
+        return trades;
+      }
+      trades.push(...page);
+      before = page[page.length - 1].id;
+    }
   }
 
   async executeTrade(tradeData: any) {
@@ -121,8 +133,21 @@ class ApiService {
     return this.handleResponse(response);
   }
 
-  async getNotifications() {
-    const response = await fetch(`${API_BASE_URL}/notifications`, {
+  async getNotifications(before?: string, limit: number = 50) {
+    const params = new URLSearchParams({ limit: String(limit) });
+    if (before) {
+      params.set('before', before);
+    }
+    const response = await fetch(`${API_BASE_URL}/notifications?${params}`, {
+      method: 'GET',
+      headers: this.getHeaders(),
+    });
+
+    return this.handleResponse(response);
+  }
+
+  async getUnreadNotificationCount() {
+    const response = await fetch(`${API_BASE_URL}/notifications/unread/count`, {
       method: 'GET',
       headers: this.getHeaders(),
     });